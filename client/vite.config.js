@@ -1,12 +1,42 @@
 import { defineConfig, loadEnv } from "vite";
 import react from "@vitejs/plugin-react";
+import { readFileSync, writeFileSync } from "node:fs";
+import { join } from "node:path";
+import { brotliCompressSync, constants, gzipSync } from "node:zlib";
+
+// Writes Brotli and gzip copies of the larger text assets next to them. The
+// server sends them to browsers that accept these encodings, so the bundle is
+// compressed once, at the highest level, rather than on every request.
+function precompress() {
+  return {
+    name: "precompress",
+    apply: "build",
+    writeBundle(options, bundle) {
+      for (const name of Object.keys(bundle)) {
+        if (!/\.(js|css|html|svg|json)$/.test(name)) continue;
+
+        const path = join(options.dir, name);
+        const content = readFileSync(path);
+        if (content.length < 1024) continue;
+
+        writeFileSync(
+          path + ".br",
+          brotliCompressSync(content, {
+            params: { [constants.BROTLI_PARAM_QUALITY]: 11 },
+          }),
+        );
+        writeFileSync(path + ".gz", gzipSync(content, { level: 9 }));
+      }
+    },
+  };
+}
 
 export default defineConfig(({ mode }) => {
   // eslint-disable-next-line no-undef
   const env = loadEnv(mode, process.cwd() + "/..");
   return {
     base: "/",
-    plugins: [react()],
+    plugins: [react(), precompress()],
     preview: {
       port: env.FRONTEND_PORT,
       strictPort: true,
@@ -0,0 +1,58 @@
+package Pucknotes.Server.Benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The BenchmarkEnvironment class is the state shared by every benchmark: a
+ * {@link LocalMongo} database filled with {@link SyntheticData}, and the
+ * application context running against it.
+ *
+ * The data is inserted before the application starts, so its caches and search
+ * index are loaded from it as they would be in production.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkEnvironment {
+
+  private LocalMongo mongo;
+  private ConfigurableApplicationContext context;
+  private SyntheticData data;
+
+  @Setup(Level.Trial)
+  public void start() {
+    mongo = LocalMongo.start();
+    data = mongo.seed();
+    context = BenchmarkApplication.run(
+      mongo,
+      "--pucknotes.access-log.enabled=false",
+      "--pucknotes.session.store=memory"
+    );
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    if (context != null) context.close();
+    if (mongo != null) mongo.close();
+  }
+
+  /**
+   * Looks up a bean of the running application, such as a service.
+   *
+   * @param type The type of the bean.
+   * @return The bean.
+   */
+  public <T> T bean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  /**
+   * @return The data the database was seeded with.
+   */
+  public SyntheticData data() {
+    return data;
+  }
+}
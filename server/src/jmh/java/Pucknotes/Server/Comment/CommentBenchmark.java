@@ -0,0 +1,50 @@
+package Pucknotes.Server.Comment;
+
+import Pucknotes.Server.Benchmark.BenchmarkEnvironment;
+import Pucknotes.Server.Benchmark.SyntheticData;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks listing the comments of a note, and those of a user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentBenchmark {
+
+  private CommentService comments;
+  private SyntheticData data;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkEnvironment environment) {
+    comments = environment.bean(CommentService.class);
+    data = environment.data();
+  }
+
+  @Benchmark
+  public List<Comment> getCommentsOfNote() {
+    String note = SyntheticData.any(data.getNotes()).getId();
+    return comments.getComments(note, null, "likes", "desc");
+  }
+
+  @Benchmark
+  public List<Comment> getCommentsOfUser() {
+    String user = SyntheticData.any(data.getAccounts()).getId();
+    return comments.getComments(null, user, "date", "desc");
+  }
+}
@@ -0,0 +1,78 @@
+package Pucknotes.Server.File;
+
+import Pucknotes.Server.Benchmark.BenchmarkEnvironment;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Benchmarks storing an uploaded file in GridFS and reading one back in full,
+ * as a download does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBenchmark {
+
+  /**
+   * The size of the file in bytes: a one page handout and a lecture's slides.
+   */
+  @Param({ "65536", "4194304" })
+  public int size;
+
+  private FileService files;
+  private MockMultipartFile upload;
+  private String stored;
+  private final byte[] buffer = new byte[8192];
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkEnvironment environment) throws IOException {
+    files = environment.bean(FileService.class);
+
+    byte[] content = new byte[size];
+    new Random(size).nextBytes(content);
+    upload = new MockMultipartFile(
+      "file",
+      "notes.pdf",
+      "application/pdf",
+      content
+    );
+    stored = files.addFile(upload).toHexString();
+  }
+
+  @Benchmark
+  public ObjectId addFile() throws IOException {
+    return files.addFile(upload);
+  }
+
+  @Benchmark
+  public long downloadFile() throws IOException {
+    File file = files.downloadFile(stored);
+
+    long total = 0;
+    try (InputStream input = file.getContent().getInputStream()) {
+      for (int read; (read = input.read(buffer)) != -1;) {
+        total += read;
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,122 @@
+package Pucknotes.Server.Note;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Benchmark.BenchmarkEnvironment;
+import Pucknotes.Server.Benchmark.SyntheticData;
+import Pucknotes.Server.Section.Section;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks listing notes with the filter combinations the note pages use,
+ * and liking a note.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteBenchmark {
+
+  /**
+   * The filters of a listing: "course" is a course page, "course+semester" a
+   * course page narrowed to a semester, "section" a section page,
+   * "major+tag" a major page filtered by tag, "search" a search across every
+   * note ranked by relevance, and "owner" a profile page.
+   */
+  @Param(
+    { "course", "course+semester", "section", "major+tag", "search", "owner" }
+  )
+  public String filter;
+
+  private NoteService notes;
+  private SyntheticData data;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkEnvironment environment) {
+    notes = environment.bean(NoteService.class);
+    data = environment.data();
+  }
+
+  @Benchmark
+  public List<Note> getNotes() {
+    Section section = SyntheticData.any(data.getSections());
+    String sectionID = null;
+    String courseID = null;
+    String majorID = null;
+    String semesterID = null;
+    List<String> tags = null;
+    String search = null;
+    String ownerID = null;
+    String sortType = "likes";
+
+    switch (filter) {
+      case "course":
+        courseID = section.getCourse();
+        break;
+      case "course+semester":
+        courseID = section.getCourse();
+        semesterID = section.getSemester();
+        sortType = "date";
+        break;
+      case "section":
+        sectionID = section.getId();
+        break;
+      case "major+tag":
+        majorID = section.getMajor();
+        tags = List.of(SyntheticData.anyTag());
+        sortType = "date";
+        break;
+      case "search":
+        search = SyntheticData.anyWord();
+        sortType = "relevance";
+        break;
+      case "owner":
+        ownerID = SyntheticData.any(data.getAccounts()).getId();
+        sortType = "date";
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown filter: " + filter);
+    }
+
+    return notes.getNotes(
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      null,
+      tags,
+      search,
+      sortType,
+      "desc",
+      ownerID
+    );
+  }
+
+  /**
+   * Likes a note and takes the like back, so the number of likes stays the same
+   * however long the benchmark runs.
+   */
+  @Benchmark
+  public boolean likeNote() {
+    Account user = SyntheticData.any(data.getAccounts());
+    Note note = SyntheticData.any(data.getNotes());
+
+    boolean liked = notes.likeNote(user, note);
+    notes.dislikeNote(user, note);
+    return liked;
+  }
+}
@@ -0,0 +1,58 @@
+package Pucknotes.Server.Session;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Benchmark.BenchmarkEnvironment;
+import Pucknotes.Server.Benchmark.SyntheticData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+
+/**
+ * Benchmarks looking up the user of a request, both when the session holds a
+ * current snapshot of the account and when it has to be loaded again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionBenchmark {
+
+  private SessionService sessions;
+  private MockHttpServletRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp(BenchmarkEnvironment environment) {
+    sessions = environment.bean(SessionService.class);
+
+    Account account = SyntheticData.any(environment.data().getAccounts());
+    MockHttpSession session = new MockHttpSession();
+    session.setAttribute("id", account.getId());
+
+    request = new MockHttpServletRequest("GET", "/api/note");
+    request.setSession(session);
+  }
+
+  @Benchmark
+  public Account getCurrentUser() {
+    return sessions.getCurrentUser(request);
+  }
+
+  @Benchmark
+  public Account getCurrentUserReloaded() {
+    request.getSession().removeAttribute(SessionService.PRINCIPAL);
+    return sessions.getCurrentUser(request);
+  }
+}
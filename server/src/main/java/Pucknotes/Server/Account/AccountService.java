@@ -3,6 +3,7 @@ package Pucknotes.Server.Account;
 import Pucknotes.Server.Response.Types.ResourceConflictException;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import Pucknotes.Server.Response.Types.UnauthorizedException;
+import Pucknotes.Server.Session.PrincipalCache;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -23,6 +24,8 @@ public class AccountService {
 
   private final PasswordEncoder encoder;
 
+  private final PrincipalCache principals;
+
   /**
    * Registers a new user account with the specified email, username, and password.
    *
@@ -91,7 +94,9 @@ public class AccountService {
     if (next.getUsername() != null) current.setUsername(next.getUsername());
     if (next.getPassword() != null) current.setPassword(next.getPassword());
 
-    return repository.save(current);
+    Account saved = repository.save(current);
+    principals.invalidate(current.getId()); // Sessions must see the new details.
+    return saved;
   }
 
   /**
@@ -186,6 +191,7 @@ public class AccountService {
     }
 
     repository.delete(account);
+    principals.invalidate(account.getId()); // Log the account out of every session.
   }
 
   public Account updateAccountRole(Account next, Account user, int newRole) {
@@ -198,6 +204,9 @@ public class AccountService {
     if (next.getUsername() != null) current.setUsername(next.getUsername());
     if (next.getPassword() != null) current.setPassword(next.getPassword());
     current.setRole(newRole);
-    return repository.save(current);
+
+    Account saved = repository.save(current);
+    principals.invalidate(current.getId()); // Sessions must see the new role.
+    return saved;
   }
 }
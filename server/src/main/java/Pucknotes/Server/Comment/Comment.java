@@ -1,7 +1,6 @@
 package Pucknotes.Server.Comment;
 
 import java.util.Date;
-import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -9,6 +8,9 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
@@ -21,6 +23,12 @@ import org.springframework.data.mongodb.core.mapping.FieldType;
 @AllArgsConstructor // Generates a constructor with all parameters
 @RequiredArgsConstructor // Generates a constructor with required (non-null) parameters
 @NoArgsConstructor // Generates a no-arguments constructor
+@CompoundIndexes(
+  {
+    @CompoundIndex(name = "note_date", def = "{'note': 1, 'createdDate': 1}"),
+    @CompoundIndex(name = "note_likes", def = "{'note': 1, 'totalLikes': 1}"),
+  }
+)
 @Document(collection = "comments") // Specifies the MongoDB collection to store comments
 public class Comment {
 
@@ -37,6 +45,7 @@ public class Comment {
    */
   @Field(targetType = FieldType.OBJECT_ID)
   @NonNull
+  @Indexed
   private String account;
 
   /**
@@ -69,12 +78,4 @@ public class Comment {
    */
   @Setter
   private long totalLikes;
-
-  /**
-   * A list of likes represented by their account identifiers.
-   * This field initializes as an empty list and can be modified via the setter.
-   */
-  @Setter
-  @Field(targetType = FieldType.OBJECT_ID)
-  private List<String> likes = List.of();
 }
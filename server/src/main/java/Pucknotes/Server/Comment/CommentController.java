@@ -84,6 +84,13 @@ public class CommentController {
       );
     }
 
+    // Count matching comments on the server without fetching them.
+    if (type.equals("count")) {
+      return ResponseEntity.ok(
+        APIResponse.good(comments.countComments(noteID, userID))
+      );
+    }
+
     // Retrieve the comments based on the specified criteria.
     List<Comment> result = comments.getComments(noteID, userID, sort, order);
 
@@ -91,8 +98,6 @@ public class CommentController {
     switch (type) {
       case "object":
         return ResponseEntity.ok(APIResponse.good(result));
-      case "count":
-        return ResponseEntity.ok(APIResponse.good(result.size()));
       default:
         List<String> ids = result.stream().map(Comment::getId).toList();
         return ResponseEntity.ok(APIResponse.good(ids));
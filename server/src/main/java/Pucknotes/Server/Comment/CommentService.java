@@ -1,17 +1,20 @@
 package Pucknotes.Server.Comment;
 
 import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Database.LikeEngine;
 import Pucknotes.Server.Note.Note;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import Pucknotes.Server.Response.Types.UnauthorizedException;
-import java.util.ArrayList;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 /**
@@ -20,6 +23,7 @@ import org.springframework.stereotype.Service;
  * and liking comments associated with notes in the system.
  */
 @Service
+@Timed("pucknotes.service")
 public class CommentService {
 
   @Autowired
@@ -28,6 +32,9 @@ public class CommentService {
   @Autowired
   private MongoTemplate template;
 
+  @Autowired
+  private LikeEngine likes;
+
   /**
    * Creates a new comment associated with a specified note and user.
    *
@@ -85,8 +92,18 @@ public class CommentService {
       throw new UnauthorizedException("You are not the owner of this comment.");
     }
 
-    comment.setDescription(body);
-    return repository.save(comment);
+    // Only the description is written, so likes recorded while the comment
+    // was being edited are kept.
+    Comment updated = template.findAndModify(
+      Query.query(Criteria.where("_id").is(new ObjectId(commentID))),
+      new Update().set("description", body),
+      FindAndModifyOptions.options().returnNew(true),
+      Comment.class
+    );
+    if (updated == null) {
+      throw new ResourceNotFoundException("Comment not found.");
+    }
+    return updated;
   }
 
   /**
@@ -107,6 +124,7 @@ public class CommentService {
     }
 
     repository.deleteById(comment.getId());
+    likes.removeAll(comment.getId());
   }
 
   /**
@@ -164,7 +182,7 @@ public class CommentService {
         query.with(Sort.by(direction, "totalLikes"));
         break;
       case "date":
-        query.with(Sort.by(direction, "date"));
+        query.with(Sort.by(direction, "createdDate"));
         break;
       // More cases can be added here for additional sorting options.
     }
@@ -177,49 +195,57 @@ public class CommentService {
       query.addCriteria(Criteria.where("account").is(new ObjectId(userID)));
     }
 
-    query.fields().exclude("likes");
-
     return template.find(query, Comment.class);
   }
 
   /**
-   * Adds a like from a user to a specified comment.
+   * Counts the comments matching the specified filters without fetching them.
+   * When no filter is applied, the count is estimated from collection metadata.
    *
-   * @param user    The account of the user liking the comment.
-   * @param comment The Comment object to which the like is to be added.
+   * @param noteID The ID of the note whose comments are counted, or null for all notes.
+   * @param userID The ID of the user whose comments are counted, or null for all users.
+   * @return The number of matching comments.
    */
-  public void like(Account user, Comment comment) {
-    // If the user has already liked the comment, there is no need to process further.
-    if (comment.getLikes().contains(user.getId())) return;
+  public long countComments(String noteID, String userID) {
+    if (noteID == null && userID == null) {
+      return template.estimatedCount(Comment.class);
+    }
 
-    ArrayList<String> next = new ArrayList<String>(comment.getLikes());
-    next.add(user.getId());
-    comment.setLikes(next);
+    Query query = new Query();
 
-    // Increment the total likes for the comment.
-    comment.setTotalLikes(comment.getTotalLikes() + 1);
+    if (noteID != null) {
+      query.addCriteria(Criteria.where("note").is(new ObjectId(noteID)));
+    }
 
-    repository.save(comment); // Persist the updated comment.
+    if (userID != null) {
+      query.addCriteria(Criteria.where("account").is(new ObjectId(userID)));
+    }
+
+    return template.count(query, Comment.class);
+  }
+
+  /**
+   * Adds a like from a user to a specified comment.
+   * The like is recorded atomically, so concurrent likes are never lost.
+   *
+   * @param user    The account of the user liking the comment.
+   * @param comment The Comment object to which the like is to be added.
+   * @return True if the like was added, false if the user already liked the comment.
+   */
+  public boolean like(Account user, Comment comment) {
+    return likes.like(Comment.class, comment.getId(), user.getId());
   }
 
   /**
    * Removes a like from a user on a specified comment.
+   * The like is removed atomically, so concurrent changes are never lost.
    *
    * @param user    The account of the user disliking the comment.
    * @param comment The Comment object from which the like is to be removed.
+   * @return True if the like was removed, false if the user had not liked the comment.
    */
-  public void dislike(Account user, Comment comment) {
-    // If the user has not liked the comment, there is no need to process.
-    if (!comment.getLikes().contains(user.getId())) return;
-
-    ArrayList<String> next = new ArrayList<String>(comment.getLikes());
-    next.remove(user.getId());
-    comment.setLikes(next);
-
-    // Decrement the total likes for the comment.
-    comment.setTotalLikes(comment.getTotalLikes() - 1);
-
-    repository.save(comment); // Persist the updated comment.
+  public boolean dislike(Account user, Comment comment) {
+    return likes.unlike(Comment.class, comment.getId(), user.getId());
   }
 
   /**
@@ -230,6 +256,6 @@ public class CommentService {
    * @return True if the user has liked the comment, otherwise false.
    */
   public boolean hasLiked(Account user, Comment comment) {
-    return comment.getLikes().contains(comment.getId()); // Check if the list of likes contains the user's ID.
+    return likes.hasLiked(comment.getId(), user.getId());
   }
 }
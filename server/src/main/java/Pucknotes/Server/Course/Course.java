@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
@@ -20,6 +22,7 @@ import org.springframework.data.mongodb.core.mapping.FieldType;
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
+@CompoundIndex(name = "major_name", def = "{'major': 1, 'name': 1}")
 @Document(collection = "courses")
 public class Course {
 
@@ -43,6 +46,7 @@ public class Course {
    * This field also utilizes the ObjectId type for database references.
    */
   @Field(targetType = FieldType.OBJECT_ID)
+  @Indexed
   private String school;
 
   /**
@@ -50,12 +54,14 @@ public class Course {
    * This field is a simple string that provides contextual information regarding course timing.
    */
   @Field(targetType = FieldType.OBJECT_ID)
+  @Indexed
   private String semester;
 
   /**
    * The unique code that identifies the course.
    * It is important to ensure that this code adheres to specific format rules to avoid duplicates.
    */
+  @Indexed
   private String code;
 
   /**
@@ -1,15 +1,13 @@
 package Pucknotes.Server.Course;
 
+import Pucknotes.Server.Database.TaxonomyCache;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
 import lombok.AllArgsConstructor;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 /**
@@ -17,15 +15,13 @@ import org.springframework.stereotype.Service;
  * It interacts with the MongoDB database to retrieve, create, update, and delete courses.
  */
 @Service
+@Timed("pucknotes.service")
 @AllArgsConstructor
 @Document(collection = "courses")
 public class CourseService {
 
   @Autowired
-  private CourseRepository repository;
-
-  @Autowired
-  private MongoTemplate template;
+  private TaxonomyCache cache;
 
   /**
    * Retrieves a list of courses based on specified filtering and sorting criteria.
@@ -46,45 +42,38 @@ public class CourseService {
     String sortType,
     String orderType
   ) {
-    Query query = new Query();
-
     // Determine the sorting direction based on the orderType input.
     Sort.Direction direction = "asc".equalsIgnoreCase(orderType)
       ? Sort.Direction.ASC
       : Sort.Direction.DESC;
 
-    // Apply sorting based on the specified sortType.
-    switch (sortType.toLowerCase()) {
-      case "name":
-        query.with(Sort.by(direction, "name"));
-        break;
-      case "semester":
-        query.with(Sort.by(direction, "semester.year"));
-        break;
-      // Additional sorting criteria can be added here as necessary.
-    }
-
-    // Add criteria to the query based on the provided identifiers.
-    if (majorID != null) {
-      query.addCriteria(Criteria.where("major").is(new ObjectId(majorID)));
-    }
-
-    if (semesterID != null) {
-      query.addCriteria(
-        Criteria.where("semester").is(new ObjectId(semesterID))
-      );
-    }
+    // Start from the most selective index of the cached catalog.
+    List<Course> result = majorID != null
+      ? cache.courses().children("major", majorID)
+      : schoolID != null
+        ? cache.courses().children("school", schoolID)
+        : semesterID != null
+          ? cache.courses().children("semester", semesterID)
+          : cache.courses().all();
+
+    // Apply the remaining identifiers as filters.
+    result = result
+      .stream()
+      .filter(course -> schoolID == null || schoolID.equals(course.getSchool()))
+      .filter(course ->
+        semesterID == null || semesterID.equals(course.getSemester())
+      )
+      .toList();
+
+    result = TaxonomyCache.matching(result, Course::getName, name); // Case-insensitive matching.
 
-    if (schoolID != null) {
-      query.addCriteria(Criteria.where("school").is(new ObjectId(schoolID)));
-    }
-
-    if (name != null) {
-      query.addCriteria(Criteria.where("name").regex(name, "i")); // The "i" flag denotes case-insensitive matching.
+    // Apply sorting based on the specified sortType.
+    // Courses have no semester year, so sorting by semester keeps the stored order.
+    if ("name".equalsIgnoreCase(sortType)) {
+      result = TaxonomyCache.sorted(result, Course::getName, direction);
     }
 
-    // Execute the query and return the found courses.
-    return template.find(query, Course.class);
+    return result;
   }
 
   /**
@@ -102,12 +91,12 @@ public class CourseService {
     }
 
     // Attempt to find the course by id; throw exception if not found.
-    Course section = repository.findById(id).orElse(null);
-    if (section == null) {
+    Course course = cache.courses().get(id);
+    if (course == null) {
       throw new ResourceNotFoundException("No course with this ID.");
     }
 
-    return section;
+    return course;
   }
 
   /**
@@ -117,7 +106,7 @@ public class CourseService {
    * @return The Course object if found, otherwise returns null.
    */
   public Course getByCode(String code) {
-    return repository.findByCode(code).orElse(null);
+    return cache.courses().find("code", code);
   }
 
   /**
@@ -127,7 +116,7 @@ public class CourseService {
    * @return true if the course exists; otherwise, false.
    */
   public boolean existsById(String id) {
-    return repository.existsById(id);
+    return cache.courses().get(id) != null;
   }
 
   /**
@@ -137,6 +126,6 @@ public class CourseService {
    * @return true if the course exists; otherwise, false.
    */
   public boolean existsByCode(String code) {
-    return repository.existsByCode(code);
+    return getByCode(code) != null;
   }
 }
@@ -0,0 +1,67 @@
+package Pucknotes.Server.Database;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The CatalogValidator class answers conditional requests for the course
+ * catalog (schools, majors, courses, sections and semesters).
+ *
+ * Every catalog response carries the generation of the cached catalog (see
+ * {@link TaxonomyCache#generation()}) as its ETag. When a client sends it back
+ * in If-None-Match and the catalog has not changed since, the request is
+ * answered with "304 Not Modified" before it reaches a controller, so browsing
+ * an unchanged catalog costs no lookups and no body.
+ *
+ * Responses may be stored by clients, but must be checked before being reused,
+ * since the catalog changes whenever the scraper imports new data.
+ */
+@Component
+public class CatalogValidator implements HandlerInterceptor, WebMvcConfigurer {
+
+  /**
+   * The endpoints serving the catalog.
+   */
+  private static final String[] PATHS = {
+    "/api/school/**",
+    "/api/major/**",
+    "/api/course/**",
+    "/api/section/**",
+    "/api/semester/**",
+  };
+
+  private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+  @Autowired
+  private TaxonomyCache taxonomy;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(this).addPathPatterns(PATHS);
+  }
+
+  @Override
+  public boolean preHandle(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    Object handler
+  ) {
+    String method = request.getMethod();
+    if (!"GET".equals(method) && !"HEAD".equals(method)) return true;
+
+    // The tag is weak, since a response may be sent with different encodings.
+    String etag = "W/\"catalog-" + taxonomy.generation() + "\"";
+    response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+
+    // Sets the ETag header, and the 304 status if the client's copy is current.
+    return !new ServletWebRequest(request, response).checkNotModified(etag);
+  }
+}
@@ -0,0 +1,367 @@
+package Pucknotes.Server.Database;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Comment.Comment;
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Major.Major;
+import Pucknotes.Server.Note.Note;
+import Pucknotes.Server.School.School;
+import Pucknotes.Server.Section.Section;
+import Pucknotes.Server.Semester.Semester;
+import Pucknotes.Server.Verification.Verification;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The IndexManager class creates the indexes declared on every MongoDB entity
+ * (through @Indexed and @CompoundIndex) when the application starts.
+ *
+ * After creating them, it explains a representative query for each listing
+ * endpoint and warns about any that would still scan a whole collection or sort
+ * in memory. It also periodically reports indexes that have not served a single
+ * query, so they can be dropped.
+ */
+@Component
+public class IndexManager {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    IndexManager.class
+  );
+
+  @Autowired
+  private MongoTemplate template;
+
+  @Autowired
+  private MongoMappingContext mappingContext;
+
+  @Value("${pucknotes.indexes.verify:true}")
+  private boolean verify;
+
+  /**
+   * A representative query issued by one of the services.
+   */
+  private static class Probe {
+
+    private final String name;
+    private final Class<?> type;
+    private final Query query;
+
+    private Probe(String name, Class<?> type, Query query) {
+      this.name = name;
+      this.type = type;
+      this.query = query;
+    }
+  }
+
+  /**
+   * Creates the declared indexes of every entity, then verifies the query plans.
+   */
+  @Order(0)
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    IndexResolver resolver = new MongoPersistentEntityIndexResolver(
+      mappingContext
+    );
+
+    for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+      if (
+        !entity.isAnnotationPresent(
+          org.springframework.data.mongodb.core.mapping.Document.class
+        )
+      ) {
+        continue;
+      }
+
+      IndexOperations operations = template.indexOps(entity.getType());
+      resolver
+        .resolveIndexFor(entity.getTypeInformation())
+        .forEach(index -> {
+          try {
+            operations.ensureIndex(index);
+          } catch (DataAccessException error) {
+            // A unique index fails to build over duplicate data; report and carry on.
+            log.warn(
+              "Could not create index {} on '{}': {}",
+              index.getIndexKeys().toJson(),
+              entity.getCollection(),
+              error.getMessage()
+            );
+          }
+        });
+    }
+
+    if (verify) {
+      verifyQueryPlans();
+    }
+  }
+
+  /**
+   * Explains the query behind each listing endpoint and reports the ones
+   * whose winning plan scans a collection or sorts in memory.
+   *
+   * @return The probes with a poor plan, mapped to their offending stages.
+   */
+  public Map<String, List<String>> verifyQueryPlans() {
+    Map<String, List<String>> problems = new HashMap<>();
+
+    for (Probe probe : probes()) {
+      try {
+        Document explain = template
+          .getCollection(template.getCollectionName(probe.type))
+          .find(probe.query.getQueryObject())
+          .sort(probe.query.getSortObject())
+          .explain();
+
+        Object winning = explain.get("queryPlanner", Document.class) != null
+          ? explain.get("queryPlanner", Document.class).get("winningPlan")
+          : null;
+
+        List<String> bad = stages(winning)
+          .stream()
+          .filter(stage -> stage.equals("COLLSCAN") || stage.equals("SORT"))
+          .distinct()
+          .toList();
+
+        if (!bad.isEmpty()) {
+          problems.put(probe.name, bad);
+          log.warn("Query '{}' is not fully indexed: {}", probe.name, bad);
+        }
+      } catch (RuntimeException error) {
+        log.warn("Could not explain query '{}'.", probe.name, error);
+      }
+    }
+
+    return problems;
+  }
+
+  /**
+   * Reports indexes that have not been used since the database server started.
+   *
+   * @return The names of unused indexes, grouped by collection.
+   */
+  @Scheduled(
+    initialDelayString = "${pucknotes.indexes.report-interval:PT24H}",
+    fixedDelayString = "${pucknotes.indexes.report-interval:PT24H}"
+  )
+  public Map<String, List<String>> reportUnusedIndexes() {
+    Map<String, List<String>> unused = new HashMap<>();
+
+    for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+      String collection = entity.getCollection();
+      if (unused.containsKey(collection) || !template.collectionExists(collection)) {
+        continue;
+      }
+
+      List<String> names = new ArrayList<>();
+      template
+        .getCollection(collection)
+        .aggregate(List.of(new Document("$indexStats", new Document())))
+        .forEach(stats -> {
+          Document accesses = stats.get("accesses", Document.class);
+          Number ops = accesses != null ? accesses.get("ops", Number.class) : null;
+          String name = stats.getString("name");
+
+          if (!"_id_".equals(name) && (ops == null || ops.longValue() == 0)) {
+            names.add(name);
+          }
+        });
+
+      unused.put(collection, names);
+      if (!names.isEmpty()) {
+        log.info("Unused indexes on '{}': {}", collection, names);
+      }
+    }
+
+    return unused;
+  }
+
+  /**
+   * Collects the names of every stage in a query plan, including nested ones.
+   *
+   * @param plan A plan document (or any part of one) from explain output.
+   * @return The stage names, in depth-first order.
+   */
+  static List<String> stages(Object plan) {
+    List<String> stages = new ArrayList<>();
+
+    if (plan instanceof Document document) {
+      if (document.get("stage") instanceof String stage) {
+        stages.add(stage);
+      }
+      document.values().forEach(value -> stages.addAll(stages(value)));
+    } else if (plan instanceof List<?> list) {
+      list.forEach(value -> stages.addAll(stages(value)));
+    }
+
+    return stages;
+  }
+
+  /**
+   * The query shapes issued by the services, with placeholder values. Note
+   * listings are probed with the sorts the endpoints actually apply, since
+   * "likes" is their default.
+   */
+  private List<Probe> probes() {
+    ObjectId id = new ObjectId();
+    Sort likes = Sort.by(Sort.Direction.DESC, "totalLikes", "_id");
+    Sort date = Sort.by(Sort.Direction.DESC, "createdDate", "_id");
+
+    return List.of(
+      new Probe(
+        "notes by course and semester",
+        Note.class,
+        new Query(Criteria.where("course").is(id).and("semester").is(id)).with(
+          likes
+        )
+      ),
+      new Probe(
+        "notes by course, newest",
+        Note.class,
+        new Query(Criteria.where("course").is(id)).with(date)
+      ),
+      new Probe("notes by likes", Note.class, new Query().with(likes)),
+      new Probe(
+        "notes by section",
+        Note.class,
+        new Query(Criteria.where("section").is(id)).with(likes)
+      ),
+      new Probe(
+        "notes by section, newest",
+        Note.class,
+        new Query(Criteria.where("section").is(id)).with(date)
+      ),
+      new Probe(
+        "notes by major",
+        Note.class,
+        new Query(Criteria.where("major").is(id)).with(likes)
+      ),
+      new Probe(
+        "notes by major, newest",
+        Note.class,
+        new Query(Criteria.where("major").is(id)).with(date)
+      ),
+      new Probe(
+        "notes by school",
+        Note.class,
+        new Query(Criteria.where("school").is(id)).with(likes)
+      ),
+      new Probe(
+        "notes by school, newest",
+        Note.class,
+        new Query(Criteria.where("school").is(id)).with(date)
+      ),
+      new Probe(
+        "notes by owner",
+        Note.class,
+        new Query(Criteria.where("owner").is(id)).with(
+          Sort.by(Sort.Direction.DESC, "createdDate")
+        )
+      ),
+      new Probe(
+        "notes by tag",
+        Note.class,
+        new Query(Criteria.where("tags").in("exam")).with(likes)
+      ),
+      new Probe(
+        "notes by tag, newest",
+        Note.class,
+        new Query(Criteria.where("tags").in("exam")).with(date)
+      ),
+      new Probe(
+        "notes by title",
+        Note.class,
+        new Query().with(Sort.by(Sort.Direction.ASC, "title", "_id"))
+      ),
+      new Probe(
+        "comments by note, newest",
+        Comment.class,
+        new Query(Criteria.where("note").is(id)).with(
+          Sort.by(Sort.Direction.DESC, "createdDate")
+        )
+      ),
+      new Probe(
+        "comments by account",
+        Comment.class,
+        new Query(Criteria.where("account").is(id))
+      ),
+      new Probe(
+        "likes by item and account",
+        Like.class,
+        new Query(Criteria.where("item").is(id).and("account").is(id))
+      ),
+      new Probe(
+        "courses by major",
+        Course.class,
+        new Query(Criteria.where("major").is(id)).with(Sort.by("name"))
+      ),
+      new Probe(
+        "courses by code",
+        Course.class,
+        new Query(Criteria.where("code").is("CSCI-1200"))
+      ),
+      new Probe(
+        "sections by course",
+        Section.class,
+        new Query(Criteria.where("course").is(id))
+      ),
+      new Probe(
+        "sections by number",
+        Section.class,
+        new Query(Criteria.where("number").is("01"))
+      ),
+      new Probe(
+        "majors by code",
+        Major.class,
+        new Query(Criteria.where("code").is("CSCI"))
+      ),
+      new Probe(
+        "majors by school",
+        Major.class,
+        new Query(Criteria.where("school").is(id))
+      ),
+      new Probe(
+        "schools by name",
+        School.class,
+        new Query(Criteria.where("name").is("Science"))
+      ),
+      new Probe(
+        "semesters by name",
+        Semester.class,
+        new Query(Criteria.where("name").is("Fall 2024"))
+      ),
+      new Probe(
+        "accounts by email",
+        Account.class,
+        new Query(Criteria.where("email").is("student@rpi.edu"))
+      ),
+      new Probe(
+        "verifications by token",
+        Verification.class,
+        new Query(Criteria.where("token").is("token"))
+      )
+    );
+  }
+}
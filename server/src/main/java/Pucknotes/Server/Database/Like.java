@@ -0,0 +1,60 @@
+package Pucknotes.Server.Database;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Represents a single like given by an account to a note or comment.
+ * This class is mapped to the "likes" collection in the MongoDB database.
+ *
+ * Keeping likes in their own collection means liked documents stay the same
+ * size no matter how popular they get. The unique (item, account) index makes
+ * checking whether an account liked an item a single index lookup, and stops an
+ * account from liking the same item twice.
+ */
+@Getter
+@RequiredArgsConstructor // Generates a constructor with required (non-null) parameters
+@NoArgsConstructor // Generates a no-arguments constructor
+@CompoundIndex(
+  name = "item_account",
+  def = "{'item': 1, 'account': 1}",
+  unique = true
+)
+@Document(collection = "likes")
+public class Like {
+
+  /**
+   * Unique identifier for the like.
+   */
+  @Id
+  private String id;
+
+  /**
+   * Identifier for the note or comment that was liked.
+   * This identifier is required and will be stored as an ObjectId in MongoDB.
+   */
+  @Field(targetType = FieldType.OBJECT_ID)
+  @NonNull
+  private String item;
+
+  /**
+   * Identifier for the account that gave the like.
+   * This identifier is required and will be stored as an ObjectId in MongoDB.
+   */
+  @Field(targetType = FieldType.OBJECT_ID)
+  @NonNull
+  private String account;
+
+  /**
+   * The date when the like was given.
+   */
+  private Date createdDate = new Date();
+}
@@ -0,0 +1,162 @@
+package Pucknotes.Server.Database;
+
+import Pucknotes.Server.Note.Note;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * The LikeEngine class records likes on any document that keeps a "totalLikes"
+ * counter, such as notes and comments. Each like is stored as its own document
+ * in the likes collection (see {@link Like}), so liked documents never grow.
+ *
+ * The unique (item, account) index decides whether a like is new: the counter
+ * is only changed after a like was actually inserted or removed. Concurrent
+ * likes can therefore never be counted twice, and the liked document is never
+ * read or rewritten whole.
+ *
+ * The like and the counter are two separate writes. If the counter cannot be
+ * changed, the like is undone again, so the two stay in step; if the server
+ * stops between the writes, {@link #recount} rebuilds the counter from the
+ * likes collection.
+ *
+ * Changing the counter of a note also increments its "version" and sets its
+ * "updatedDate", so clients holding a copy of the note see it changed. Other
+ * documents, such as comments, are not versioned and only get the counter.
+ */
+@Component
+public class LikeEngine {
+
+  @Autowired
+  private MongoTemplate template;
+
+  /**
+   * Adds a user's like to a document.
+   *
+   * @param type The entity class of the document (e.g. Note.class).
+   * @param id The ID of the document to like.
+   * @param userID The ID of the account liking the document.
+   * @return True if the like was added, false if it already existed.
+   */
+  public boolean like(Class<?> type, String id, String userID) {
+    try {
+      template.insert(new Like(id, userID));
+    } catch (DuplicateKeyException error) {
+      return false; // The account already likes this item.
+    }
+
+    try {
+      adjustTotal(type, id, 1);
+    } catch (RuntimeException error) {
+      // The like was not counted, so take it back.
+      template.remove(edge(id, userID), Like.class);
+      throw error;
+    }
+    return true;
+  }
+
+  /**
+   * Removes a user's like from a document.
+   *
+   * @param type The entity class of the document (e.g. Note.class).
+   * @param id The ID of the document to unlike.
+   * @param userID The ID of the account removing its like.
+   * @return True if the like was removed, false if there was none.
+   */
+  public boolean unlike(Class<?> type, String id, String userID) {
+    long removed = template
+      .remove(edge(id, userID), Like.class)
+      .getDeletedCount();
+    if (removed == 0) return false;
+
+    try {
+      adjustTotal(type, id, -1);
+    } catch (RuntimeException error) {
+      // The like is still counted, so put it back.
+      try {
+        template.insert(new Like(id, userID));
+      } catch (DuplicateKeyException liked) {
+        // The account liked the item again meanwhile.
+      }
+      throw error;
+    }
+    return true;
+  }
+
+  /**
+   * Sets the counter of a document to the number of likes it has, repairing
+   * it after a like was stored but not counted (or the other way around).
+   *
+   * @param type The entity class of the document (e.g. Note.class).
+   * @param id The ID of the document.
+   * @return The number of likes the document has.
+   */
+  public long recount(Class<?> type, String id) {
+    long total = template.count(
+      new Query(Criteria.where("item").is(new ObjectId(id))),
+      Like.class
+    );
+
+    template.updateFirst(
+      new Query(Criteria.where("_id").is(new ObjectId(id))),
+      versioned(type, new Update().set("totalLikes", total)),
+      type
+    );
+    return total;
+  }
+
+  /**
+   * Checks whether a user has liked a document.
+   *
+   * @param id The ID of the liked document.
+   * @param userID The ID of the account.
+   * @return True if the account likes the document.
+   */
+  public boolean hasLiked(String id, String userID) {
+    return template.exists(edge(id, userID), Like.class);
+  }
+
+  /**
+   * Removes every like given to a document, for when it is deleted.
+   *
+   * @param id The ID of the deleted document.
+   */
+  public void removeAll(String id) {
+    template.remove(
+      new Query(Criteria.where("item").is(new ObjectId(id))),
+      Like.class
+    );
+  }
+
+  private static Query edge(String id, String userID) {
+    return new Query(
+      Criteria.where("item")
+        .is(new ObjectId(id))
+        .and("account")
+        .is(new ObjectId(userID))
+    );
+  }
+
+  private void adjustTotal(Class<?> type, String id, int delta) {
+    template.updateFirst(
+      new Query(Criteria.where("_id").is(new ObjectId(id))),
+      versioned(type, new Update().inc("totalLikes", delta)),
+      type
+    );
+  }
+
+  /**
+   * Adds the version bump of notes to an update of their counter.
+   */
+  private static Update versioned(Class<?> type, Update update) {
+    if (type == Note.class) {
+      update.inc("version", 1).currentDate("updatedDate");
+    }
+    return update;
+  }
+}
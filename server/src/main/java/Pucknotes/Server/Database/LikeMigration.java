@@ -0,0 +1,152 @@
+package Pucknotes.Server.Database;
+
+import Pucknotes.Server.Comment.Comment;
+import Pucknotes.Server.Note.Note;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * The LikeMigration class moves likes that are still embedded in note and
+ * comment documents (as a "likes" array of account IDs) into the likes
+ * collection.
+ *
+ * It runs on startup, after the indexes are created. Each document is migrated
+ * by upserting its likes, recounting its totalLikes from the likes collection and
+ * finally removing the embedded array. The migration can therefore be stopped at
+ * any point and safely run again. Like {@link LikeEngine}, it only bumps the
+ * version of notes, since other documents are not versioned.
+ */
+@Component
+public class LikeMigration {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    LikeMigration.class
+  );
+
+  @Autowired
+  private MongoTemplate template;
+
+  @Value("${pucknotes.likes.migrate:true}")
+  private boolean enabled;
+
+  /**
+   * Migrates the embedded likes of every note and comment.
+   */
+  @Order(1)
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrateAll() {
+    if (!enabled) return;
+
+    for (Class<?> type : List.of(Note.class, Comment.class)) {
+      String collection = template.getCollectionName(type);
+      try {
+        long migrated = migrate(collection);
+        if (migrated > 0) {
+          log.info("Moved the likes of {} documents in '{}'.", migrated, collection);
+        }
+      } catch (RuntimeException error) {
+        log.warn("Could not migrate the likes in '{}'.", collection, error);
+      }
+    }
+  }
+
+  /**
+   * Migrates the embedded likes of every document in a collection.
+   *
+   * @param collection The name of the collection holding liked documents.
+   * @return The number of documents that were migrated.
+   */
+  public long migrate(String collection) {
+    Query query = new Query(Criteria.where("likes").exists(true));
+    query.fields().include("_id", "likes");
+
+    long migrated = 0;
+    try (
+      Stream<Document> documents = template.stream(
+        query,
+        Document.class,
+        collection
+      )
+    ) {
+      Iterator<Document> iterator = documents.iterator();
+      while (iterator.hasNext()) {
+        Document document = iterator.next();
+        try {
+          migrate(collection, document);
+          migrated++;
+        } catch (DataAccessException error) {
+          // Leave the array in place, so the next run retries this document.
+          log.warn(
+            "Could not migrate the likes of {} in '{}'.",
+            document.get("_id"),
+            collection,
+            error
+          );
+        }
+      }
+    }
+
+    return migrated;
+  }
+
+  private void migrate(String collection, Document document) {
+    Object item = document.get("_id");
+    List<Object> likes = document.getList("likes", Object.class, List.of());
+
+    if (!likes.isEmpty()) {
+      BulkOperations bulk = template.bulkOps(
+        BulkOperations.BulkMode.UNORDERED,
+        Like.class
+      );
+      for (Object account : likes) {
+        bulk.upsert(
+          new Query(
+            Criteria.where("item").is(item).and("account").is(objectId(account))
+          ),
+          new Update().setOnInsert("createdDate", new Date())
+        );
+      }
+      bulk.execute();
+    }
+
+    long total = template.count(
+      new Query(Criteria.where("item").is(item)),
+      Like.class
+    );
+
+    Update update = new Update().unset("likes").set("totalLikes", total);
+    if (collection.equals(template.getCollectionName(Note.class))) {
+      update.inc("version", 1).currentDate("updatedDate");
+    }
+
+    template.updateFirst(
+      new Query(Criteria.where("_id").is(item)),
+      update,
+      collection
+    );
+  }
+
+  private static Object objectId(Object account) {
+    return account instanceof String id && ObjectId.isValid(id)
+      ? new ObjectId(id)
+      : account;
+  }
+}
@@ -0,0 +1,545 @@
+package Pucknotes.Server.Database;
+
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Major.Major;
+import Pucknotes.Server.School.School;
+import Pucknotes.Server.Section.Section;
+import Pucknotes.Server.Semester.Semester;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The TaxonomyCache class keeps the whole course catalog (schools, majors,
+ * courses, sections and semesters) in memory. The catalog only changes when the
+ * scraper imports new data, so catalog browsing and filter validation can be
+ * served without touching the database.
+ *
+ * The catalog is loaded on first use into immutable tables, indexed by ID, by
+ * their natural keys (a code, name or number) and by the IDs of their parents.
+ * A refreshed catalog replaces the old one in a single step, so readers never
+ * see a partially loaded catalog.
+ *
+ * The catalog is reloaded periodically and can be reloaded on demand with
+ * {@link #refresh()} or {@link #invalidate()}. A lookup that misses the cache
+ * is read through to the database; if the database has the item, the cache is
+ * out of date and is reloaded on next use.
+ *
+ * Each loaded catalog has a generation, a fingerprint of its content, that
+ * only changes when the catalog does. Clients use it to check whether their
+ * copy of the catalog is current (see {@link CatalogValidator}).
+ */
+@Component
+public class TaxonomyCache implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    TaxonomyCache.class
+  );
+
+  /**
+   * Serializes catalog items for {@link #fingerprint}.
+   */
+  private static final ObjectMapper JSON = JsonMapper.builder()
+    .findAndAddModules()
+    .build();
+
+  @Autowired
+  private MongoTemplate template;
+
+  /**
+   * Serializes catalog loads. A lock rather than a synchronized block, since
+   * loading reads the database and a virtual thread blocked inside a
+   * synchronized block would pin its carrier thread.
+   */
+  private final ReentrantLock loadLock = new ReentrantLock();
+
+  private volatile Catalog catalog;
+
+  private volatile boolean stale;
+
+  private final AtomicLong refreshes = new AtomicLong();
+
+  private final Map<Class<?>, Counters> counters = Map.of(
+    School.class,
+    new Counters("schools"),
+    Major.class,
+    new Counters("majors"),
+    Course.class,
+    new Counters("courses"),
+    Section.class,
+    new Counters("sections"),
+    Semester.class,
+    new Counters("semesters")
+  );
+
+  /**
+   * Lookup statistics of one table, kept across refreshes.
+   */
+  private static class Counters {
+
+    private final String name;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private Counters(String name) {
+      this.name = name;
+    }
+
+    private double hitRatio() {
+      long hit = hits.get();
+      long total = hit + misses.get();
+      return total == 0 ? 0 : (double) hit / total;
+    }
+  }
+
+  /**
+   * An immutable snapshot of one catalog collection with its indexes.
+   *
+   * @param <T> The type of the catalog items.
+   */
+  public class Table<T> {
+
+    private final Class<T> type;
+    private final Function<T, String> id;
+    private final List<T> all;
+    private final Map<String, Map<String, T>> keys = new HashMap<>();
+    private final Map<String, Map<String, List<T>>> parents = new HashMap<>();
+
+    private Table(Class<T> type, Function<T, String> id, List<T> items) {
+      this.type = type;
+      this.id = id;
+      this.all = Collections.unmodifiableList(items);
+      index("_id", id);
+    }
+
+    /**
+     * Indexes the items by a unique field. The first item wins if several share a value.
+     */
+    private Table<T> index(String field, Function<T, String> key) {
+      Map<String, T> map = new HashMap<>();
+      for (T item : all) {
+        String value = key.apply(item);
+        if (value != null) map.putIfAbsent(value, item);
+      }
+      keys.put(field, Collections.unmodifiableMap(map));
+      return this;
+    }
+
+    /**
+     * Indexes the items by the ID of a parent they reference.
+     */
+    private Table<T> group(String field, Function<T, String> parent) {
+      Map<String, List<T>> map = new HashMap<>();
+      for (T item : all) {
+        String value = parent.apply(item);
+        if (value != null) {
+          map.computeIfAbsent(value, key -> new ArrayList<>()).add(item);
+        }
+      }
+      map.replaceAll((key, items) -> Collections.unmodifiableList(items));
+      parents.put(field, Collections.unmodifiableMap(map));
+      return this;
+    }
+
+    /**
+     * Returns every item, in the order they are stored in the database.
+     *
+     * @return An immutable list of every item.
+     */
+    public List<T> all() {
+      return all;
+    }
+
+    /**
+     * Looks up an item by its ID, reading through to the database on a miss.
+     *
+     * @param id The ID of the item.
+     * @return The item, or null if it does not exist.
+     */
+    public T get(String id) {
+      return find("_id", id);
+    }
+
+    /**
+     * Looks up an item by an indexed field, reading through to the database on a miss.
+     *
+     * @param field The name of the indexed field (e.g. "code"), or "_id".
+     * @param value The value of the field.
+     * @return The first item with this value, or null if there is none.
+     */
+    public T find(String field, String value) {
+      if (value == null) return null;
+
+      T item = peek(field, value);
+      record(item != null);
+      if (item != null) return item;
+
+      if (field.equals("_id") && !ObjectId.isValid(value)) return null;
+
+      item = template.findOne(
+        new Query(Criteria.where(field).is(value)),
+        type
+      );
+      if (item != null) {
+        // The catalog changed since it was loaded.
+        invalidate();
+      }
+      return item;
+    }
+
+    /**
+     * Looks up an item by an indexed field without reading through to the database.
+     *
+     * @param field The name of the indexed field (e.g. "code"), or "_id".
+     * @param value The value of the field.
+     * @return The first cached item with this value, or null if there is none.
+     */
+    public T peek(String field, String value) {
+      Map<String, T> index = keys.get(field);
+      if (index == null) {
+        throw new IllegalStateException("'" + field + "' is not indexed.");
+      }
+      return index.get(value);
+    }
+
+    /**
+     * Looks up the ID of an item by an indexed field, without reading through
+     * to the database.
+     *
+     * @param field The name of the indexed field (e.g. "code"), or "_id".
+     * @param value The value of the field.
+     * @return The ID of the first cached item with this value, or null if there is none.
+     */
+    public String peekId(String field, String value) {
+      T item = peek(field, value);
+      record(item != null);
+      return item != null ? id.apply(item) : null;
+    }
+
+    private void record(boolean hit) {
+      Counters stats = counters.get(type);
+      (hit ? stats.hits : stats.misses).incrementAndGet();
+    }
+
+    /**
+     * Returns the items that reference the given parent.
+     *
+     * @param field The name of the parent field (e.g. "school").
+     * @param parentID The ID of the parent.
+     * @return An immutable list of the matching items, possibly empty.
+     */
+    public List<T> children(String field, String parentID) {
+      Map<String, List<T>> index = parents.get(field);
+      if (index == null) {
+        throw new IllegalStateException("'" + field + "' is not indexed.");
+      }
+      return index.getOrDefault(parentID, List.of());
+    }
+  }
+
+  /**
+   * A complete, immutable snapshot of the catalog.
+   */
+  private class Catalog {
+
+    private final Table<School> schools;
+    private final Table<Major> majors;
+    private final Table<Course> courses;
+    private final Table<Section> sections;
+    private final Table<Semester> semesters;
+    private final String generation;
+
+    private Catalog() {
+      schools = new Table<>(
+        School.class,
+        School::getId,
+        template.findAll(School.class)
+      )
+        .index("name", School::getName)
+        .group("semester", School::getSemester);
+
+      majors = new Table<>(
+        Major.class,
+        Major::getId,
+        template.findAll(Major.class)
+      )
+        .index("code", Major::getCode)
+        .group("school", Major::getSchool)
+        .group("semester", Major::getSemester);
+
+      courses = new Table<>(
+        Course.class,
+        Course::getId,
+        template.findAll(Course.class)
+      )
+        .index("code", Course::getCode)
+        .group("major", Course::getMajor)
+        .group("school", Course::getSchool)
+        .group("semester", Course::getSemester);
+
+      sections = new Table<>(
+        Section.class,
+        Section::getId,
+        template.findAll(Section.class)
+      )
+        .index("number", Section::getNumber)
+        .group("course", Section::getCourse);
+
+      semesters = new Table<>(
+        Semester.class,
+        Semester::getId,
+        template.findAll(Semester.class)
+      ).index("name", Semester::getName);
+
+      generation = fingerprint(
+        schools.all,
+        majors.all,
+        courses.all,
+        sections.all,
+        semesters.all
+      );
+    }
+
+    private int size() {
+      return (
+        schools.all.size() +
+        majors.all.size() +
+        courses.all.size() +
+        sections.all.size() +
+        semesters.all.size()
+      );
+    }
+  }
+
+  /**
+   * Hashes the content of the catalog. The hash depends on the content alone,
+   * so it is the same after a reload that changed nothing, after a restart and
+   * on every server.
+   */
+  private static String fingerprint(List<?>... tables) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (List<?> table : tables) {
+        digest.update(JSON.writeValueAsBytes(table));
+      }
+      return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    } catch (JsonProcessingException | NoSuchAlgorithmException error) {
+      throw new IllegalStateException("Could not hash the catalog.", error);
+    }
+  }
+
+  /**
+   * Returns the generation of the catalog, which changes whenever the content
+   * of the catalog changes.
+   *
+   * @return A short hexadecimal fingerprint of the current catalog.
+   */
+  public String generation() {
+    return catalog().generation;
+  }
+
+  public Table<School> schools() {
+    return catalog().schools;
+  }
+
+  public Table<Major> majors() {
+    return catalog().majors;
+  }
+
+  public Table<Course> courses() {
+    return catalog().courses;
+  }
+
+  public Table<Section> sections() {
+    return catalog().sections;
+  }
+
+  public Table<Semester> semesters() {
+    return catalog().semesters;
+  }
+
+  /**
+   * Returns the table holding the given catalog type.
+   *
+   * @param type The entity class (e.g. Course.class).
+   * @return The table, or null if the type is not part of the catalog.
+   */
+  public Table<?> table(Class<?> type) {
+    if (type == School.class) return schools();
+    if (type == Major.class) return majors();
+    if (type == Course.class) return courses();
+    if (type == Section.class) return sections();
+    if (type == Semester.class) return semesters();
+    return null;
+  }
+
+  /**
+   * Reloads the whole catalog from the database and swaps it in.
+   * If loading fails, the previous catalog keeps being served.
+   */
+  @Scheduled(
+    initialDelayString = "${pucknotes.taxonomy.refresh-interval:PT1H}",
+    fixedDelayString = "${pucknotes.taxonomy.refresh-interval:PT1H}"
+  )
+  public void refresh() {
+    loadLock.lock();
+    try {
+      stale = false;
+      Catalog next = new Catalog();
+      catalog = next;
+      refreshes.incrementAndGet();
+      log.info("Loaded {} catalog items into memory.", next.size());
+    } catch (DataAccessException error) {
+      stale = true;
+      if (catalog == null) throw error;
+      log.warn("Could not refresh the catalog; serving the previous one.", error);
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  /**
+   * Marks the cached catalog as out of date, so it is reloaded on next use.
+   * Call this after changing catalog data.
+   */
+  public void invalidate() {
+    stale = true;
+  }
+
+  private Catalog catalog() {
+    Catalog current = catalog;
+    if (current != null && !stale) return current;
+
+    loadLock.lock();
+    try {
+      if (catalog == null || stale) refresh();
+      return catalog;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (Counters stats : counters.values()) {
+      FunctionCounter.builder(
+        "pucknotes.taxonomy.lookups",
+        stats.hits,
+        AtomicLong::get
+      )
+        .tag("table", stats.name)
+        .tag("result", "hit")
+        .description("Catalog lookups served from memory")
+        .register(registry);
+
+      FunctionCounter.builder(
+        "pucknotes.taxonomy.lookups",
+        stats.misses,
+        AtomicLong::get
+      )
+        .tag("table", stats.name)
+        .tag("result", "miss")
+        .description("Catalog lookups that missed the cache")
+        .register(registry);
+
+      Gauge.builder("pucknotes.cache.hit.ratio", stats, Counters::hitRatio)
+        .tag("cache", "taxonomy." + stats.name)
+        .description("Share of lookups served from memory")
+        .register(registry);
+    }
+
+    FunctionCounter.builder(
+      "pucknotes.taxonomy.refreshes",
+      refreshes,
+      AtomicLong::get
+    )
+      .description("Times the catalog was loaded from the database")
+      .register(registry);
+
+    Gauge.builder("pucknotes.taxonomy.size", this, cache -> {
+      Catalog current = cache.catalog;
+      return current == null ? 0 : current.size();
+    })
+      .description("Catalog items held in memory")
+      .register(registry);
+  }
+
+  /**
+   * Keeps the items whose field matches a case-insensitive regular expression,
+   * like a MongoDB $regex query with the "i" option.
+   *
+   * @param items The items to filter.
+   * @param field A function extracting the field to match.
+   * @param regex The expression to search for, or null to keep every item.
+   * @param <T> The type of the items.
+   * @return The matching items, in their original order.
+   */
+  public static <T> List<T> matching(
+    List<T> items,
+    Function<T, String> field,
+    String regex
+  ) {
+    if (regex == null) return items;
+
+    Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    return items
+      .stream()
+      .filter(item -> {
+        String value = field.apply(item);
+        return value != null && pattern.matcher(value).find();
+      })
+      .toList();
+  }
+
+  /**
+   * Sorts items by a field, with missing values first like MongoDB does.
+   *
+   * @param items The items to sort.
+   * @param field A function extracting the field to sort by.
+   * @param direction The direction to sort in.
+   * @param <T> The type of the items.
+   * @return A new sorted list.
+   */
+  public static <T, U extends Comparable<? super U>> List<T> sorted(
+    List<T> items,
+    Function<T, U> field,
+    Sort.Direction direction
+  ) {
+    Comparator<T> comparator = Comparator.comparing(
+      field,
+      Comparator.nullsFirst(Comparator.naturalOrder())
+    );
+
+    List<T> result = new ArrayList<>(items);
+    result.sort(direction.isAscending() ? comparator : comparator.reversed());
+    return result;
+  }
+}
@@ -0,0 +1,91 @@
+package Pucknotes.Server.File;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import lombok.Getter;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * The CachedFileResource class exposes a file cached on the local disk by the
+ * {@link FileCache} as a Spring Resource. Each read opens its own FileChannel,
+ * which is closed with the stream, so the file holds no memory or descriptor
+ * while it is not being read, and an evicted copy is released as soon as the
+ * last response sending it completes. Reads are served from the operating
+ * system's page cache, and skipping to a byte range only moves the channel's
+ * position.
+ */
+public class CachedFileResource extends AbstractResource {
+
+  /**
+   * The cached copy of the file on the local disk.
+   */
+  @Getter
+  private final Path path;
+
+  private final long length;
+
+  private final String filename;
+
+  private final Date uploadDate;
+
+  /**
+   * Creates a resource for a cached file.
+   *
+   * @param path The cached copy of the file.
+   * @param length The size of the file, in bytes.
+   * @param filename The name of the stored file.
+   * @param uploadDate The date the stored file was uploaded.
+   */
+  public CachedFileResource(
+    Path path,
+    long length,
+    String filename,
+    Date uploadDate
+  ) {
+    this.path = path;
+    this.length = length;
+    this.filename = filename;
+    this.uploadDate = uploadDate;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return Files.newInputStream(path, StandardOpenOption.READ);
+  }
+
+  @Override
+  public ReadableByteChannel readableChannel() throws IOException {
+    return FileChannel.open(path, StandardOpenOption.READ);
+  }
+
+  @Override
+  public boolean exists() {
+    return true;
+  }
+
+  @Override
+  public long contentLength() {
+    return length;
+  }
+
+  @Override
+  public long lastModified() {
+    return uploadDate.getTime();
+  }
+
+  @Override
+  public String getFilename() {
+    return filename;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Cached file [" + path + "]";
+  }
+}
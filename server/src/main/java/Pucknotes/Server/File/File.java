@@ -1,13 +1,15 @@
 package Pucknotes.Server.File;
 
+import java.util.Date;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 
 /**
  * The File class represents a file with its associated attributes such
- * as the filename, file type, file size, and the actual file content
- * in byte array format. This class makes use of Lombok annotations
+ * as the filename, file type, file size, and a resource streaming the
+ * file content. This class makes use of Lombok annotations
  * to generate getters and setters for its fields automatically.
  */
 @Getter
@@ -38,9 +40,22 @@ public class File {
   private long fileSize;
 
   /**
-   * The content of the file represented as a byte array. This is the
-   * actual data that is stored in the file. Clients will typically
-   * need to read or write this data to perform file operations.
+   * The unique identifier of the file in GridFS. Since stored files
+   * are never modified, this identifier also names a single version
+   * of the content.
    */
-  private byte[] file;
+  private String id;
+
+  /**
+   * The date when the file was uploaded. This is used as the file's
+   * last modification date when serving it over HTTP.
+   */
+  private Date uploadDate;
+
+  /**
+   * The content of the file as a resource. The content is streamed
+   * from the database when the resource is read, rather than being
+   * loaded into memory up front.
+   */
+  private Resource content;
 }
@@ -0,0 +1,529 @@
+package Pucknotes.Server.File;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The FileCache class keeps copies of the most downloaded files close at hand,
+ * so they are served without reading their chunks from GridFS.
+ *
+ * Small files, up to "pucknotes.files.cache.heap-max-file", are held on the
+ * heap, up to "heap-size" in total. Larger files, up to "disk-max-file", are
+ * copied to a local directory and read through a FileChannel, up to
+ * "disk-size" in total; full downloads of those are handed to the servlet
+ * container, which sends them to the socket with FileChannel.transferTo (see
+ * {@link #sendfile}).
+ * Both tiers evict with W-TinyLFU, which keeps the files downloaded often over
+ * the files downloaded once recently.
+ *
+ * A file is cached in the background the second time it is missed within
+ * "admission-window", so one-off downloads never churn the disk, and the
+ * request that missed is served from GridFS. Stored files never change, so
+ * cached copies never go stale; they are dropped when the file is deleted,
+ * and a copy still being made when that happens is never cached.
+ *
+ * Lookups are counted in "pucknotes.files.cache" (tagged with the tier that
+ * served them, or "none" for misses) and "pucknotes.cache.hit.ratio"
+ * (cache=files); the bytes held by each tier in "pucknotes.files.cache.size".
+ */
+@Component
+public class FileCache implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(FileCache.class);
+
+  private static final String SENDFILE_SUPPORT =
+    "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME =
+    "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START =
+    "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  /**
+   * How long an evicted copy is kept on disk, so responses already handed to
+   * the container can finish sending it.
+   */
+  private static final Duration DELETE_DELAY = Duration.ofMinutes(1);
+
+  /**
+   * The name prefix of the directories made by caches.
+   */
+  private static final String PREFIX = "pucknotes-files-";
+
+  /**
+   * The file each cache holds a lock on while it uses its directory.
+   */
+  private static final String LOCK = ".lock";
+
+  @Autowired
+  private GridFsOperations operations;
+
+  @Autowired
+  private GridFsMetrics metrics;
+
+  @Value("${pucknotes.files.cache.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${pucknotes.files.cache.heap-size:32MB}")
+  private DataSize heapSize = DataSize.ofMegabytes(32);
+
+  @Value("${pucknotes.files.cache.heap-max-file:256KB}")
+  private DataSize heapMaxFile = DataSize.ofKilobytes(256);
+
+  @Value("${pucknotes.files.cache.disk-size:2GB}")
+  private DataSize diskSize = DataSize.ofGigabytes(2);
+
+  @Value("${pucknotes.files.cache.disk-max-file:100MB}")
+  private DataSize diskMaxFile = DataSize.ofMegabytes(100);
+
+  @Value("${pucknotes.files.cache.directory:}")
+  private String directory = "";
+
+  @Value("${pucknotes.files.cache.admission-window:PT1H}")
+  private Duration admissionWindow = Duration.ofHours(1);
+
+  private Cache<String, Entry> heap;
+  private Cache<String, Entry> disk;
+
+  /**
+   * The files missed once recently, which are cached if missed again.
+   */
+  private Cache<String, Boolean> seen;
+
+  /**
+   * The files being copied into the cache, each with a token that is dropped
+   * when the file is invalidated, so the copy is then thrown away.
+   */
+  private final Map<String, Object> filling = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService worker =
+    new ScheduledThreadPoolExecutor(2, task -> {
+      Thread thread = new Thread(task, "file-cache");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+  /**
+   * The directory of this instance's copies, created inside the configured
+   * directory (or the system's temporary directory) and locked through its
+   * {@link #LOCK} file for as long as the instance runs.
+   */
+  private Path root;
+  private FileChannel lock;
+  private final AtomicLong copies = new AtomicLong();
+
+  private final AtomicLong heapHits = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * A cached file, with the details needed to serve it.
+   */
+  private record Entry(
+    String filename,
+    MediaType type,
+    long length,
+    Date uploadDate,
+    byte[] data,
+    CachedFileResource copy
+  ) {}
+
+  /**
+   * Creates this instance's directory for the disk tier, inside the configured
+   * directory or the system's temporary directory, after removing the ones
+   * left behind by instances that are no longer running. Nothing else in the
+   * configured directory is touched, so it can be shared by several instances.
+   *
+   * @throws IOException if the directory cannot be created
+   */
+  @PostConstruct
+  public void start() throws IOException {
+    // Evictions are cheap, so they run on the calling thread, which keeps the
+    // size of each tier exact.
+    heap = Caffeine.newBuilder()
+      .executor(Runnable::run)
+      .maximumWeight(heapSize.toBytes())
+      .weigher((String id, Entry file) -> (int) file.length())
+      .build();
+
+    disk = Caffeine.newBuilder()
+      .executor(Runnable::run)
+      .maximumWeight(diskSize.toBytes())
+      .weigher((String id, Entry file) -> (int) file.length())
+      .removalListener((String id, Entry file, RemovalCause cause) -> {
+        if (file != null) discard(file.copy().getPath());
+      })
+      .build();
+
+    seen = Caffeine.newBuilder()
+      .maximumSize(10_000)
+      .expireAfterWrite(admissionWindow)
+      .build();
+
+    if (!enabled) return;
+
+    Path parent = Files.createDirectories(
+      Path.of(
+        directory.isBlank() ? System.getProperty("java.io.tmpdir") : directory
+      )
+    );
+    removeAbandoned(parent);
+
+    root = Files.createTempDirectory(parent, PREFIX).toRealPath();
+    lock = FileChannel.open(
+      root.resolve(LOCK),
+      StandardOpenOption.CREATE_NEW,
+      StandardOpenOption.WRITE
+    );
+    lock.lock();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    worker.shutdownNow();
+    if (root == null) return;
+
+    try {
+      lock.close();
+      FileSystemUtils.deleteRecursively(root);
+    } catch (IOException error) {
+      log.warn("Could not delete the file cache at '{}'.", root, error);
+    }
+  }
+
+  /**
+   * Deletes the directories of instances that stopped without cleaning up,
+   * which are the ones whose lock file is not held anymore.
+   */
+  private static void removeAbandoned(Path parent) {
+    try (
+      DirectoryStream<Path> directories = Files.newDirectoryStream(
+        parent,
+        PREFIX + "*"
+      )
+    ) {
+      for (Path abandoned : directories) {
+        Path marker = abandoned.resolve(LOCK);
+        if (!Files.isRegularFile(marker)) continue; // Not made by a cache.
+
+        try (
+          FileChannel channel = FileChannel.open(
+            marker,
+            StandardOpenOption.WRITE
+          );
+          FileLock held = channel.tryLock()
+        ) {
+          if (held == null) continue; // Another instance is running.
+          FileSystemUtils.deleteRecursively(abandoned);
+        } catch (OverlappingFileLockException error) {
+          // Held by another cache in this process.
+        } catch (IOException error) {
+          log.warn("Could not delete the file cache at '{}'.", abandoned, error);
+        }
+      }
+    } catch (IOException error) {
+      log.warn("Could not look for old file caches in '{}'.", parent, error);
+    }
+  }
+
+  /**
+   * Looks up a cached file.
+   *
+   * @param id The ID of the stored file.
+   * @return The file, serving its content from the cache, or null if the file
+   * is not cached.
+   */
+  public File get(String id) {
+    if (!enabled) return null;
+
+    Entry entry = heap.getIfPresent(id);
+    if (entry != null) {
+      heapHits.incrementAndGet();
+      return toFile(id, entry, new ByteArrayResource(entry.data()));
+    }
+
+    entry = disk.getIfPresent(id);
+    if (entry != null) {
+      diskHits.incrementAndGet();
+      return toFile(id, entry, entry.copy());
+    }
+
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Offers a file that was just missed to the cache. The file is copied in the
+   * background if it was missed before within the admission window and fits
+   * in a tier.
+   *
+   * @param file The GridFS file that was missed.
+   * @param type The content type of the file.
+   */
+  public void offer(GridFSFile file, MediaType type) {
+    if (!enabled || file.getLength() > diskMaxFile.toBytes()) return;
+
+    String id = file.getObjectId().toHexString();
+    if (seen.asMap().putIfAbsent(id, Boolean.TRUE) == null) return;
+    Object token = new Object();
+    if (filling.putIfAbsent(id, token) != null) return;
+
+    try {
+      worker.execute(() -> {
+        try {
+          fill(id, token, file, type);
+        } catch (IOException | RuntimeException error) {
+          log.warn("Could not cache the file '{}'.", id, error);
+        } finally {
+          filling.remove(id, token);
+        }
+      });
+    } catch (RejectedExecutionException error) {
+      filling.remove(id, token); // Shutting down.
+    }
+  }
+
+  /**
+   * Drops the cached copy of a file, such as one that was deleted.
+   *
+   * @param id The ID of the stored file.
+   */
+  public void invalidate(String id) {
+    // Cancel a copy being made first, so it is not cached after this.
+    filling.remove(id);
+    heap.invalidate(id);
+    disk.invalidate(id);
+    seen.invalidate(id);
+  }
+
+  /**
+   * Hands a file cached on disk to the servlet container, which sends it from
+   * the page cache to the socket with FileChannel.transferTo, instead of
+   * copying it through the heap. Only Tomcat supports this, and only without
+   * TLS; elsewhere the file is streamed from disk as usual.
+   *
+   * @param request The HTTP request for the whole file.
+   * @param file The file to send.
+   * @return True if the container sends the file, in which case the response
+   * must have a Content-Length and no body.
+   */
+  public static boolean sendfile(HttpServletRequest request, File file) {
+    if (
+      !(file.getContent() instanceof CachedFileResource copy) ||
+      !"GET".equals(request.getMethod()) ||
+      !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+    ) {
+      return false;
+    }
+
+    request.setAttribute(SENDFILE_FILENAME, copy.getPath().toString());
+    request.setAttribute(SENDFILE_START, 0L);
+    request.setAttribute(SENDFILE_END, file.getFileSize());
+    return true;
+  }
+
+  /**
+   * Copies a file from GridFS into the tier it fits in, unless it was
+   * invalidated in the meantime.
+   */
+  private void fill(String id, Object token, GridFSFile file, MediaType type)
+    throws IOException {
+    if (file.getLength() <= heapMaxFile.toBytes()) {
+      byte[] data;
+      try (InputStream input = operations.getResource(file).getInputStream()) {
+        data = input.readAllBytes();
+      }
+      metrics.read(data.length);
+      admit(
+        id,
+        token,
+        heap,
+        new Entry(
+          file.getFilename(),
+          type,
+          data.length,
+          file.getUploadDate(),
+          data,
+          null
+        )
+      );
+      return;
+    }
+
+    // Every copy gets its own name, so a copy still being sent is never
+    // overwritten by a later one.
+    String name = id + "-" + copies.incrementAndGet();
+    Path part = root.resolve(name + ".part");
+    Path path = root.resolve(name);
+    long length;
+    try (InputStream input = operations.getResource(file).getInputStream()) {
+      length = Files.copy(input, part);
+      Files.move(part, path, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException error) {
+      Files.deleteIfExists(part);
+      throw error;
+    }
+    metrics.read(length);
+
+    boolean cached = admit(
+      id,
+      token,
+      disk,
+      new Entry(
+        file.getFilename(),
+        type,
+        length,
+        file.getUploadDate(),
+        null,
+        new CachedFileResource(
+          path,
+          length,
+          file.getFilename(),
+          file.getUploadDate()
+        )
+      )
+    );
+    if (!cached) Files.deleteIfExists(path);
+  }
+
+  /**
+   * Puts a copy in a tier if its file was not invalidated since the copy was
+   * started. The check and the insertion are atomic with respect to
+   * {@link #invalidate}, which drops the token before the tiers.
+   *
+   * @return True if the copy was cached.
+   */
+  private boolean admit(
+    String id,
+    Object token,
+    Cache<String, Entry> tier,
+    Entry entry
+  ) {
+    boolean[] cached = { false };
+    filling.computeIfPresent(id, (key, current) -> {
+      if (current == token) {
+        tier.put(id, entry);
+        cached[0] = true;
+      }
+      return current;
+    });
+    return cached[0];
+  }
+
+  /**
+   * Deletes an evicted copy once responses sending it are done.
+   */
+  private void discard(Path path) {
+    Runnable delete = () -> {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException error) {
+        throw new UncheckedIOException(error);
+      }
+    };
+
+    try {
+      worker.schedule(delete, DELETE_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException error) {
+      delete.run(); // Shutting down.
+    }
+  }
+
+  private static File toFile(
+    String id,
+    Entry entry,
+    Resource content
+  ) {
+    File file = new File();
+    file.setId(id);
+    file.setFilename(entry.filename());
+    file.setFileType(entry.type());
+    file.setFileSize(entry.length());
+    file.setUploadDate(entry.uploadDate());
+    file.setContent(content);
+    return file;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("pucknotes.files.cache", heapHits, AtomicLong::get)
+      .tag("tier", "heap")
+      .description("File downloads looked up in the file cache")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.files.cache", diskHits, AtomicLong::get)
+      .tag("tier", "disk")
+      .description("File downloads looked up in the file cache")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.files.cache", misses, AtomicLong::get)
+      .tag("tier", "none")
+      .description("File downloads looked up in the file cache")
+      .register(registry);
+
+    Gauge.builder("pucknotes.cache.hit.ratio", this, cache -> {
+      long hit = cache.heapHits.get() + cache.diskHits.get();
+      long total = hit + cache.misses.get();
+      return total == 0 ? 0 : (double) hit / total;
+    })
+      .tag("cache", "files")
+      .description("Share of lookups served from memory")
+      .register(registry);
+
+    Gauge.builder("pucknotes.files.cache.size", this, cache ->
+      cache.heap.policy().eviction().get().weightedSize().orElse(0)
+    )
+      .tag("tier", "heap")
+      .baseUnit("bytes")
+      .description("Bytes of files held by each tier of the file cache")
+      .register(registry);
+
+    Gauge.builder("pucknotes.files.cache.size", this, cache ->
+      cache.disk.policy().eviction().get().weightedSize().orElse(0)
+    )
+      .tag("tier", "disk")
+      .baseUnit("bytes")
+      .description("Bytes of files held by each tier of the file cache")
+      .register(registry);
+  }
+}
@@ -0,0 +1,92 @@
+package Pucknotes.Server.File;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+
+/**
+ * The FileResource class exposes a file stored in MongoDB GridFS as a Spring
+ * Resource. The file's chunks are streamed from the database as they are read,
+ * so the content is never held on the heap in full.
+ *
+ * Unlike the resource returned by GridFsOperations, every call to
+ * getInputStream opens a new download stream. This lets Spring serve several
+ * byte ranges of the same file in one response.
+ */
+public class FileResource extends AbstractResource {
+
+  private final GridFSFile file;
+
+  private final GridFsOperations operations;
+
+  private final LongConsumer reads;
+
+  /**
+   * Creates a resource for the given GridFS file.
+   *
+   * @param file The GridFS file descriptor.
+   * @param operations The GridFS operations used to open download streams.
+   */
+  public FileResource(GridFSFile file, GridFsOperations operations) {
+    this(file, operations, null);
+  }
+
+  /**
+   * Creates a resource for the given GridFS file that reports the bytes read.
+   *
+   * @param file The GridFS file descriptor.
+   * @param operations The GridFS operations used to open download streams.
+   * @param reads Called with the number of bytes of each read, or null.
+   */
+  public FileResource(
+    GridFSFile file,
+    GridFsOperations operations,
+    LongConsumer reads
+  ) {
+    this.file = file;
+    this.operations = operations;
+    this.reads = reads;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    InputStream input = operations.getResource(file).getInputStream();
+    if (reads == null) return input;
+
+    return new ProxyInputStream(input) {
+      @Override
+      protected void afterRead(int count) {
+        if (count > 0) reads.accept(count);
+      }
+    };
+  }
+
+  @Override
+  public boolean exists() {
+    return true;
+  }
+
+  @Override
+  public long contentLength() {
+    return file.getLength();
+  }
+
+  @Override
+  public long lastModified() {
+    return file.getUploadDate().getTime();
+  }
+
+  @Override
+  public String getFilename() {
+    return file.getFilename();
+  }
+
+  @Override
+  public String getDescription() {
+    return "GridFS file [" + file.getId() + "]";
+  }
+}
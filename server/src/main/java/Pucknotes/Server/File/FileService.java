@@ -1,14 +1,40 @@
 package Pucknotes.Server.File;
 
+import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import io.micrometer.core.annotation.Timed;
 import java.io.IOException;
-import org.apache.commons.io.IOUtils;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.Binary;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.gridfs.GridFsOperations;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
 import org.springframework.http.MediaType;
@@ -18,70 +44,457 @@ import org.springframework.web.multipart.MultipartFile;
 /**
  * FileService is a service class that manages file operations,
  * including uploading, downloading, and deleting files stored in MongoDB GridFS.
+ *
+ * Stored files are addressed by the SHA-256 hash of their content: uploading a
+ * file that is already stored (such as lecture slides shared by a whole class)
+ * reuses the stored copy instead of writing it again. Each stored file counts
+ * the notes referencing it in "metadata.refs", and is only deleted once the
+ * last of them lets go of it through {@link #releaseFile(String)}. A reused
+ * file keeps the name and content type of its first upload.
+ *
+ * Uploads can also be streamed straight into GridFS with
+ * {@link #addFile(InputStream, String, String)}, which hashes and measures
+ * them as they are written instead of reading them twice, or uploaded in
+ * chunks that become the chunks of the stored file, with
+ * {@link #writeChunk(ObjectId, int, byte[])} and
+ * {@link #assemble(ObjectId, String, String, long, int)}.
  */
 @Service
+@Timed("pucknotes.service")
 public class FileService {
 
+  private static final Logger log = LoggerFactory.getLogger(FileService.class);
+
+  static final String FILES_COLLECTION = "fs.files";
+  static final String CHUNKS_COLLECTION = "fs.chunks";
+  static final String HASH = "metadata.sha256";
+  static final String REFS = "metadata.refs";
+  static final String REFERENCED = "metadata.referencedAt";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   @Autowired
   private GridFsTemplate template;
 
+  @Autowired
+  private MongoTemplate mongo;
+
   @Autowired
   private GridFsOperations operations;
 
+  @Autowired
+  private GridFsMetrics metrics;
+
+  @Autowired
+  private FileCache cache;
+
+  /**
+   * Creates the index used to find stored files by their content hash.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    try {
+      mongo
+        .indexOps(FILES_COLLECTION)
+        .ensureIndex(new Index().on(HASH, Sort.Direction.ASC).sparse());
+      // The index GridFS creates itself, which chunks written directly rely on.
+      mongo
+        .indexOps(CHUNKS_COLLECTION)
+        .ensureIndex(
+          new Index()
+            .on("files_id", Sort.Direction.ASC)
+            .on("n", Sort.Direction.ASC)
+            .unique()
+        );
+    } catch (DataAccessException error) {
+      log.warn(
+        "Could not create the indexes on '{}': {}",
+        FILES_COLLECTION,
+        error.getMessage()
+      );
+    }
+  }
+
   /**
-   * Adds a file to the MongoDB GridFS.
+   * Adds a file to the MongoDB GridFS, or references the stored copy if a file
+   * with the same content was already uploaded.
    *
    * @param upload the MultipartFile object containing the file to be uploaded
    * @return the ObjectId of the stored file
    * @throws IOException if an error occurs while reading the file input stream or storing the file
    *
-   * This method creates a metadata object that includes the file size
-   * and stores the file using the GridFsTemplate. The object's ObjectId is returned.
+   * The upload is hashed first, which only reads the local copy Spring made of
+   * it. If a stored file has the same hash, its reference count is incremented
+   * and nothing is written to GridFS. Otherwise the file is stored with its
+   * size, hash and a reference count of one in its metadata.
+   *
+   * Every call must be matched by a {@link #releaseFile(String)} once the
+   * returned file is no longer referenced.
    */
   public ObjectId addFile(MultipartFile upload) throws IOException {
+    String hash = hash(upload.getInputStream());
+
+    ObjectId existing = reference(hash);
+    if (existing != null) {
+      metrics.deduplicated(upload.getSize());
+      return existing;
+    }
+
     DBObject metadata = new BasicDBObject();
     metadata.put("fileSize", upload.getSize());
+    metadata.put("sha256", hash);
+    metadata.put("refs", 1);
 
     // The input stream is obtained from the MultipartFile and stored in GridFS.
-    return template.store(
+    ObjectId id = template.store(
       upload.getInputStream(),
       upload.getOriginalFilename(),
       upload.getContentType(),
       metadata
     );
+    metrics.stored(upload.getSize());
+    return id;
   }
 
   /**
-   * Downloads a file from the MongoDB GridFS based on the provided ID.
+   * Streams a file into the MongoDB GridFS as it is read, or references the
+   * stored copy if a file with the same content was already uploaded.
+   *
+   * @param input the content of the file, read to its end but not closed
+   * @param filename the name of the file
+   * @param contentType the content type of the file, or null if unknown
+   * @return the ObjectId of the stored file
+   * @throws IOException if an error occurs while reading the input, such as
+   * the upload exceeding its size limit
+   *
+   * Each chunk read is hashed and written to GridFS right away, so the upload
+   * is never buffered in memory or copied to a temporary file. If reading
+   * fails, the chunks written so far are deleted. Once the whole content is
+   * stored, its hash is compared against the stored files: if one has the same
+   * content, it is referenced and the copy just written is deleted; otherwise
+   * the size and hash are added to the metadata of the new file.
+   *
+   * Every call must be matched by a {@link #releaseFile(String)} once the
+   * returned file is no longer referenced.
+   */
+  public ObjectId addFile(
+    InputStream input,
+    String filename,
+    String contentType
+  ) throws IOException {
+    Document metadata = new Document("refs", 1).append(
+      "referencedAt",
+      new Date()
+    );
+    if (contentType != null) {
+      metadata.append("_contentType", contentType);
+    }
+
+    GridFSUploadStream output = GridFSBuckets.create(
+      mongo.getDb()
+    ).openUploadStream(filename, new GridFSUploadOptions().metadata(metadata));
+
+    MessageDigest digest = sha256();
+    long size = 0;
+    try {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      for (int read; (read = input.read(buffer)) != -1;) {
+        digest.update(buffer, 0, read);
+        output.write(buffer, 0, read);
+        size += read;
+      }
+      output.close();
+    } catch (IOException | RuntimeException error) {
+      // Drop the chunks written so far.
+      output.abort();
+      throw error;
+    }
+
+    ObjectId id = output.getObjectId();
+    String hash = HexFormat.of().formatHex(digest.digest());
+
+    ObjectId existing = reference(hash);
+    if (existing != null) {
+      template.delete(new Query(Criteria.where("_id").is(id)));
+      metrics.deduplicated(size);
+      return existing;
+    }
+
+    mongo.updateFirst(
+      new Query(Criteria.where("_id").is(id)),
+      new Update().set("metadata.fileSize", size).set(HASH, hash),
+      FILES_COLLECTION
+    );
+    metrics.stored(size);
+    return id;
+  }
+
+  /**
+   * Writes one chunk of a file that is uploaded in pieces, replacing any copy
+   * of the chunk written before. The file itself only exists once its chunks
+   * are assembled.
+   *
+   * @param id the ID the file will have
+   * @param n the number of the chunk, starting from zero
+   * @param data the content of the chunk
+   *
+   * Chunks are written straight to the GridFS chunks collection, in the form
+   * GridFS uses, so assembling them does not copy them. All chunks but the
+   * last must therefore have the same size.
+   */
+  public void writeChunk(ObjectId id, int n, byte[] data) {
+    Query chunk = new Query(Criteria.where("files_id").is(id).and("n").is(n));
+    Update content = new Update().set("data", new Binary(data));
+    try {
+      mongo.upsert(chunk, content, CHUNKS_COLLECTION);
+    } catch (DuplicateKeyException error) {
+      // The same chunk was sent twice at once; the other write inserted it.
+      mongo.upsert(chunk, content, CHUNKS_COLLECTION);
+    }
+  }
+
+  /**
+   * Lists the chunks written so far of a file that is uploaded in pieces.
+   *
+   * @param id the ID the file will have
+   * @return the numbers of the chunks written, in order
+   */
+  public List<Integer> writtenChunks(ObjectId id) {
+    List<Integer> chunks = new ArrayList<>(
+      mongo.findDistinct(
+        new Query(Criteria.where("files_id").is(id)),
+        "n",
+        CHUNKS_COLLECTION,
+        Integer.class
+      )
+    );
+    Collections.sort(chunks);
+    return chunks;
+  }
+
+  /**
+   * Turns the chunks written with {@link #writeChunk(ObjectId, int, byte[])}
+   * into a stored file, or references the stored copy if a file with the same
+   * content was already uploaded.
+   *
+   * @param id the ID of the file
+   * @param filename the name of the file
+   * @param contentType the content type of the file, or null if unknown
+   * @param length the size of the file, in bytes
+   * @param chunkSize the size of every chunk but the last
+   * @return the ObjectId of the stored file
+   * @throws IllegalArgumentException if chunks are missing, or do not add up
+   * to the size of the file
+   *
+   * The chunks are read once, in order, to hash them; they are not written
+   * again. The file is then created by adding its entry to the GridFS files
+   * collection, pointing at the chunks. If a stored file has the same content,
+   * the chunks are deleted instead.
+   *
+   * Every call must be matched by a {@link #releaseFile(String)} once the
+   * returned file is no longer referenced.
+   */
+  public ObjectId assemble(
+    ObjectId id,
+    String filename,
+    String contentType,
+    long length,
+    int chunkSize
+  ) {
+    MessageDigest digest = sha256();
+    long size = 0;
+    int expected = 0;
+
+    // Only a few chunks are held in memory at a time.
+    Query chunks = new Query(Criteria.where("files_id").is(id))
+      .with(Sort.by(Sort.Direction.ASC, "n"))
+      .cursorBatchSize(2);
+    try (
+      Stream<Document> stream = mongo.stream(
+        chunks,
+        Document.class,
+        CHUNKS_COLLECTION
+      )
+    ) {
+      for (Document chunk : (Iterable<Document>) stream::iterator) {
+        byte[] data = chunk.get("data", Binary.class).getData();
+        boolean last = (long) expected * chunkSize + data.length == length;
+        if (
+          chunk.getInteger("n") != expected ||
+          (data.length != chunkSize && !last)
+        ) {
+          throw new IllegalArgumentException(
+            "Chunk " + expected + " is missing or incomplete."
+          );
+        }
+
+        digest.update(data);
+        size += data.length;
+        expected++;
+      }
+    }
+    if (size != length) {
+      throw new IllegalArgumentException(
+        "The chunks do not add up to the size of the upload."
+      );
+    }
+
+    String hash = HexFormat.of().formatHex(digest.digest());
+    ObjectId existing = reference(hash);
+    if (existing != null) {
+      discardChunks(id);
+      metrics.deduplicated(size);
+      return existing;
+    }
+
+    Document metadata = new Document("fileSize", length)
+      .append("sha256", hash)
+      .append("refs", 1)
+      .append("referencedAt", new Date());
+    if (contentType != null) {
+      metadata.append("_contentType", contentType);
+    }
+
+    mongo.insert(
+      new Document("_id", id)
+        .append("length", length)
+        .append("chunkSize", chunkSize)
+        .append("uploadDate", new Date())
+        .append("filename", filename)
+        .append("metadata", metadata),
+      FILES_COLLECTION
+    );
+    metrics.stored(size);
+    return id;
+  }
+
+  /**
+   * Deletes the chunks of a file that is uploaded in pieces and will never be
+   * assembled.
+   *
+   * @param id the ID the file would have had
+   */
+  public void discardChunks(ObjectId id) {
+    mongo.remove(
+      new Query(Criteria.where("files_id").is(id)),
+      CHUNKS_COLLECTION
+    );
+  }
+
+  /**
+   * Looks up a file in the MongoDB GridFS based on the provided ID.
+   * The returned File streams its content from the database when read,
+   * so large files are never buffered in memory. Frequently downloaded
+   * files are served from the {@link FileCache} instead, without touching
+   * the database.
    *
    * @param id the ID of the file to be downloaded.
-   * @return a File object containing the downloaded file information.
-   * @throws IOException if an error occurs while reading the file input stream.
+   * @return a File object containing the file information and a streaming resource.
+   * @throws ResourceNotFoundException if no file exists with the given ID.
    */
-  public File downloadFile(String id) throws IOException {
+  public File downloadFile(String id) {
+    if (id == null || !ObjectId.isValid(id)) {
+      throw new ResourceNotFoundException("No file with this ID.");
+    }
+
+    File cached = cache.get(id);
+    if (cached != null) return cached;
+
     Query query = new Query(Criteria.where("_id").is(new ObjectId(id)));
     GridFSFile file = template.findOne(query);
+    if (file == null) {
+      throw new ResourceNotFoundException("No file with this ID.");
+    }
+
     File result = new File();
+    result.setId(id);
+    result.setFilename(file.getFilename());
+    result.setFileSize(file.getLength());
+    result.setUploadDate(file.getUploadDate());
+    result.setContent(new FileResource(file, operations, metrics::read));
 
-    // Checking if the file was found in GridFS and has metadata.
-    if (file != null && file.getMetadata() != null) {
-      result.setFilename(file.getFilename());
-      result.setFileType(
-        MediaType.parseMediaType(
-          file.getMetadata().get("_contentType").toString()
-        )
-      );
-      result.setFileSize(
-        Long.parseLong(file.getMetadata().get("fileSize").toString())
-      );
+    // Fall back to a generic binary type when no content type was recorded.
+    Object contentType = file.getMetadata() != null
+      ? file.getMetadata().get("_contentType")
+      : null;
+    result.setFileType(
+      contentType != null
+        ? MediaType.parseMediaType(contentType.toString())
+        : MediaType.APPLICATION_OCTET_STREAM
+    );
 
-      // Converting the input stream to byte array for easy access.
-      result.setFile(
-        IOUtils.toByteArray(operations.getResource(file).getInputStream())
-      );
+    cache.offer(file, result.getFileType());
+    return result;
+  }
+
+  /**
+   * Adds a reference to the stored file with the given content hash.
+   *
+   * Files whose count already dropped to zero are being deleted, so they are
+   * never referenced again. The time of the reference is recorded, so the
+   * {@link OrphanFileCollector} leaves the file alone until the note
+   * referencing it is saved.
+   *
+   * @return The ID of the file, or null if no file has this content.
+   */
+  private ObjectId reference(String hash) {
+    Document file = mongo.findAndModify(
+      new Query(Criteria.where(HASH).is(hash).and(REFS).gt(0)),
+      new Update().inc(REFS, 1).currentDate(REFERENCED),
+      Document.class,
+      FILES_COLLECTION
+    );
+    return file != null ? file.getObjectId("_id") : null;
+  }
+
+  /**
+   * Drops a reference to a stored file, and deletes the file if it was the
+   * last one. Files stored before reference counting are deleted right away.
+   *
+   * @param id the ID of the file, or null for notes without a file
+   */
+  public void releaseFile(String id) {
+    if (id == null || !ObjectId.isValid(id)) return;
+
+    Criteria file = Criteria.where("_id").is(new ObjectId(id));
+    Document released = mongo.findAndModify(
+      new Query(file),
+      new Update().inc(REFS, -1),
+      FindAndModifyOptions.options().returnNew(true),
+      Document.class,
+      FILES_COLLECTION
+    );
+    if (released == null) return;
+
+    Object refs = ((Document) released.get("metadata")).get("refs");
+    if (refs instanceof Number count && count.intValue() <= 0) {
+      // Only delete the file if no upload referenced it again meanwhile.
+      template.delete(new Query(file.and(REFS).lte(0)));
+      cache.invalidate(id);
     }
+  }
 
-    return result;
+  /**
+   * Computes the hex encoded SHA-256 hash of a stream, and closes it.
+   */
+  static String hash(InputStream input) throws IOException {
+    MessageDigest digest = sha256();
+
+    try (input) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      for (int read; (read = input.read(buffer)) != -1;) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException error) {
+      throw new IllegalStateException(error);
+    }
   }
 
   /**
@@ -91,10 +504,13 @@ public class FileService {
    *
    * This method creates a query based on the file ID and deletes the file
    * from GridFS. It does not provide feedback if the file was not found.
+   * The file is deleted even if other notes reference it; to let go of a
+   * note's file, use {@link #releaseFile(String)} instead.
    */
   public void deleteFile(String id) {
     Query query = new Query(Criteria.where("_id").is(new ObjectId(id)));
     template.delete(query);
+    cache.invalidate(id);
     // Note: Additional error handling could be implemented here.
   }
 }
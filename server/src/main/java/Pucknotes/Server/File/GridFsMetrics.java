@@ -0,0 +1,92 @@
+package Pucknotes.Server.File;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * The GridFsMetrics class counts the bytes stored in and read from GridFS, as
+ * the "pucknotes.gridfs.bytes" meter tagged with the direction, and the bytes
+ * of uploads that were not stored because an identical file already was, as
+ * "pucknotes.gridfs.deduplicated". The bytes of unreferenced files deleted by
+ * the {@link OrphanFileCollector} are counted in "pucknotes.gridfs.reclaimed".
+ */
+@Component
+public class GridFsMetrics implements MeterBinder {
+
+  private final AtomicLong stored = new AtomicLong();
+  private final AtomicLong read = new AtomicLong();
+  private final AtomicLong deduplicated = new AtomicLong();
+  private final AtomicLong reclaimed = new AtomicLong();
+
+  /**
+   * Counts the bytes of a stored file.
+   *
+   * @param bytes The size of the file.
+   */
+  public void stored(long bytes) {
+    stored.addAndGet(bytes);
+  }
+
+  /**
+   * Counts bytes read from a stored file.
+   *
+   * @param bytes The number of bytes read.
+   */
+  public void read(long bytes) {
+    read.addAndGet(bytes);
+  }
+
+  /**
+   * Counts the bytes of an upload that reused a stored file.
+   *
+   * @param bytes The size of the upload.
+   */
+  public void deduplicated(long bytes) {
+    deduplicated.addAndGet(bytes);
+  }
+
+  /**
+   * Counts the bytes of a deleted unreferenced file.
+   *
+   * @param bytes The size of the file.
+   */
+  public void reclaimed(long bytes) {
+    reclaimed.addAndGet(bytes);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("pucknotes.gridfs.bytes", stored, AtomicLong::get)
+      .tag("direction", "in")
+      .baseUnit("bytes")
+      .description("Bytes written to and read from GridFS")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.gridfs.bytes", read, AtomicLong::get)
+      .tag("direction", "out")
+      .baseUnit("bytes")
+      .description("Bytes written to and read from GridFS")
+      .register(registry);
+
+    FunctionCounter.builder(
+      "pucknotes.gridfs.deduplicated",
+      deduplicated,
+      AtomicLong::get
+    )
+      .baseUnit("bytes")
+      .description("Bytes of uploads not stored again, as they were already")
+      .register(registry);
+
+    FunctionCounter.builder(
+      "pucknotes.gridfs.reclaimed",
+      reclaimed,
+      AtomicLong::get
+    )
+      .baseUnit("bytes")
+      .description("Bytes of unreferenced files deleted from GridFS")
+      .register(registry);
+  }
+}
@@ -0,0 +1,228 @@
+package Pucknotes.Server.File;
+
+import Pucknotes.Server.Note.Note;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The OrphanFileCollector class deletes GridFS files that no note references,
+ * such as files left behind by a note that failed to save, or by older
+ * versions of the server that kept replaced files.
+ *
+ * It runs in the background, on its own thread, going through the stored files
+ * in batches of "pucknotes.files.gc.batch-size" and deleting at most
+ * "pucknotes.files.gc.delete-rate" files per second, so it never competes with
+ * requests for the database. Files uploaded or reused by an upload within the
+ * grace period ("pucknotes.files.gc.grace-period") are never collected, as the
+ * note referencing them may not be saved yet.
+ *
+ * The bytes reclaimed are counted in "pucknotes.gridfs.reclaimed".
+ */
+@Component
+public class OrphanFileCollector {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    OrphanFileCollector.class
+  );
+
+  @Autowired
+  private MongoTemplate mongo;
+
+  @Autowired
+  private GridFsTemplate template;
+
+  @Autowired
+  private GridFsMetrics metrics;
+
+  @Autowired
+  private FileCache cache;
+
+  @Value("${pucknotes.files.gc.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${pucknotes.files.gc.grace-period:PT24H}")
+  private Duration gracePeriod = Duration.ofHours(24);
+
+  @Value("${pucknotes.files.gc.batch-size:500}")
+  private int batchSize = 500;
+
+  @Value("${pucknotes.files.gc.delete-rate:20}")
+  private int deleteRate = 20;
+
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(
+    task -> {
+      Thread thread = new Thread(task, "gridfs-collector");
+      thread.setDaemon(true);
+      return thread;
+    }
+  );
+
+  /**
+   * Whether a collection is already running or waiting to run.
+   */
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * Regularly starts a collection on the worker, unless one is still running.
+   */
+  @Scheduled(
+    initialDelayString = "${pucknotes.files.gc.interval:PT6H}",
+    fixedDelayString = "${pucknotes.files.gc.interval:PT6H}"
+  )
+  public void schedule() {
+    if (!enabled || !running.compareAndSet(false, true)) return;
+
+    try {
+      worker.execute(() -> {
+        try {
+          long reclaimed = collect();
+          if (reclaimed > 0) {
+            log.info("Reclaimed {} bytes of unreferenced files.", reclaimed);
+          }
+        } catch (RuntimeException error) {
+          log.warn("Could not collect unreferenced files.", error);
+        } finally {
+          running.set(false);
+        }
+      });
+    } catch (RejectedExecutionException error) {
+      running.set(false); // Shutting down.
+    }
+  }
+
+  /**
+   * Deletes every stored file that is older than the grace period and not
+   * referenced by any note.
+   *
+   * @return The number of bytes reclaimed.
+   */
+  public long collect() {
+    Date cutoff = new Date(System.currentTimeMillis() - gracePeriod.toMillis());
+    long pause = deleteRate > 0 ? 1000L / deleteRate : 0;
+    long reclaimed = 0;
+
+    ObjectId after = null;
+    while (true) {
+      Criteria old = Criteria.where("uploadDate").lt(cutoff);
+      if (after != null) old = old.and("_id").gt(after);
+
+      Query query = new Query(old)
+        .with(Sort.by(Sort.Direction.ASC, "_id"))
+        .limit(batchSize);
+      query.fields().include("_id", "length");
+
+      List<Document> batch = mongo.find(
+        query,
+        Document.class,
+        FileService.FILES_COLLECTION
+      );
+      if (batch.isEmpty()) break;
+      after = batch.get(batch.size() - 1).getObjectId("_id");
+
+      for (Document file : unreferenced(batch)) {
+        if (!reclaim(file.getObjectId("_id"), cutoff)) continue;
+
+        long length = file.get("length", Number.class).longValue();
+        metrics.reclaimed(length);
+        reclaimed += length;
+
+        if (pause > 0) {
+          try {
+            Thread.sleep(pause);
+          } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            return reclaimed;
+          }
+        }
+      }
+
+      if (batch.size() < batchSize) break;
+    }
+    return reclaimed;
+  }
+
+  /**
+   * Picks the files of a batch that no note references.
+   */
+  private List<Document> unreferenced(List<Document> batch) {
+    List<ObjectId> ids = new ArrayList<>(batch.size());
+    for (Document file : batch) {
+      ids.add(file.getObjectId("_id"));
+    }
+
+    Set<ObjectId> referenced = new HashSet<>(
+      mongo.findDistinct(
+        new Query(Criteria.where("file").in(ids)),
+        "file",
+        Note.class,
+        ObjectId.class
+      )
+    );
+
+    List<Document> orphans = new ArrayList<>();
+    for (Document file : batch) {
+      if (!referenced.contains(file.getObjectId("_id"))) orphans.add(file);
+    }
+    return orphans;
+  }
+
+  /**
+   * Deletes an unreferenced file, unless an upload reused it meanwhile.
+   *
+   * Its reference count is cleared first, so no upload can reuse it while it
+   * is being deleted; this only succeeds if no upload reused it since the
+   * cutoff.
+   *
+   * @return Whether the file was deleted.
+   */
+  private boolean reclaim(ObjectId id, Date cutoff) {
+    UpdateResult cleared = mongo.updateFirst(
+      new Query(
+        Criteria.where("_id")
+          .is(id)
+          .orOperator(
+            Criteria.where(FileService.REFERENCED).exists(false),
+            Criteria.where(FileService.REFERENCED).lt(cutoff)
+          )
+      ),
+      new Update().set(FileService.REFS, 0),
+      FileService.FILES_COLLECTION
+    );
+    if (cleared.getMatchedCount() == 0) return false;
+
+    template.delete(
+      new Query(Criteria.where("_id").is(id).and(FileService.REFS).lte(0))
+    );
+    cache.invalidate(id.toHexString());
+    return true;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    worker.shutdownNow();
+  }
+}
@@ -0,0 +1,61 @@
+package Pucknotes.Server.File;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * The StreamingMultipartResolver class keeps Spring from parsing the multipart
+ * bodies of the routes that stream their uploads with an {@link UploadReader}.
+ *
+ * Spring normally reads every multipart request before it reaches a
+ * controller, copying its files to memory or temporary files. For the routes
+ * listed here, the request is left untouched, so the controller can read the
+ * body as it arrives. Every other multipart request is resolved as before.
+ */
+@Component(DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+public class StreamingMultipartResolver
+  extends StandardServletMultipartResolver {
+
+  /**
+   * The routes whose uploads are streamed, as a method and a path pattern.
+   */
+  private static final List<String[]> STREAMED_ROUTES = List.of(
+    new String[] { "POST", "/api/note" },
+    new String[] { "PUT", "/api/note/*" }
+  );
+
+  private final PathMatcher matcher = new AntPathMatcher();
+
+  @Override
+  public boolean isMultipart(HttpServletRequest request) {
+    return !isStreamed(request) && super.isMultipart(request);
+  }
+
+  /**
+   * Checks whether the body of a request is streamed by its controller.
+   *
+   * @param request the HTTP request
+   * @return true if Spring must leave the body of the request alone
+   */
+  public boolean isStreamed(HttpServletRequest request) {
+    String path = request
+      .getRequestURI()
+      .substring(request.getContextPath().length());
+
+    for (String[] route : STREAMED_ROUTES) {
+      if (
+        HttpMethod.valueOf(route[0]).matches(request.getMethod()) &&
+        matcher.match(route[1], path)
+      ) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
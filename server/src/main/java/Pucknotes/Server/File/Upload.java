@@ -0,0 +1,104 @@
+package Pucknotes.Server.File;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+
+/**
+ * The Upload class holds a request read by an {@link UploadReader}: its form
+ * fields and query parameters, and the file streamed into GridFS, if any.
+ */
+public class Upload {
+
+  private final Map<String, List<String>> fields = new HashMap<>();
+
+  /**
+   * The ID of the stored file, or null if the request had no file. The file
+   * holds a reference that must be released if it ends up unused.
+   */
+  @Getter
+  private ObjectId file;
+
+  void add(String name, String value) {
+    fields.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+  }
+
+  void setFile(ObjectId file) {
+    this.file = file;
+  }
+
+  /**
+   * Checks whether a field was given.
+   *
+   * @param name the name of the field
+   * @return true if the request has the field
+   */
+  public boolean has(String name) {
+    return fields.containsKey(name);
+  }
+
+  /**
+   * Gets the first value of a field.
+   *
+   * @param name the name of the field
+   * @return the value, or null if the field was not given
+   */
+  public String get(String name) {
+    List<String> values = fields.get(name);
+    return values != null ? values.get(0) : null;
+  }
+
+  /**
+   * Gets the first value of a field, or a default value.
+   *
+   * @param name the name of the field
+   * @param fallback the value returned if the field was not given
+   * @return the value of the field, or the fallback
+   */
+  public String get(String name, String fallback) {
+    String value = get(name);
+    return value != null ? value : fallback;
+  }
+
+  /**
+   * Gets the first value of a field that must be given.
+   *
+   * @param name the name of the field
+   * @return the value of the field
+   * @throws IllegalArgumentException if the field was not given
+   */
+  public String require(String name) {
+    String value = get(name);
+    if (value == null) {
+      throw new IllegalArgumentException(
+        "Required parameter '" + name + "' is not present."
+      );
+    }
+    return value;
+  }
+
+  /**
+   * Gets the values of a list field. As with request parameters bound to a
+   * list, each value can hold several items separated by commas.
+   *
+   * @param name the name of the field
+   * @return the trimmed, non-empty items, or null if the field was not given
+   */
+  public List<String> getList(String name) {
+    List<String> values = fields.get(name);
+    if (values == null) return null;
+
+    List<String> items = new ArrayList<>();
+    for (String value : values) {
+      Arrays.stream(value.split(","))
+        .map(String::trim)
+        .filter(item -> !item.isEmpty())
+        .forEach(items::add);
+    }
+    return items;
+  }
+}
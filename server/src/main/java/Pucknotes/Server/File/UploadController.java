@@ -0,0 +1,117 @@
+package Pucknotes.Server.File;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Response.APIResponse;
+import Pucknotes.Server.Session.SessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * The UploadController class exposes resumable uploads, for files too large to
+ * send again from the start when a connection drops.
+ *
+ * A client opens a session with the name and size of the file, then sends
+ * each chunk with a PUT to "/api/upload/{id}/chunk/{n}", in any order and
+ * several at a time. After an interruption, it asks which chunks were received
+ * and only sends the missing ones. Finally, it passes the ID of the session as
+ * the "uploadID" parameter when creating or updating a note, which attaches the
+ * uploaded file to the note.
+ */
+@RestController
+@RequestMapping("/api/upload")
+public class UploadController {
+
+  @Autowired
+  private UploadSessionService uploads;
+
+  @Autowired
+  private SessionService sessions;
+
+  /**
+   * Opens a session to upload a file in chunks.
+   *
+   * @param request the HTTP request
+   * @param filename the name of the file
+   * @param size the size of the file, in bytes
+   * @param contentType an optional content type of the file
+   * @return a ResponseEntity containing the API response with the new session,
+   * including the size and number of chunks to send
+   */
+  @PostMapping("")
+  public ResponseEntity<APIResponse<UploadSession>> createUpload(
+    HttpServletRequest request,
+    @RequestParam(value = "filename") String filename,
+    @RequestParam(value = "size") long size,
+    @RequestParam(value = "contentType", required = false) String contentType
+  ) {
+    // Retrieve the current user from the session.
+    Account user = sessions.getCurrentUser(request);
+
+    UploadSession upload = uploads.create(user, filename, contentType, size);
+    return ResponseEntity.ok(APIResponse.good(upload));
+  }
+
+  /**
+   * Retrieves an upload session, with the ranges of chunks received so far.
+   *
+   * @param request the HTTP request
+   * @param id the unique identifier of the session
+   * @return a ResponseEntity containing the API response with the session
+   */
+  @GetMapping("/{id}")
+  public ResponseEntity<APIResponse<UploadSession>> getUpload(
+    HttpServletRequest request,
+    @PathVariable String id
+  ) {
+    // Retrieve the current user from the session.
+    Account user = sessions.getCurrentUser(request);
+
+    return ResponseEntity.ok(APIResponse.good(uploads.getById(user, id)));
+  }
+
+  /**
+   * Stores a chunk of an upload. The body of the request is the raw content
+   * of the chunk, which must have exactly the size of the chunk. Sending a
+   * chunk again replaces it, so a failed request can simply be retried.
+   *
+   * @param request the HTTP request, whose body holds the chunk
+   * @param id the unique identifier of the session
+   * @param n the number of the chunk, starting from zero
+   * @return a ResponseEntity containing the API response with the success status
+   * @throws IOException if the chunk could not be read
+   */
+  @PutMapping("/{id}/chunk/{n}")
+  public ResponseEntity<APIResponse<Boolean>> putChunk(
+    HttpServletRequest request,
+    @PathVariable String id,
+    @PathVariable int n
+  ) throws IOException {
+    // Retrieve the current user from the session.
+    Account user = sessions.getCurrentUser(request);
+
+    uploads.writeChunk(user, id, n, request.getInputStream());
+    return ResponseEntity.ok(APIResponse.good(true));
+  }
+
+  /**
+   * Cancels an upload, deleting the chunks received so far.
+   *
+   * @param request the HTTP request
+   * @param id the unique identifier of the session
+   * @return a ResponseEntity containing the API response with the success status
+   */
+  @DeleteMapping("/{id}")
+  public ResponseEntity<APIResponse<Boolean>> cancelUpload(
+    HttpServletRequest request,
+    @PathVariable String id
+  ) {
+    // Retrieve the current user from the session.
+    Account user = sessions.getCurrentUser(request);
+
+    uploads.cancel(user, id);
+    return ResponseEntity.ok(APIResponse.good(true));
+  }
+}
@@ -0,0 +1,171 @@
+package Pucknotes.Server.File;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.fileupload2.core.AbstractFileUpload;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletRequestContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+/**
+ * The UploadReader class reads multipart requests as they arrive, streaming
+ * their file straight into GridFS through {@link FileService}, instead of
+ * letting Spring copy the whole request to memory or a temporary file first.
+ *
+ * Only the routes listed in {@link StreamingMultipartResolver} can be read
+ * this way, as Spring consumes the body of any other multipart request. The
+ * size limits of "spring.servlet.multipart" are enforced while reading, so an
+ * upload that is too large is cut off as soon as it crosses the limit.
+ */
+@Component
+public class UploadReader {
+
+  /**
+   * The name of the part holding the uploaded file.
+   */
+  public static final String FILE_FIELD = "file";
+
+  /**
+   * The largest form field accepted, in bytes.
+   */
+  private static final int MAX_FIELD_SIZE = 64 * 1024;
+
+  @Autowired
+  private FileService files;
+
+  @Value("${spring.servlet.multipart.max-file-size:200MB}")
+  private DataSize maxFileSize = DataSize.ofMegabytes(200);
+
+  @Value("${spring.servlet.multipart.max-request-size:200MB}")
+  private DataSize maxRequestSize = DataSize.ofMegabytes(200);
+
+  /**
+   * Reads the fields of a request, storing its file in GridFS.
+   *
+   * @param request the HTTP request, whose body was not read yet
+   * @return the fields and stored file of the request
+   * @throws IOException if the request could not be read or stored
+   * @throws MaxUploadSizeExceededException if the request is too large
+   * @throws IllegalArgumentException if the request is malformed
+   *
+   * Requests that are not multipart, such as URL encoded forms, are read as
+   * usual. If reading fails after the file was stored, the file is released.
+   */
+  public Upload read(HttpServletRequest request) throws IOException {
+    Upload upload = new Upload();
+
+    // Unlike its servlet variant, this check also accepts PUT requests.
+    if (
+      !AbstractFileUpload.isMultipartContent(
+        new JakartaServletRequestContext(request)
+      )
+    ) {
+      request
+        .getParameterMap()
+        .forEach((name, values) -> {
+          for (String value : values) upload.add(name, value);
+        });
+      return upload;
+    }
+
+    // Asking the container for parameters would make it read the body.
+    readQuery(request.getQueryString(), upload);
+
+    JakartaServletFileUpload<?, ?> parser = new JakartaServletFileUpload<>();
+    parser.setFileSizeMax(maxFileSize.toBytes());
+    parser.setSizeMax(maxRequestSize.toBytes());
+    parser.setHeaderCharset(StandardCharsets.UTF_8);
+
+    try {
+      FileItemInputIterator items = parser.getItemIterator(request);
+      while (items.hasNext()) {
+        FileItemInput item = items.next();
+
+        if (item.isFormField()) {
+          upload.add(item.getFieldName(), readField(item));
+          continue;
+        }
+
+        // Browsers send an empty part when no file was chosen.
+        if (
+          !FILE_FIELD.equals(item.getFieldName()) ||
+          item.getName() == null ||
+          item.getName().isEmpty()
+        ) {
+          continue;
+        }
+
+        if (upload.getFile() != null) {
+          throw new IllegalArgumentException("Only one file can be uploaded.");
+        }
+
+        try (InputStream input = item.getInputStream()) {
+          upload.setFile(
+            files.addFile(input, item.getName(), item.getContentType())
+          );
+        }
+      }
+    } catch (FileUploadSizeException error) {
+      release(upload);
+      throw new MaxUploadSizeExceededException(error.getPermitted(), error);
+    } catch (FileUploadException error) {
+      release(upload);
+      throw new IllegalArgumentException("Malformed multipart request.", error);
+    } catch (IOException | RuntimeException error) {
+      release(upload);
+      throw error;
+    }
+
+    return upload;
+  }
+
+  /**
+   * Reads a form field as UTF-8 text.
+   */
+  private static String readField(FileItemInput item) throws IOException {
+    try (InputStream input = item.getInputStream()) {
+      byte[] value = input.readNBytes(MAX_FIELD_SIZE + 1);
+      if (value.length > MAX_FIELD_SIZE) {
+        throw new IllegalArgumentException(
+          "The '" + item.getFieldName() + "' field is too long."
+        );
+      }
+      return new String(value, StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Adds the parameters of a query string to an upload.
+   */
+  private static void readQuery(String query, Upload upload) {
+    if (query == null || query.isEmpty()) return;
+
+    for (String parameter : query.split("&")) {
+      if (parameter.isEmpty()) continue;
+
+      String[] pair = parameter.split("=", 2);
+      String value = pair.length > 1 ? pair[1] : "";
+      upload.add(
+        URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+        URLDecoder.decode(value, StandardCharsets.UTF_8)
+      );
+    }
+  }
+
+  private void release(Upload upload) {
+    if (upload.getFile() != null) {
+      files.releaseFile(upload.getFile().toHexString());
+    }
+  }
+}
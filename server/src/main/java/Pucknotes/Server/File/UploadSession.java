@@ -0,0 +1,135 @@
+package Pucknotes.Server.File;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Date;
+import java.util.List;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Represents a file being uploaded in chunks, so an interrupted upload can be
+ * resumed instead of sent again from the start.
+ * This class is mapped to the "upload_sessions" collection in the MongoDB database.
+ *
+ * The file is split into "chunkCount" chunks of "chunkSize" bytes, the last
+ * one holding the remainder. Chunks can be sent in any order, several at a
+ * time, and sent again if a request failed. Once every chunk was received,
+ * the session is finalized by attaching it to a note, which turns the chunks
+ * into a stored file and deletes the session.
+ *
+ * Sessions that receive no chunk for a while expire, and are deleted along
+ * with their chunks by the {@link UploadSessionService}.
+ */
+@Getter
+@NoArgsConstructor
+@Document(collection = "upload_sessions")
+public class UploadSession {
+
+  /**
+   * Unique identifier for the session, which is also the ID of the stored file.
+   */
+  @Id
+  private String id;
+
+  /**
+   * The ID of the account uploading the file.
+   */
+  private String owner;
+
+  /**
+   * The name of the file.
+   */
+  private String filename;
+
+  /**
+   * The content type of the file, or null if unknown.
+   */
+  private String contentType;
+
+  /**
+   * The size of the file, in bytes.
+   */
+  private long length;
+
+  /**
+   * The size of every chunk but the last, in bytes.
+   */
+  private int chunkSize;
+
+  /**
+   * The number of chunks the file is split into.
+   */
+  private int chunkCount;
+
+  /**
+   * The date when the session was created.
+   */
+  private Date createdDate = new Date();
+
+  /**
+   * When the session expires, pushed back every time a chunk is received.
+   */
+  @Setter
+  @Indexed
+  private Date expiresAt;
+
+  /**
+   * The number of chunks being written to the session right now. A session
+   * cannot be closed while chunks are being written, so that no chunk is
+   * stored after the session was completed or cancelled.
+   */
+  @JsonIgnore
+  private int writers;
+
+  /**
+   * Whether the session is being completed or cancelled, after which it
+   * accepts no more chunks.
+   */
+  @JsonIgnore
+  private boolean closing;
+
+  /**
+   * The ranges of chunks received so far, filled in when the session is
+   * returned to its owner.
+   */
+  @Setter
+  @Transient
+  private List<ChunkRange> received;
+
+  /**
+   * A range of consecutive chunks, from "first" to "last" included.
+   */
+  public record ChunkRange(int first, int last) {}
+
+  public UploadSession(
+    String owner,
+    String filename,
+    String contentType,
+    long length,
+    int chunkSize,
+    Date expiresAt
+  ) {
+    this.owner = owner;
+    this.filename = filename;
+    this.contentType = contentType;
+    this.length = length;
+    this.chunkSize = chunkSize;
+    this.chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+    this.expiresAt = expiresAt;
+  }
+
+  /**
+   * Gets the size of a chunk of the file.
+   *
+   * @param n the number of the chunk, starting from zero
+   * @return the number of bytes the chunk must hold
+   */
+  public int sizeOf(int n) {
+    return (int) Math.min(chunkSize, length - (long) n * chunkSize);
+  }
+}
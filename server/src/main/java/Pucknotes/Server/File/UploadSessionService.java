@@ -0,0 +1,354 @@
+package Pucknotes.Server.File;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Response.Types.ResourceConflictException;
+import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import Pucknotes.Server.Response.Types.UnauthorizedException;
+import io.micrometer.core.annotation.Timed;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+/**
+ * The UploadSessionService class manages resumable uploads (see
+ * {@link UploadSession}): it opens sessions, stores the chunks sent to them
+ * through {@link FileService}, reports which chunks were received, and
+ * finalizes complete sessions into stored files.
+ *
+ * Sessions expire "pucknotes.uploads.ttl" after they last received a chunk.
+ * Expired sessions are deleted with their chunks every
+ * "pucknotes.uploads.cleanup-interval".
+ */
+@Service
+@Timed("pucknotes.service")
+public class UploadSessionService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    UploadSessionService.class
+  );
+
+  @Autowired
+  private MongoTemplate template;
+
+  @Autowired
+  private FileService files;
+
+  @Value("${pucknotes.uploads.chunk-size:4MB}")
+  private DataSize chunkSize = DataSize.ofMegabytes(4);
+
+  @Value("${pucknotes.uploads.max-size:200MB}")
+  private DataSize maxSize = DataSize.ofMegabytes(200);
+
+  @Value("${pucknotes.uploads.ttl:PT24H}")
+  private Duration ttl = Duration.ofHours(24);
+
+  /**
+   * Opens a session to upload a file in chunks.
+   *
+   * @param user The account uploading the file.
+   * @param filename The name of the file.
+   * @param contentType The content type of the file, or null if unknown.
+   * @param length The size of the file, in bytes.
+   * @return The new session, telling the size and number of chunks to send.
+   * @throws UnauthorizedException If the user is not logged in.
+   * @throws IllegalArgumentException If the file is empty or has no name.
+   * @throws MaxUploadSizeExceededException If the file is too large.
+   */
+  public UploadSession create(
+    Account user,
+    String filename,
+    String contentType,
+    long length
+  ) {
+    if (user == null) {
+      throw new UnauthorizedException("You must log in to upload a file.");
+    } else if (filename == null || filename.isBlank()) {
+      throw new IllegalArgumentException("The file must have a name.");
+    } else if (length <= 0) {
+      throw new IllegalArgumentException("The file must not be empty.");
+    } else if (length > maxSize.toBytes()) {
+      throw new MaxUploadSizeExceededException(maxSize.toBytes());
+    }
+
+    UploadSession session = new UploadSession(
+      user.getId(),
+      filename,
+      contentType,
+      length,
+      (int) chunkSize.toBytes(),
+      expiry()
+    );
+    template.insert(session);
+    session.setReceived(List.of());
+    return session;
+  }
+
+  /**
+   * Retrieves a session, along with the ranges of chunks it received so far.
+   *
+   * @param user The account that opened the session.
+   * @param id The ID of the session.
+   * @return The session.
+   * @throws ResourceNotFoundException If no open session has this ID.
+   * @throws UnauthorizedException If the session belongs to someone else.
+   */
+  public UploadSession getById(Account user, String id) {
+    UploadSession session = find(user, id);
+    session.setReceived(
+      ranges(files.writtenChunks(new ObjectId(session.getId())))
+    );
+    return session;
+  }
+
+  /**
+   * Stores a chunk sent to a session, replacing it if it was already sent.
+   *
+   * @param user The account that opened the session.
+   * @param id The ID of the session.
+   * @param n The number of the chunk, starting from zero.
+   * @param content The content of the chunk, which must have exactly the size
+   * of the chunk.
+   * @throws IOException If the chunk could not be read.
+   * @throws IllegalArgumentException If the chunk does not exist or has the
+   * wrong size.
+   * @throws ResourceNotFoundException If the session was completed, cancelled
+   * or expired while the chunk was being read.
+   */
+  public void writeChunk(Account user, String id, int n, InputStream content)
+    throws IOException {
+    UploadSession session = find(user, id);
+    if (n < 0 || n >= session.getChunkCount()) {
+      throw new IllegalArgumentException(
+        "Chunks are numbered from 0 to " + (session.getChunkCount() - 1) + "."
+      );
+    }
+
+    // Read one byte more than expected, to tell if the chunk is too long.
+    int size = session.sizeOf(n);
+    byte[] data = content.readNBytes(size + 1);
+    if (data.length != size) {
+      throw new IllegalArgumentException(
+        "Chunk " + n + " must hold exactly " + size + " bytes."
+      );
+    }
+
+    // Register the write on the session, unless it was closed or expired in
+    // the meantime, so the session cannot be closed until the chunk is stored.
+    Query open = new Query(
+      Criteria.where("_id")
+        .is(session.getId())
+        .and("closing")
+        .ne(true)
+        .and("expiresAt")
+        .gt(new Date())
+    );
+    Update register = new Update()
+      .inc("writers", 1)
+      .set("expiresAt", expiry());
+    if (
+      template
+        .updateFirst(open, register, UploadSession.class)
+        .getMatchedCount() ==
+      0
+    ) {
+      throw new ResourceNotFoundException("No upload with this ID.");
+    }
+
+    try {
+      files.writeChunk(new ObjectId(session.getId()), n, data);
+    } finally {
+      template.updateFirst(
+        new Query(Criteria.where("_id").is(session.getId())),
+        new Update().inc("writers", -1),
+        UploadSession.class
+      );
+    }
+  }
+
+  /**
+   * Turns a complete session into a stored file, and closes the session.
+   *
+   * @param user The account that opened the session.
+   * @param id The ID of the session.
+   * @return The ID of the stored file, holding a reference that must be
+   * released through {@link FileService#releaseFile(String)} once unused.
+   * @throws IllegalArgumentException If chunks are still missing.
+   * @throws ResourceConflictException If chunks are still being written.
+   */
+  public ObjectId complete(Account user, String id) {
+    UploadSession session = close(find(user, id));
+    ObjectId file = new ObjectId(session.getId());
+
+    int received = files.writtenChunks(file).size();
+    if (received != session.getChunkCount()) {
+      // Reopen the session, so the missing chunks can still be sent.
+      template.updateFirst(
+        new Query(Criteria.where("_id").is(session.getId())),
+        new Update().set("closing", false),
+        UploadSession.class
+      );
+      throw new IllegalArgumentException(
+        "Only " +
+        received +
+        " of the " +
+        session.getChunkCount() +
+        " chunks were received."
+      );
+    }
+
+    template.remove(
+      new Query(Criteria.where("_id").is(session.getId())),
+      UploadSession.class
+    );
+
+    try {
+      return files.assemble(
+        file,
+        session.getFilename(),
+        session.getContentType(),
+        session.getLength(),
+        session.getChunkSize()
+      );
+    } catch (RuntimeException error) {
+      files.discardChunks(file);
+      throw error;
+    }
+  }
+
+  /**
+   * Cancels a session, deleting the chunks it received.
+   *
+   * @param user The account that opened the session.
+   * @param id The ID of the session.
+   * @throws ResourceConflictException If chunks are still being written.
+   */
+  public void cancel(Account user, String id) {
+    UploadSession session = close(find(user, id));
+    template.remove(
+      new Query(Criteria.where("_id").is(session.getId())),
+      UploadSession.class
+    );
+    files.discardChunks(new ObjectId(session.getId()));
+  }
+
+  /**
+   * Regularly deletes the sessions that expired, along with their chunks.
+   */
+  @Scheduled(
+    initialDelayString = "${pucknotes.uploads.cleanup-interval:PT1H}",
+    fixedDelayString = "${pucknotes.uploads.cleanup-interval:PT1H}"
+  )
+  public void removeExpired() {
+    Date now = new Date();
+    Query expired = new Query(Criteria.where("expiresAt").lt(now));
+    expired.fields().include("_id");
+
+    int removed = 0;
+    for (UploadSession session : template.find(expired, UploadSession.class)) {
+      // Skip sessions that received a chunk since they were listed.
+      UploadSession gone = template.findAndRemove(
+        new Query(
+          Criteria.where("_id").is(session.getId()).and("expiresAt").lt(now)
+        ),
+        UploadSession.class
+      );
+      if (gone == null) continue;
+
+      files.discardChunks(new ObjectId(gone.getId()));
+      removed++;
+    }
+
+    if (removed > 0) {
+      log.info("Removed {} abandoned uploads.", removed);
+    }
+  }
+
+  /**
+   * Closes a session to new chunks, so that it is completed or cancelled only
+   * once and no chunk is stored after that.
+   *
+   * @param session The session to close.
+   * @return The session.
+   * @throws ResourceConflictException If chunks are still being written to
+   * the session, or it is already being closed.
+   */
+  private UploadSession close(UploadSession session) {
+    Query idle = new Query(
+      Criteria.where("_id")
+        .is(session.getId())
+        .and("closing")
+        .ne(true)
+        .and("writers")
+        .in(0, null)
+    );
+    if (
+      template
+        .updateFirst(idle, new Update().set("closing", true), UploadSession.class)
+        .getMatchedCount() ==
+      0
+    ) {
+      throw new ResourceConflictException(
+        "Chunks are still being written to this upload; try again shortly."
+      );
+    }
+    return session;
+  }
+
+  /**
+   * Finds an open session of the given user.
+   */
+  private UploadSession find(Account user, String id) {
+    if (user == null) {
+      throw new UnauthorizedException("You must log in to upload a file.");
+    }
+
+    UploadSession session = id != null && ObjectId.isValid(id)
+      ? template.findById(id, UploadSession.class)
+      : null;
+    if (session == null || session.getExpiresAt().before(new Date())) {
+      throw new ResourceNotFoundException("No upload with this ID.");
+    } else if (!user.getId().equals(session.getOwner())) {
+      throw new UnauthorizedException("This upload belongs to someone else.");
+    }
+    return session;
+  }
+
+  private Date expiry() {
+    return new Date(System.currentTimeMillis() + ttl.toMillis());
+  }
+
+  /**
+   * Groups sorted chunk numbers into ranges of consecutive chunks.
+   */
+  static List<UploadSession.ChunkRange> ranges(List<Integer> chunks) {
+    List<UploadSession.ChunkRange> ranges = new ArrayList<>();
+    int first = -1;
+    int last = -1;
+    for (int n : chunks) {
+      if (first >= 0 && n == last + 1) {
+        last = n;
+        continue;
+      }
+      if (first >= 0) ranges.add(new UploadSession.ChunkRange(first, last));
+      first = last = n;
+    }
+    if (first >= 0) ranges.add(new UploadSession.ChunkRange(first, last));
+    return ranges;
+  }
+}
@@ -0,0 +1,187 @@
+package Pucknotes.Server.Logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The AccessLog class writes one line per logged request to the "access"
+ * logger, in the background.
+ *
+ * Requests only hand their entry to a bounded queue, which a single daemon
+ * thread formats and writes. If the writer falls behind and the queue fills
+ * up, new entries are dropped (and counted) rather than slowing requests down.
+ */
+@Component
+public class AccessLog implements MeterBinder {
+
+  private static final Logger access = LoggerFactory.getLogger("access");
+
+  /**
+   * A finished request.
+   */
+  public static final class Entry {
+
+    private final String method;
+    private final String route;
+    private final String query;
+    private final int status;
+    private final long micros;
+    private final long bytes;
+    private final String client;
+    private final String payload;
+
+    /**
+     * Describes a finished request.
+     *
+     * @param method The HTTP method.
+     * @param route The matched route pattern, or the path if none matched.
+     * @param query The query string, or null.
+     * @param status The response status.
+     * @param micros The time taken to respond, in microseconds.
+     * @param bytes The size of the response body, in bytes.
+     * @param client The address of the client.
+     * @param payload The captured request body, or null.
+     */
+    public Entry(
+      String method,
+      String route,
+      String query,
+      int status,
+      long micros,
+      long bytes,
+      String client,
+      String payload
+    ) {
+      this.method = method;
+      this.route = route;
+      this.query = query;
+      this.status = status;
+      this.micros = micros;
+      this.bytes = bytes;
+      this.client = client;
+      this.payload = payload;
+    }
+
+    /**
+     * Formats the entry as space separated key=value pairs.
+     */
+    String format() {
+      StringBuilder line = new StringBuilder(128)
+        .append("method=")
+        .append(method)
+        .append(" route=")
+        .append(route)
+        .append(" status=")
+        .append(status)
+        .append(" ms=")
+        .append(micros / 1000)
+        .append('.')
+        .append(String.format("%03d", micros % 1000))
+        .append(" bytes=")
+        .append(bytes)
+        .append(" client=")
+        .append(client);
+      if (query != null) {
+        line.append(" query=").append(quote(query));
+      }
+      if (payload != null) {
+        line.append(" payload=").append(quote(payload));
+      }
+      return line.toString();
+    }
+
+    private static String quote(String value) {
+      return (
+        '"' +
+        value
+          .replace("\\", "\\\\")
+          .replace("\"", "\\\"")
+          .replace("\n", "\\n")
+          .replace("\r", "\\r") +
+        '"'
+      );
+    }
+  }
+
+  private final BlockingQueue<Entry> queue;
+
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  private final Thread writer;
+
+  /**
+   * Creates the log and starts its writer thread.
+   *
+   * @param capacity The most entries waiting to be written.
+   */
+  public AccessLog(@Value("${pucknotes.access-log.queue-size:10000}") int capacity) {
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.writer = new Thread(this::write, "access-log");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Queues an entry to be written.
+   *
+   * @param entry The finished request.
+   * @return True if the entry was queued, false if it was dropped.
+   */
+  public boolean submit(Entry entry) {
+    if (queue.offer(entry)) return true;
+
+    dropped.incrementAndGet();
+    return false;
+  }
+
+  private void write() {
+    while (true) {
+      Entry entry;
+      try {
+        entry = queue.poll(1, TimeUnit.SECONDS);
+      } catch (InterruptedException error) {
+        break;
+      }
+      if (entry == null) continue;
+
+      access.info(entry.format());
+      written.incrementAndGet();
+    }
+
+    // Write out what is left before stopping.
+    Entry entry;
+    while ((entry = queue.poll()) != null) {
+      access.info(entry.format());
+      written.incrementAndGet();
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    writer.interrupt();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("pucknotes.access_log.entries", written, AtomicLong::get)
+      .tag("result", "written")
+      .description("Access log entries")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.access_log.entries", dropped, AtomicLong::get)
+      .tag("result", "dropped")
+      .description("Access log entries")
+      .register(registry);
+  }
+}
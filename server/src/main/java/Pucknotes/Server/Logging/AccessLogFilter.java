@@ -0,0 +1,273 @@
+package Pucknotes.Server.Logging;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+/**
+ * The AccessLogFilter class records one {@link AccessLog} entry per request,
+ * with its route, status, latency and response size.
+ *
+ * To keep the overhead low, only a sample of successful requests is logged
+ * ("pucknotes.access-log.sample-rate"); server errors and slow requests are
+ * always logged. Request bodies are only captured for the routes listed in
+ * "pucknotes.access-log.payload-routes", up to a size limit, and never for
+ * multipart requests, so uploads are never buffered in memory.
+ *
+ * Requests answered asynchronously (such as streamed downloads) are logged
+ * once their response is complete.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+  private final AntPathMatcher matcher = new AntPathMatcher();
+
+  @Autowired
+  private AccessLog log;
+
+  @Value("${pucknotes.access-log.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${pucknotes.access-log.sample-rate:1.0}")
+  private double sampleRate = 1.0;
+
+  @Value("${pucknotes.access-log.slow-threshold:PT1S}")
+  private Duration slowThreshold = Duration.ofSeconds(1);
+
+  @Value("${pucknotes.access-log.payload-routes:}")
+  private List<String> payloadRoutes = List.of();
+
+  @Value("${pucknotes.access-log.max-payload:2048}")
+  private int maxPayload = 2048;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled;
+  }
+
+  @Override
+  protected void doFilterInternal(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    FilterChain chain
+  ) throws ServletException, IOException {
+    long start = System.nanoTime();
+
+    HttpServletRequest logged = capturesPayload(request)
+      ? new ContentCachingRequestWrapper(request, maxPayload)
+      : request;
+    CountingResponse counted = new CountingResponse(response);
+
+    try {
+      chain.doFilter(logged, counted);
+    } finally {
+      if (logged.isAsyncStarted()) {
+        logged
+          .getAsyncContext()
+          .addListener(
+            new AsyncListener() {
+              @Override
+              public void onComplete(AsyncEvent event) {
+                finish(logged, counted, start);
+              }
+
+              @Override
+              public void onTimeout(AsyncEvent event) {}
+
+              @Override
+              public void onError(AsyncEvent event) {}
+
+              @Override
+              public void onStartAsync(AsyncEvent event) {}
+            }
+          );
+      } else {
+        finish(logged, counted, start);
+      }
+    }
+  }
+
+  /**
+   * Decides whether to capture the body of a request. Multipart bodies are
+   * never captured, since that would buffer whole uploads.
+   */
+  private boolean capturesPayload(HttpServletRequest request) {
+    if (payloadRoutes.isEmpty()) return false;
+
+    String type = request.getContentType();
+    if (type != null && type.toLowerCase().startsWith("multipart/")) {
+      return false;
+    }
+
+    String path = request.getRequestURI();
+    for (String route : payloadRoutes) {
+      if (matcher.match(route, path)) return true;
+    }
+    return false;
+  }
+
+  private void finish(
+    HttpServletRequest request,
+    CountingResponse response,
+    long start
+  ) {
+    long micros = (System.nanoTime() - start) / 1000;
+    int status = response.getStatus();
+
+    boolean always =
+      status >= 500 || micros >= slowThreshold.toNanos() / 1000;
+    if (!always && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+
+    Object pattern = request.getAttribute(
+      HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE
+    );
+    String route = pattern != null
+      ? pattern.toString()
+      : request.getRequestURI();
+
+    String payload = null;
+    if (request instanceof ContentCachingRequestWrapper cached) {
+      byte[] body = cached.getContentAsByteArray();
+      if (body.length > 0) {
+        payload = new String(body, charsetOf(request));
+      }
+    }
+
+    log.submit(
+      new AccessLog.Entry(
+        request.getMethod(),
+        route,
+        request.getQueryString(),
+        status,
+        micros,
+        response.getCount(),
+        request.getRemoteAddr(),
+        payload
+      )
+    );
+  }
+
+  private static Charset charsetOf(HttpServletRequest request) {
+    try {
+      return request.getCharacterEncoding() != null
+        ? Charset.forName(request.getCharacterEncoding())
+        : Charset.forName("UTF-8");
+    } catch (IllegalArgumentException error) {
+      return Charset.forName("UTF-8");
+    }
+  }
+
+  /**
+   * Counts the bytes written to the response body, without buffering them.
+   */
+  static class CountingResponse extends HttpServletResponseWrapper {
+
+    private long count;
+    private ServletOutputStream output;
+    private PrintWriter writer;
+
+    CountingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (output == null) {
+        ServletOutputStream delegate = super.getOutputStream();
+        output = new ServletOutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+          }
+
+          @Override
+          public void flush() throws IOException {
+            delegate.flush();
+          }
+
+          @Override
+          public void close() throws IOException {
+            delegate.close();
+          }
+
+          @Override
+          public boolean isReady() {
+            return delegate.isReady();
+          }
+
+          @Override
+          public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+          }
+        };
+      }
+      return output;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        // Counts characters, which matches bytes for the ASCII of most
+        // text responses. The writer is not buffered, so nothing is held back.
+        Writer delegate = super.getWriter();
+        writer = new PrintWriter(
+          new Writer() {
+            @Override
+            public void write(char[] buffer, int off, int len)
+              throws IOException {
+              delegate.write(buffer, off, len);
+              count += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+              delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+              delegate.close();
+            }
+          }
+        );
+      }
+      return writer;
+    }
+  }
+}
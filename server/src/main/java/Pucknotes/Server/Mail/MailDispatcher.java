@@ -0,0 +1,265 @@
+package Pucknotes.Server.Mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The MailDispatcher class sends email in the background, so requests that
+ * send mail only wait for it to be stored in the {@link MailOutbox}.
+ *
+ * A single worker thread drains the outbox in batches. Each batch is sent over
+ * one SMTP connection, and mails that fail are retried with exponential
+ * backoff until they run out of attempts. The worker is woken whenever mail is
+ * queued, and regularly polls the outbox for retries and for mail queued by
+ * other server instances.
+ */
+@Component
+public class MailDispatcher implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    MailDispatcher.class
+  );
+
+  /**
+   * The longest wait between two attempts at sending a mail.
+   */
+  private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+  /**
+   * How long a claimed mail is reserved while it is being sent.
+   */
+  private static final Duration LEASE = Duration.ofMinutes(5);
+
+  @Autowired
+  private JavaMailSender mailer;
+
+  @Autowired
+  private MailOutbox outbox;
+
+  @Value("${pucknotes.mail.batch-size:20}")
+  private int batchSize = 20;
+
+  @Value("${pucknotes.mail.max-attempts:8}")
+  private int maxAttempts = 8;
+
+  @Value("${pucknotes.mail.retry-backoff:PT30S}")
+  private Duration retryBackoff = Duration.ofSeconds(30);
+
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(
+    task -> {
+      Thread thread = new Thread(task, "mail-dispatcher");
+      thread.setDaemon(true);
+      return thread;
+    }
+  );
+
+  /**
+   * Whether a drain is already waiting to run on the worker.
+   */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private final AtomicLong depth = new AtomicLong();
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong retried = new AtomicLong();
+  private final AtomicLong abandoned = new AtomicLong();
+
+  /**
+   * Queues a plain text mail and wakes the worker to send it.
+   *
+   * @param recipient The address to send the mail to.
+   * @param subject The subject line of the mail.
+   * @param text The plain text body of the mail.
+   */
+  public void queue(String recipient, String subject, String text) {
+    outbox.enqueue(recipient, subject, text);
+    depth.incrementAndGet();
+    wake();
+  }
+
+  /**
+   * Makes the worker drain the outbox, unless a drain is already waiting.
+   */
+  public void wake() {
+    if (!scheduled.compareAndSet(false, true)) return;
+
+    try {
+      worker.execute(() -> {
+        scheduled.set(false);
+        try {
+          drain();
+        } catch (RuntimeException error) {
+          log.warn("Could not drain the mail outbox.", error);
+        }
+      });
+    } catch (RejectedExecutionException error) {
+      scheduled.set(false); // Shutting down; the next instance sends the mail.
+    }
+  }
+
+  /**
+   * Regularly wakes the worker, to send retries and mail queued elsewhere.
+   */
+  @Scheduled(
+    initialDelayString = "${pucknotes.mail.poll-interval:PT30S}",
+    fixedDelayString = "${pucknotes.mail.poll-interval:PT30S}"
+  )
+  public void poll() {
+    wake();
+  }
+
+  /**
+   * Sends every mail that is due, one batch at a time.
+   *
+   * @return The number of mails attempted.
+   */
+  public int drain() {
+    int attempted = 0;
+
+    while (true) {
+      List<OutboxMail> batch = outbox.claim(batchSize, LEASE);
+      if (batch.isEmpty()) break;
+
+      send(batch);
+      attempted += batch.size();
+      if (batch.size() < batchSize) break;
+    }
+
+    depth.set(outbox.depth());
+    return attempted;
+  }
+
+  /**
+   * Sends a batch of mails over a single connection and records the outcome
+   * of each one.
+   */
+  private void send(List<OutboxMail> batch) {
+    SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+    for (int i = 0; i < messages.length; i++) {
+      OutboxMail mail = batch.get(i);
+      messages[i] = new SimpleMailMessage();
+      messages[i].setTo(mail.getRecipient());
+      messages[i].setSubject(mail.getSubject());
+      messages[i].setText(mail.getText());
+    }
+
+    Map<Object, Exception> failures = Map.of();
+    try {
+      mailer.send(messages);
+    } catch (MailSendException error) {
+      // Lists the messages that failed; the others were sent.
+      failures = error.getFailedMessages();
+      if (failures.isEmpty()) failures = everyMessage(messages, error);
+    } catch (MailException error) {
+      failures = everyMessage(messages, error);
+    }
+
+    for (int i = 0; i < messages.length; i++) {
+      Exception failure = failures.get(messages[i]);
+      if (failure == null) {
+        outbox.sent(batch.get(i));
+        sent.incrementAndGet();
+      } else {
+        failed(batch.get(i), failure);
+      }
+    }
+  }
+
+  private static Map<Object, Exception> everyMessage(
+    SimpleMailMessage[] messages,
+    Exception error
+  ) {
+    Map<Object, Exception> failures = new HashMap<>();
+    for (SimpleMailMessage message : messages) {
+      failures.put(message, error);
+    }
+    return failures;
+  }
+
+  private void failed(OutboxMail mail, Exception error) {
+    String reason = String.valueOf(error.getMessage());
+
+    if (mail.getAttempts() >= maxAttempts) {
+      outbox.fail(mail, reason);
+      abandoned.incrementAndGet();
+      log.warn(
+        "Gave up sending mail {} after {} attempts: {}",
+        mail.getId(),
+        mail.getAttempts(),
+        reason
+      );
+      return;
+    }
+
+    Duration wait = backoff(mail.getAttempts());
+    outbox.retry(mail, new Date(System.currentTimeMillis() + wait.toMillis()), reason);
+    retried.incrementAndGet();
+  }
+
+  /**
+   * Computes how long to wait before the next attempt, doubling with each
+   * failed attempt up to {@link #MAX_BACKOFF}.
+   *
+   * @param attempts The number of attempts made so far.
+   * @return The time to wait.
+   */
+  Duration backoff(int attempts) {
+    Duration wait = retryBackoff;
+    for (int i = 1; i < attempts && wait.compareTo(MAX_BACKOFF) < 0; i++) {
+      wait = wait.multipliedBy(2);
+    }
+    return wait.compareTo(MAX_BACKOFF) < 0 ? wait : MAX_BACKOFF;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    worker.shutdown();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("pucknotes.mail.outbox.depth", depth, AtomicLong::get)
+      .description("Mails waiting to be sent")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.mail.sent", sent, AtomicLong::get)
+      .description("Mails sent")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.mail.failures", retried, AtomicLong::get)
+      .tag("outcome", "retried")
+      .description("Failed attempts at sending a mail")
+      .register(registry);
+
+    FunctionCounter.builder(
+      "pucknotes.mail.failures",
+      abandoned,
+      AtomicLong::get
+    )
+      .tag("outcome", "abandoned")
+      .description("Failed attempts at sending a mail")
+      .register(registry);
+  }
+}
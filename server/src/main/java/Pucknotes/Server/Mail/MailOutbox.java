@@ -0,0 +1,128 @@
+package Pucknotes.Server.Mail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * The MailOutbox class stores the emails waiting to be sent (see
+ * {@link OutboxMail}) in the database, so queued mail survives restarts and can
+ * be sent by any server instance.
+ *
+ * Mails are claimed one at a time with an atomic find-and-modify, which pushes
+ * their next attempt back by a lease. Several dispatchers can therefore drain
+ * the outbox at once without sending a mail twice.
+ */
+@Component
+public class MailOutbox {
+
+  @Autowired
+  private MongoTemplate template;
+
+  /**
+   * Adds a mail to the outbox, to be sent as soon as possible.
+   *
+   * @param recipient The address to send the mail to.
+   * @param subject The subject line of the mail.
+   * @param text The plain text body of the mail.
+   * @return The queued mail.
+   */
+  public OutboxMail enqueue(String recipient, String subject, String text) {
+    return template.insert(new OutboxMail(recipient, subject, text));
+  }
+
+  /**
+   * Claims the mails that are due, oldest first, counting an attempt for each.
+   *
+   * @param limit The most mails to claim.
+   * @param lease How long the claimed mails are reserved for the caller.
+   * @return The claimed mails.
+   */
+  public List<OutboxMail> claim(int limit, Duration lease) {
+    List<OutboxMail> claimed = new ArrayList<>();
+    Date now = new Date();
+
+    while (claimed.size() < limit) {
+      OutboxMail mail = template.findAndModify(
+        new Query(Criteria.where("nextAttempt").lte(now)).with(
+          Sort.by("nextAttempt")
+        ),
+        new Update()
+          .set("nextAttempt", new Date(now.getTime() + lease.toMillis()))
+          .inc("attempts", 1),
+        FindAndModifyOptions.options().returnNew(true),
+        OutboxMail.class
+      );
+      if (mail == null) break;
+      claimed.add(mail);
+    }
+
+    return claimed;
+  }
+
+  /**
+   * Removes a mail that was sent.
+   *
+   * @param mail The sent mail.
+   */
+  public void sent(OutboxMail mail) {
+    template.remove(byId(mail), OutboxMail.class);
+  }
+
+  /**
+   * Schedules another attempt at sending a mail.
+   *
+   * @param mail The mail that could not be sent.
+   * @param nextAttempt When to try again.
+   * @param error The reason the last attempt failed.
+   */
+  public void retry(OutboxMail mail, Date nextAttempt, String error) {
+    template.updateFirst(
+      byId(mail),
+      new Update().set("nextAttempt", nextAttempt).set("lastError", error),
+      OutboxMail.class
+    );
+  }
+
+  /**
+   * Gives up on a mail, keeping it in the outbox marked as failed.
+   *
+   * @param mail The mail that could not be sent.
+   * @param error The reason the last attempt failed.
+   */
+  public void fail(OutboxMail mail, String error) {
+    template.updateFirst(
+      byId(mail),
+      new Update()
+        .unset("nextAttempt")
+        .set("failed", true)
+        .set("lastError", error),
+      OutboxMail.class
+    );
+  }
+
+  /**
+   * Counts the mails still waiting to be sent.
+   *
+   * @return The number of pending mails.
+   */
+  public long depth() {
+    return template.count(
+      new Query(Criteria.where("nextAttempt").exists(true)),
+      OutboxMail.class
+    );
+  }
+
+  private static Query byId(OutboxMail mail) {
+    return new Query(Criteria.where("_id").is(mail.getId()));
+  }
+}
@@ -0,0 +1,78 @@
+package Pucknotes.Server.Mail;
+
+import java.util.Date;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Represents an email waiting to be sent.
+ * This class is mapped to the "mail_outbox" collection in the MongoDB database.
+ *
+ * A mail is pending while it has a "nextAttempt" date, and is sent by the
+ * {@link MailDispatcher} once that date has passed. Sent mails are deleted;
+ * mails that could not be sent after every attempt lose their "nextAttempt"
+ * and are kept, marked as failed, for inspection.
+ */
+@Getter
+@RequiredArgsConstructor // Generates a constructor with required (non-null) parameters
+@NoArgsConstructor // Generates a no-arguments constructor
+@Document(collection = "mail_outbox")
+public class OutboxMail {
+
+  /**
+   * Unique identifier for the mail.
+   */
+  @Id
+  private String id;
+
+  /**
+   * The address the mail is sent to.
+   */
+  @NonNull
+  private String recipient;
+
+  /**
+   * The subject line of the mail.
+   */
+  @NonNull
+  private String subject;
+
+  /**
+   * The plain text body of the mail.
+   */
+  @NonNull
+  private String text;
+
+  /**
+   * When the mail should next be sent, or null once it is no longer pending.
+   * While a dispatcher is sending the mail, this is pushed back by a lease, so
+   * the mail is retried if that dispatcher stops before finishing.
+   */
+  @Indexed(sparse = true)
+  private Date nextAttempt = new Date();
+
+  /**
+   * How many times sending the mail was attempted.
+   */
+  private int attempts;
+
+  /**
+   * The error of the last failed attempt.
+   */
+  private String lastError;
+
+  /**
+   * Whether the dispatcher gave up on the mail.
+   */
+  private boolean failed;
+
+  /**
+   * The date when the mail was queued.
+   */
+  private Date createdDate = new Date();
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
@@ -30,6 +31,7 @@ public class Major {
    * A unique code associated with the Major. This could be used for
    * identification or registration processes.
    */
+  @Indexed
   private String code;
 
   /**
@@ -44,6 +46,7 @@ public class Major {
    * as those representing schools or departments in the database.
    */
   @Field(targetType = FieldType.OBJECT_ID)
+  @Indexed
   private String school;
 
   /**
@@ -1,16 +1,13 @@
 package Pucknotes.Server.Major;
 
+import Pucknotes.Server.Database.TaxonomyCache;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
-import Pucknotes.Server.School.School;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
 import lombok.AllArgsConstructor;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 /**
@@ -19,15 +16,13 @@ import org.springframework.stereotype.Service;
  * while leveraging the underlying MongoDB repository.
  */
 @Service
+@Timed("pucknotes.service")
 @AllArgsConstructor
 @Document(collection = "majors")
 public class MajorService {
 
   @Autowired
-  private MajorRepository repository;
-
-  @Autowired
-  private MongoTemplate template;
+  private TaxonomyCache cache;
 
   /**
    * Retrieves a list of Major entities based on the provided
@@ -47,44 +42,37 @@ public class MajorService {
     String sortType,
     String orderType
   ) {
-    // Create a new query object to build the search criteria.
-    Query query = new Query();
-
     // Determine the sorting direction based on the orderType parameter.
     Sort.Direction direction = "asc".equalsIgnoreCase(orderType)
       ? Sort.Direction.ASC
       : Sort.Direction.DESC;
 
-    // Apply sorting based on the specified sortType.
-    switch (sortType.toLowerCase()) {
-      case "name":
-        query.with(Sort.by(direction, "name"));
-        break;
-      case "semester":
-        query.with(Sort.by(direction, "semester.year"));
-        break;
-      // Add more sort types as required in the future.
-    }
+    // Start from the most selective index of the cached catalog.
+    List<Major> result = schoolID != null
+      ? cache.majors().children("school", schoolID)
+      : semesterID != null
+        ? cache.majors().children("semester", semesterID)
+        : cache.majors().all();
 
     // Filter by semester ID, if provided.
     if (semesterID != null) {
-      query.addCriteria(
-        Criteria.where("semester").is(new ObjectId(semesterID))
-      );
-    }
-
-    // Filter by school ID, if provided.
-    if (schoolID != null) {
-      query.addCriteria(Criteria.where("school").is(new ObjectId(schoolID)));
+      result = result
+        .stream()
+        .filter(major -> semesterID.equals(major.getSemester()))
+        .toList();
     }
 
     // Filter by name using regex for case insensitive matching.
-    if (name != null) {
-      query.addCriteria(Criteria.where("name").regex(name, "i"));
+    result = TaxonomyCache.matching(result, Major::getName, name);
+
+    // Apply sorting based on the specified sortType.
+    // Majors have no semester year, so sorting by semester keeps the stored order.
+    if ("name".equalsIgnoreCase(sortType)) {
+      result = TaxonomyCache.sorted(result, Major::getName, direction);
     }
 
-    // Return the list of majors that match the query criteria.
-    return template.find(query, Major.class);
+    // Return the list of majors that match the criteria.
+    return result;
   }
 
   /**
@@ -102,7 +90,7 @@ public class MajorService {
     }
 
     // Attempt to find the major with the given ID.
-    Major major = repository.findById(id).orElse(null);
+    Major major = cache.majors().get(id);
     // If major is not found, throw an exception.
     if (major == null) {
       throw new ResourceNotFoundException("No major with this ID.");
@@ -113,14 +101,14 @@ public class MajorService {
   }
 
   /**
-   * Retrieves a School entity by its unique code.
+   * Retrieves a Major entity by its unique code.
    *
-   * @param code the unique code of the school.
-   * @return the School object if found, null otherwise.
+   * @param code the unique code of the major.
+   * @return the Major object if found, null otherwise.
    */
-  public School getByCode(String code) {
-    // Return the school found by its code or null if not found.
-    return repository.findByCode(code).orElse(null);
+  public Major getByCode(String code) {
+    // Return the major found by its code or null if not found.
+    return cache.majors().find("code", code);
   }
 
   /**
@@ -130,8 +118,8 @@ public class MajorService {
    * @return true if the major exists, false otherwise.
    */
   public boolean existsById(String id) {
-    // Utilize the repository to check existence of the major.
-    return repository.existsById(id);
+    // Check the cached catalog for the major.
+    return cache.majors().get(id) != null;
   }
 
   /**
@@ -141,7 +129,7 @@ public class MajorService {
    * @return true if the major exists, false otherwise.
    */
   public boolean existsByCode(String code) {
-    // Utilize the repository to check existence of the major by code.
-    return repository.existsByCode(code);
+    // Check the cached catalog for the major by code.
+    return getByCode(code) != null;
   }
 }
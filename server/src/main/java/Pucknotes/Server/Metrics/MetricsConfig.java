@@ -0,0 +1,59 @@
+package Pucknotes.Server.Metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The MetricsConfig class sets up the application's own instrumentation, on
+ * top of what Spring Boot Actuator records by itself (such as the
+ * "http.server.requests" and "mongodb.driver.commands" timers).
+ *
+ * Services annotated with @Timed("pucknotes.service") get a timer per method,
+ * tagged with the class and method names. JSON responses are timed as they are
+ * written, in "pucknotes.json.write", so request time can be split between the
+ * services, the database and serialization.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+  /**
+   * The timer of every timed service method.
+   */
+  public static final String SERVICE_TIMER = "pucknotes.service";
+
+  @Autowired
+  private MeterRegistry registry;
+
+  /**
+   * Records the @Timed annotations on services.
+   *
+   * @param registry The registry to record timings in.
+   * @return The aspect timing annotated methods.
+   */
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry registry) {
+    return new TimedAspect(registry);
+  }
+
+  /**
+   * Replaces the JSON converter with one that times its writes.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    for (int i = 0; i < converters.size(); i++) {
+      if (
+        converters.get(i) instanceof MappingJackson2HttpMessageConverter json &&
+        !(json instanceof TimedJsonConverter)
+      ) {
+        converters.set(i, new TimedJsonConverter(json.getObjectMapper(), registry));
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package Pucknotes.Server.Metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * The TimedJsonConverter class writes JSON responses like the default
+ * converter, and records how long each write takes in "pucknotes.json.write".
+ *
+ * The time includes writing to the response, so it grows when the client reads
+ * slowly; it is still the time serialization keeps a request thread busy.
+ */
+public class TimedJsonConverter extends MappingJackson2HttpMessageConverter {
+
+  private final MeterRegistry registry;
+  private final Timer timer;
+
+  /**
+   * Creates a converter.
+   *
+   * @param mapper The object mapper used to write JSON.
+   * @param registry The registry to record timings in.
+   */
+  public TimedJsonConverter(ObjectMapper mapper, MeterRegistry registry) {
+    super(mapper);
+    this.registry = registry;
+    this.timer = Timer.builder("pucknotes.json.write")
+      .description("Time spent writing JSON responses")
+      .register(registry);
+  }
+
+  @Override
+  protected void writeInternal(
+    Object object,
+    Type type,
+    HttpOutputMessage outputMessage
+  ) throws IOException, HttpMessageNotWritableException {
+    Timer.Sample sample = Timer.start(registry);
+    try {
+      super.writeInternal(object, type, outputMessage);
+    } finally {
+      sample.stop(timer);
+    }
+  }
+}
@@ -7,6 +7,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
@@ -22,6 +24,57 @@ import org.springframework.data.mongodb.core.mapping.FieldType;
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
+@CompoundIndexes(
+  {
+    @CompoundIndex(
+      name = "course_semester_likes",
+      def = "{'course': 1, 'semester': 1, 'totalLikes': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "course_likes",
+      def = "{'course': 1, 'totalLikes': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "course_date",
+      def = "{'course': 1, 'createdDate': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "section_likes",
+      def = "{'section': 1, 'totalLikes': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "section_date",
+      def = "{'section': 1, 'createdDate': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "major_likes",
+      def = "{'major': 1, 'totalLikes': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "major_date",
+      def = "{'major': 1, 'createdDate': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "school_likes",
+      def = "{'school': 1, 'totalLikes': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "school_date",
+      def = "{'school': 1, 'createdDate': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "tags_likes",
+      def = "{'tags': 1, 'totalLikes': 1, '_id': 1}"
+    ),
+    @CompoundIndex(
+      name = "tags_date",
+      def = "{'tags': 1, 'createdDate': 1, '_id': 1}"
+    ),
+    @CompoundIndex(name = "likes", def = "{'totalLikes': 1, '_id': 1}"),
+    @CompoundIndex(name = "title", def = "{'title': 1, '_id': 1}"),
+    @CompoundIndex(name = "owner_date", def = "{'owner': 1, 'createdDate': 1}"),
+  }
+)
 @Document(collection = "notes")
 public class Note {
 
@@ -135,19 +188,30 @@ public class Note {
   private Date createdDate = new Date();
 
   /**
-   * The total number of likes received by this note.
-   * This field is modifiable and helps in understanding the note's popularity.
+   * The date when the note was last changed, including changes to its likes.
+   * Notes saved before this field existed have none, and were last changed
+   * when they were created.
    */
   @Setter
-  private long totalLikes;
+  private Date updatedDate;
 
   /**
-   * A list of user IDs who have liked the note.
-   * This utilizes a list to accommodate multiple likes and can be modified.
+   * The number of times the note was changed since it was created. Together
+   * with updatedDate, it identifies a version of the note, so clients can
+   * check whether their copy is still current (see NoteController).
+   *
+   * This is a plain counter rather than a Spring Data @Version field: notes
+   * saved before it existed would otherwise be mistaken for new notes.
    */
   @Setter
-  @Field(targetType = FieldType.OBJECT_ID)
-  private List<String> likes = List.of();
+  private long version;
+
+  /**
+   * The total number of likes received by this note.
+   * This field is modifiable and helps in understanding the note's popularity.
+   */
+  @Setter
+  private long totalLikes;
 
   /**
    * A flag indicating whether the note is anonymous.
@@ -1,30 +1,41 @@
 package Pucknotes.Server.Note;
 
 import Pucknotes.Server.Account.Account;
-import Pucknotes.Server.Account.AccountService;
-import Pucknotes.Server.Course.CourseService;
 import Pucknotes.Server.File.File;
+import Pucknotes.Server.File.FileCache;
 import Pucknotes.Server.File.FileService;
-import Pucknotes.Server.Major.MajorService;
+import Pucknotes.Server.File.Upload;
+import Pucknotes.Server.File.UploadReader;
+import Pucknotes.Server.File.UploadSessionService;
 import Pucknotes.Server.Response.APIResponse;
+import Pucknotes.Server.Response.StreamedList;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import Pucknotes.Server.Response.Types.UnauthorizedException;
-import Pucknotes.Server.School.SchoolService;
 import Pucknotes.Server.Section.Section;
 import Pucknotes.Server.Section.SectionService;
-import Pucknotes.Server.Semester.SemesterService;
 import Pucknotes.Server.Session.SessionService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 import org.apache.logging.log4j.util.InternalException;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * The NoteController class is responsible for managing notes within the application.
@@ -42,74 +53,96 @@ public class NoteController {
   private SectionService sections;
 
   @Autowired
-  private CourseService courses;
+  private NoteFilterResolver filters;
 
   @Autowired
-  private MajorService majors;
+  private SessionService sessions;
 
   @Autowired
-  private SchoolService schools;
+  private FileService files;
 
   @Autowired
-  private SemesterService semesters;
+  private UploadReader uploads;
 
   @Autowired
-  private SessionService sessions;
+  private UploadSessionService resumable;
 
-  @Autowired
-  private FileService files;
-
-  @Autowired
-  private AccountService accounts;
+  /**
+   * Lets clients store notes and their files, but makes them check that their
+   * copy is still current before reusing it.
+   */
+  private static final CacheControl REVALIDATE = CacheControl.noCache();
 
   /**
    * This method handles the HTTP POST request to add a new note.
    * It requires the title and sectionID parameters, and optionally accepts a file,
    * a link, a description, tags, and an anonymous flag.
    *
-   * @param request the HTTP request
-   * @param title the title of the note
-   * @param description an optional description of the note
-   * @param file an optional file associated with the note
-   * @param link an optional link associated with the note
-   * @param sectionID the ID of the section to which the note belongs
-   * @param tags optional tags to categorize the note
-   * @param anonymous a boolean flag indicating if the note is anonymous
+   * The multipart body is read as it arrives, with its file streamed straight
+   * into GridFS, so large uploads are never copied to a temporary file.
+   *
+   * @param request the HTTP request, with the following parameters:
+   * title, the title of the note;
+   * description, an optional description of the note;
+   * file, an optional file associated with the note;
+   * uploadID, the ID of a completed resumable upload, instead of a file;
+   * link, an optional link associated with the note;
+   * sectionID, the ID of the section to which the note belongs;
+   * tags, optional tags to categorize the note;
+   * anonymous, a boolean flag indicating if the note is anonymous
    * @return a ResponseEntity containing the API response with the ID of the created note
+   * @throws IOException if the request could not be read
    */
   @PostMapping("")
   public ResponseEntity<APIResponse<String>> addNote(
-    HttpServletRequest request,
-    @RequestParam(value = "title", required = true) String title,
-    @RequestParam(value = "description", defaultValue = "") String description,
-    @RequestParam(value = "file", required = false) MultipartFile file,
-    @RequestParam(value = "link", required = false) String link,
-    @RequestParam(value = "sectionID", required = true) String sectionID,
-    @RequestParam(value = "tags", defaultValue = "") List<String> tags,
-    @RequestParam(value = "anonymous", defaultValue = "false") boolean anonymous
-  ) {
-    // Check if the section exists before creating the note.
-    if (!sections.existsById(sectionID)) {
-      throw new IllegalArgumentException(
-        "A section with 'sectionID' does not exist."
-      );
+    HttpServletRequest request
+  ) throws IOException {
+    // Retrieve the current user from the session, before reading the upload.
+    Account user = sessions.getCurrentUser(request);
+    if (user == null) {
+      throw new UnauthorizedException("You must log in to create a note.");
     }
 
-    // Retrieve the current user from the session.
-    Account user = sessions.getCurrentUser(request);
-    Section section = sections.getById(sectionID);
+    Upload upload = uploads.read(request);
+    ObjectId fileID = upload.getFile();
+
+    String title;
+    Section section;
+    try {
+      title = upload.require("title");
+      String sectionID = upload.require("sectionID");
+
+      // Check if the section exists before creating the note.
+      if (!sections.existsById(sectionID)) {
+        throw new IllegalArgumentException(
+          "A section with 'sectionID' does not exist."
+        );
+      }
+
+      // Attach a file uploaded in chunks beforehand.
+      fileID = completeUpload(user, upload, fileID);
+      section = sections.getById(sectionID);
+    } catch (RuntimeException error) {
+      // The note will not be created, so let go of its file.
+      if (fileID != null) {
+        files.releaseFile(fileID.toString());
+      }
+      throw error;
+    }
 
+    // From here on, the note owns the file reference: createNote releases it
+    // if the note cannot be saved.
     try {
       // Create the note using the provided parameters.
       Note note = notes.createNote(
         user,
         section,
         title,
-        description,
-        file,
-        link,
-        tags,
-        anonymous
+        upload.get("description", ""),
+        fileID,
+        upload.get("link"),
+        upload.has("tags") ? upload.getList("tags") : List.of(),
+        Boolean.parseBoolean(upload.get("anonymous", "false"))
       );
       return ResponseEntity.ok(APIResponse.good(note.getId()));
     } catch (Exception error) {
@@ -134,8 +167,11 @@ public class NoteController {
    * @param schoolID optional ID of the school to filter notes
    * @param semesterName optional name of the semester to filter notes
    * @param semesterID optional ID of the semester to filter notes
-   * @param sort field to sort the notes
+   * @param sort field to sort the notes (likes, title, date, or relevance when
+   * searching, which returns only the best NoteSearchIndex.MAX_RESULTS matches)
    * @param order order of the sorted results
+   * @param cursor optional continuation token returned with the previous page
+   * @param limit optional page size; when a cursor or limit is given, a single page is returned
    * @param type the type of response object to return
    * @return a ResponseEntity containing the API response with the list of notes or their IDs
    */
@@ -159,80 +195,93 @@ public class NoteController {
     @RequestParam(value = "semesterID", required = false) String semesterID,
     @RequestParam(value = "sort", defaultValue = "likes") String sort,
     @RequestParam(value = "order", defaultValue = "asc") String order,
+    @RequestParam(value = "cursor", required = false) String cursor,
+    @RequestParam(value = "limit", required = false) Integer limit,
     @RequestParam(value = "return", defaultValue = "id") String type
   ) {
-    // Validate given parameters to ensure they refer to existing resources.
-    if (sectionID != null && !sections.existsById(sectionID)) {
-      throw new IllegalArgumentException(
-        "A section with 'sectionID' does not exist."
-      );
-    } else if (
-      sectionNumber != null && !sections.existsByNumber(sectionNumber)
-    ) {
-      throw new IllegalArgumentException(
-        "A section with 'sectionNumber' does not exist."
-      );
-    } else if (courseID != null && !courses.existsById(courseID)) {
-      throw new IllegalArgumentException(
-        "A course with 'courseID' does not exist."
-      );
-    } else if (courseCode != null && !courses.existsByCode(courseCode)) {
-      throw new IllegalArgumentException(
-        "A course with 'courseCode' does not exist."
-      );
-    } else if (majorID != null && !majors.existsById(majorID)) {
-      throw new IllegalArgumentException(
-        "A major with 'majorID' does not exist."
-      );
-    } else if (majorCode != null && !majors.existsByCode(majorCode)) {
-      throw new IllegalArgumentException(
-        "A major with 'majorName' does not exist."
-      );
-    } else if (schoolID != null && !schools.existsById(schoolID)) {
-      throw new IllegalArgumentException(
-        "A school with 'schoolID' does not exist."
-      );
-    } else if (schoolName != null && !schools.existsByName(schoolName)) {
-      throw new IllegalArgumentException(
-        "A school with 'schoolName' does not exist."
-      );
-    } else if (semesterID != null && !semesters.existsById(semesterID)) {
-      throw new IllegalArgumentException(
-        "A semester with 'semesterID' does not exist."
-      );
-    } else if (semesterName != null && !semesters.existsByName(semesterName)) {
-      throw new IllegalArgumentException(
-        "A semester with 'semesterName' does not exist."
-      );
-    } else if (userID != null && !accounts.existsById(userID)) {
-      throw new ResourceNotFoundException(
-        "Account with 'userID' does not exist."
+    // Validate the given references and map numbers, codes and names to IDs.
+    NoteFilter filter = new NoteFilter();
+    filter.setSectionID(sectionID);
+    filter.setSectionNumber(sectionNumber);
+    filter.setCourseID(courseID);
+    filter.setCourseCode(courseCode);
+    filter.setMajorID(majorID);
+    filter.setMajorCode(majorCode);
+    filter.setSchoolID(schoolID);
+    filter.setSchoolName(schoolName);
+    filter.setSemesterID(semesterID);
+    filter.setSemesterName(semesterName);
+    filter.setOwnerID(userID);
+    filters.resolve(filter);
+
+    sectionID = filter.getSectionID();
+    courseID = filter.getCourseID();
+    majorID = filter.getMajorID();
+    schoolID = filter.getSchoolID();
+    semesterID = filter.getSemesterID();
+
+    // Count matching notes on the server without fetching them.
+    if (type.equals("count")) {
+      long count = notes.countNotes(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        query,
+        userID
       );
+      return ResponseEntity.ok(APIResponse.good(count));
     }
 
-    // Map names to IDs when necessary for filtering.
-    if (semesterID == null && semesterName != null) {
-      semesterID = semesters.getByName(semesterName).getId();
-    }
-
-    if (schoolID == null && schoolName != null) {
-      schoolID = schools.getByName(schoolName).getId();
-    }
+    // Return a single page when the client asks for one.
+    if (cursor != null || limit != null) {
+      NotePage<Note> page = notes.getNotePage(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        query,
+        sort,
+        order,
+        userID,
+        cursor,
+        limit != null ? limit : NoteService.MAX_PAGE_SIZE
+      );
 
-    if (majorID == null && majorCode != null) {
-      majorID = majors.getByCode(majorCode).getId();
-    }
+      if (type.equals("object")) {
+        page.getItems().forEach(note -> {
+          if (note.isAnonymous()) note.setOwner(null);
+        });
+        return ResponseEntity.ok(APIResponse.good(page));
+      }
 
-    if (courseID == null && courseCode != null) {
-      courseID = courses.getByCode(courseCode).getId();
+      return ResponseEntity.ok(APIResponse.good(page.map(Note::getId)));
     }
 
-    if (sectionID == null && sectionNumber != null) {
-      sectionID = sections.getByNumber(sectionNumber).getId();
+    // Return only the IDs, which the database projects without loading whole notes.
+    if (!type.equals("object")) {
+      List<String> ids = notes.getNoteIds(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        query,
+        sort,
+        order,
+        userID
+      );
+      return ResponseEntity.ok(APIResponse.good(ids));
     }
 
-    // Retrieve notes using the provided filters.
-    List<Note> result = notes.getNotes(
+    // Stream the notes using the provided filters, each one written to the
+    // response as it is read from the database.
+    Stream<Note> result = notes.streamNotes(
       sectionID,
       courseID,
       majorID,
@@ -246,87 +295,217 @@ public class NoteController {
     );
 
     // Anonymize the note by removing owner information if indicated.
-    result.forEach(note -> {
+    result = result.map(note -> {
       if (note.isAnonymous()) note.setOwner(null);
+      return note;
     });
 
-    // Return the results based on the specified response type: either full objects, counts, or IDs.
-    switch (type) {
-      case "object":
-        return ResponseEntity.ok(APIResponse.good(result));
-      case "count":
-        return ResponseEntity.ok(APIResponse.good(result.size()));
-      default:
-        List<String> ids = result.stream().map(Note::getId).toList();
-        return ResponseEntity.ok(APIResponse.good(ids));
-    }
+    return ResponseEntity.ok(APIResponse.good(StreamedList.of(result)));
   }
 
   /**
    * This method retrieves a specific note by its unique identifier.
    *
+   * The response carries the version of the note as its ETag, and the time it
+   * was last changed as its Last-Modified date. A client that sends them back
+   * in If-None-Match or If-Modified-Since receives "304 Not Modified", without
+   * a body, while its copy is current.
+   *
+   * @param request the HTTP request
+   * @param response the HTTP response
    * @param id the unique identifier of the note
-   * @return a ResponseEntity containing the API response with the requested note
+   * @return a ResponseEntity containing the API response with the requested note,
+   * or null if the client's copy is current
    */
   @GetMapping("/{id}")
   public ResponseEntity<APIResponse<Note>> getNoteById(
+    HttpServletRequest request,
+    HttpServletResponse response,
     @PathVariable String id
   ) {
     // Retrieve the note based on the provided ID.
     Note note = notes.getById(id);
+
+    // Answer without a body if the client's copy is current.
+    response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+    if (
+      new ServletWebRequest(request, response).checkNotModified(
+        entityTag(note),
+        lastModified(note).getTime()
+      )
+    ) {
+      return null;
+    }
+
     // Anonymize the note before sending it in the response.
     if (note.isAnonymous()) note.setOwner(null);
     return ResponseEntity.ok(APIResponse.good(note));
   }
 
+  /**
+   * Builds the entity tag of a version of a note. The tag is weak, since the
+   * same version of a note may be sent with different encodings.
+   *
+   * The time of the last change is part of the tag as well as the version, so
+   * that two saves counting the same version still get different tags.
+   *
+   * @param note the note
+   * @return the entity tag, quoted
+   */
+  static String entityTag(Note note) {
+    return (
+      "W/\"" +
+      note.getId() +
+      "-" +
+      note.getVersion() +
+      "-" +
+      Long.toHexString(lastModified(note).getTime()) +
+      "\""
+    );
+  }
+
+  /**
+   * Returns the time a note was last changed.
+   */
+  private static Date lastModified(Note note) {
+    return note.getUpdatedDate() != null
+      ? note.getUpdatedDate()
+      : note.getCreatedDate();
+  }
+
   /**
    * This method retrieves the file associated with a specific note by its unique identifier.
+   * The file is streamed from the database rather than loaded into memory, and
+   * byte ranges can be requested with the Range header to resume a download.
+   *
+   * The file's ID is its ETag and its upload date is its Last-Modified date.
+   * A client whose copy is current receives "304 Not Modified"; when it sends
+   * the ETag back, this is answered before the file is even opened.
    *
+   * @param request the HTTP request
+   * @param response the HTTP response
    * @param id the unique identifier of the note
-   * @return a ResponseEntity containing the file content with appropriate HTTP headers
-   * @throws IOException if there is an issue retrieving the file
+   * @param range optional byte ranges of the file to return
+   * @param ifRange optional validator that the client's partial download was made against
+   * @return a ResponseEntity streaming the file content with appropriate HTTP headers,
+   * or null if the client's copy is current
+   * @throws ResourceNotFoundException if the note has no file
    */
   @GetMapping("/{id}/file")
-  public ResponseEntity<byte[]> getNoteFileById(@PathVariable String id)
-    throws IOException {
+  public ResponseEntity<?> getNoteFileById(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    @PathVariable String id,
+    @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+    @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange
+  ) {
     // Retrieve the note to access its associated file.
     Note note = notes.getById(id);
+    if (note.getFile() == null) {
+      throw new ResourceNotFoundException("This note has no file.");
+    }
+
+    // Stored files never change, so their ID is a strong validator. The file
+    // of a note can be replaced, so clients must check before reusing a copy.
+    // A strong tag also keeps the server from compressing the file, which
+    // would break byte ranges and the sendfile hand-off.
+    String etag = "\"" + note.getFile() + "\"";
+    response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+
+    // The ETag and Last-Modified headers are set on the response by these
+    // checks, and so are not repeated on the ResponseEntity below.
+    ServletWebRequest conditions = new ServletWebRequest(request, response);
+    if (conditions.checkNotModified(etag)) return null;
+
     File file = files.downloadFile(note.getFile());
+    if (conditions.checkNotModified(etag, file.getUploadDate().getTime())) {
+      return null;
+    }
 
     // Prepare the HTTP headers to return the file.
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(file.getFileType());
-    headers.setContentLength(file.getFileSize());
+    headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+    headers.setContentDisposition(
+      ContentDisposition.inline()
+        .filename(file.getFilename(), StandardCharsets.UTF_8)
+        .build()
+    );
+
+    // A partial download of an older version must restart from the beginning.
+    if (
+      range != null &&
+      ifRange != null &&
+      !ifRangeMatches(ifRange, etag, file.getUploadDate().getTime())
+    ) {
+      StreamingResponseBody body = output -> {
+        try (InputStream input = file.getContent().getInputStream()) {
+          input.transferTo(output);
+        }
+      };
+      headers.setContentLength(file.getFileSize());
+      return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // Let the server send a whole file cached on disk without copying it.
+    if (range == null && FileCache.sendfile(request, file)) {
+      headers.setContentLength(file.getFileSize());
+      return new ResponseEntity<>(headers, HttpStatus.OK);
+    }
+
+    // Spring streams the resource and answers Range requests with 206 Partial Content.
+    return new ResponseEntity<>(file.getContent(), headers, HttpStatus.OK);
+  }
+
+  /**
+   * Checks whether an If-Range header still matches the current file.
+   *
+   * @param ifRange the value of the If-Range header, either an entity tag or an HTTP date
+   * @param etag the current entity tag of the file
+   * @param lastModified the time the file was last modified, in milliseconds
+   * @return true if the requested range can be served
+   */
+  private boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      // Weak entity tags never match for range requests.
+      return ifRange.equals(etag);
+    }
 
-    // Return the file content as a byte array.
-    return new ResponseEntity<byte[]>(file.getFile(), headers, HttpStatus.OK);
+    try {
+      long date = ZonedDateTime.parse(
+        ifRange,
+        DateTimeFormatter.RFC_1123_DATE_TIME
+      ).toEpochSecond();
+      return date == lastModified / 1000;
+    } catch (DateTimeParseException error) {
+      return false;
+    }
   }
 
   /**
    * This method handles the HTTP PUT request to update an existing note.
    * It allows the user to modify various attributes of the note.
    *
-   * @param request the HTTP request
+   * As when adding a note, a new file is streamed straight into GridFS while
+   * the request is read.
+   *
+   * @param request the HTTP request, with the following optional parameters:
+   * file, a new file to associate with the note;
+   * uploadID, the ID of a completed resumable upload, instead of a file;
+   * title, the new title of the note;
+   * description, the new description of the note;
+   * tags, the new list of tags for the note;
+   * sectionID, the new ID for the section to which the note belongs;
+   * anonymous, the new status for the anonymous flag
    * @param id the unique identifier of the note to update
-   * @param file an optional new file to associate with the note
-   * @param title optional new title of the note
-   * @param description optional new description of the note
-   * @param tags optional new list of tags for the note
-   * @param sectionID optional new ID for the section to which the note belongs
-   * @param anonymous optional new status for the anonymous flag
    * @return a ResponseEntity containing the API response with the ID of the updated note
+   * @throws IOException if the request could not be read
    */
   @PutMapping("/{id}")
   public ResponseEntity<APIResponse<String>> updateNote(
     HttpServletRequest request,
-    @PathVariable String id,
-    @RequestParam(required = false) MultipartFile file,
-    @RequestParam(required = false) String title,
-    @RequestParam(required = false) String description,
-    @RequestParam(required = false) List<String> tags,
-    @RequestParam(required = false) String sectionID,
-    @RequestParam(required = false) Boolean anonymous
-  ) {
+    @PathVariable String id
+  ) throws IOException {
     // Retrieve the current user from the session.
     Account user = sessions.getCurrentUser(request);
     Note note = notes.getById(id);
@@ -336,49 +515,82 @@ public class NoteController {
       throw new UnauthorizedException("You must be a note's owner to edit it.");
     }
 
-    // Update note attributes only if values are provided.
-    if (title != null) {
-      note.setTitle(title);
-    }
+    Upload upload = uploads.read(request);
+    ObjectId fileID = upload.getFile();
+    String previousFile = note.getFile();
 
-    if (description != null) {
-      note.setDescription(description);
-    }
+    try {
+      // Attach a file uploaded in chunks beforehand.
+      fileID = completeUpload(user, upload, fileID);
 
-    if (tags != null) {
-      note.setTags(tags);
-    }
+      // Update note attributes only if values are provided.
+      if (upload.has("title")) {
+        note.setTitle(upload.get("title"));
+      }
 
-    if (anonymous != null) {
-      note.setAnonymous(anonymous);
-    }
+      if (upload.has("description")) {
+        note.setDescription(upload.get("description"));
+      }
 
-    if (sectionID != null) {
-      Section section = sections.getById(sectionID);
+      if (upload.has("tags")) {
+        note.setTags(upload.getList("tags"));
+      }
 
-      note.setSection(section.getId());
-      note.setCourse(section.getCourse());
-      note.setMajor(section.getMajor());
-      note.setSchool(section.getSchool());
-      note.setSemester(section.getSemester());
-    }
+      if (upload.has("anonymous")) {
+        note.setAnonymous(Boolean.parseBoolean(upload.get("anonymous")));
+      }
 
-    // Handle file uploads and associate them with the note.
-    try {
-      if (file != null) {
-        ObjectId fileID = files.addFile(file);
+      if (upload.has("sectionID")) {
+        Section section = sections.getById(upload.get("sectionID"));
+
+        note.setSection(section.getId());
+        note.setCourse(section.getCourse());
+        note.setMajor(section.getMajor());
+        note.setSchool(section.getSchool());
+        note.setSemester(section.getSemester());
+      }
+
+      // Associate the uploaded file with the note.
+      if (fileID != null) {
         note.setFile(fileID.toString());
       }
-    } catch (IOException error) {
-      // Throw an exception for a bad file type.
-      throw new IllegalArgumentException("Bad file type.");
+
+      notes.updateNote(note, user);
+    } catch (RuntimeException error) {
+      // The note was not updated, so let go of the new file instead.
+      if (fileID != null) {
+        files.releaseFile(fileID.toString());
+      }
+      throw error;
     }
 
-    notes.updateNote(note, user);
+    // Let go of the replaced file, which is deleted if no other note uses it.
+    if (fileID != null) {
+      files.releaseFile(previousFile);
+    }
 
     return ResponseEntity.ok(APIResponse.good(note.getId()));
   }
 
+  /**
+   * Completes the resumable upload given as the "uploadID" parameter, if any.
+   *
+   * @param user the current user, who opened the upload
+   * @param upload the parameters of the request
+   * @param fileID the ID of the file sent with the request, or null
+   * @return the ID of the file to attach to the note, or null if there is none
+   */
+  private ObjectId completeUpload(Account user, Upload upload, ObjectId fileID) {
+    if (!upload.has("uploadID")) return fileID;
+
+    if (fileID != null) {
+      throw new IllegalArgumentException(
+        "Send either a file or an 'uploadID', not both."
+      );
+    }
+    return resumable.complete(user, upload.get("uploadID"));
+  }
+
   /**
    * This method handles the HTTP DELETE request to remove a note by its unique identifier.
    *
@@ -0,0 +1,184 @@
+package Pucknotes.Server.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * The NoteCursor class represents the position of the last note on a page of a
+ * keyset-paginated listing. It remembers the value of the active sort key and
+ * the note's ID, so the following page can seek directly past it instead of
+ * skipping over every earlier result.
+ *
+ * Cursors are handed to clients as opaque, URL-safe tokens.
+ */
+@Getter
+@AllArgsConstructor
+public class NoteCursor {
+
+  /**
+   * The document field the listing is sorted by (e.g. "totalLikes").
+   */
+  private String field;
+
+  /**
+   * The value of the sort field on the last note of the previous page.
+   */
+  private Object value;
+
+  /**
+   * The ID of the last note of the previous page, used to break ties.
+   */
+  private String id;
+
+  /**
+   * Creates a cursor pointing just past the given note.
+   *
+   * @param note The last note on the current page.
+   * @param field The document field the listing is sorted by.
+   * @return A cursor positioned after the given note.
+   */
+  public static NoteCursor after(Note note, String field) {
+    Object value =
+      switch (field) {
+        case "totalLikes" -> note.getTotalLikes();
+        case "title" -> note.getTitle();
+        case "createdDate" -> note.getCreatedDate();
+        default -> new ObjectId(note.getId());
+      };
+
+    return new NoteCursor(field, value, note.getId());
+  }
+
+  /**
+   * Encodes this cursor into an opaque token that can be sent to clients.
+   *
+   * @return A URL-safe token representing this cursor.
+   */
+  public String encode() {
+    String json = new Document("k", field)
+      .append("v", value)
+      .append("id", id)
+      .toJson();
+
+    return Base64.getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a token previously produced by {@link #encode()}.
+   *
+   * @param token The token sent back by the client.
+   * @return The decoded cursor.
+   * @throws IllegalArgumentException If the token is malformed.
+   */
+  public static NoteCursor decode(String token) {
+    try {
+      String json = new String(
+        Base64.getUrlDecoder().decode(token),
+        StandardCharsets.UTF_8
+      );
+      Document document = Document.parse(json);
+
+      String field = document.getString("k");
+      String id = document.getString("id");
+      if (field == null || id == null || !ObjectId.isValid(id)) {
+        throw new IllegalArgumentException("Invalid cursor.");
+      }
+
+      return new NoteCursor(field, value(field, document.get("v")), id);
+    } catch (RuntimeException error) {
+      throw new IllegalArgumentException("Invalid cursor.");
+    }
+  }
+
+  /**
+   * Checks that a decoded value has the type of its sort field, so that a
+   * crafted token can never place an operator document (e.g. {"$ne": ...})
+   * into a query.
+   *
+   * @param field The document field the listing is sorted by.
+   * @param value The decoded value of the field.
+   * @return The value, with numbers widened to a long.
+   * @throws IllegalArgumentException If the value does not fit the field.
+   */
+  private static Object value(String field, Object value) {
+    return switch (field) {
+      case "totalLikes" -> {
+        if (!(value instanceof Integer || value instanceof Long)) {
+          throw new IllegalArgumentException("Invalid cursor.");
+        }
+        yield ((Number) value).longValue();
+      }
+      case "title" -> {
+        if (value != null && !(value instanceof String)) {
+          throw new IllegalArgumentException("Invalid cursor.");
+        }
+        yield value;
+      }
+      case "createdDate" -> {
+        if (value != null && !(value instanceof Date)) {
+          throw new IllegalArgumentException("Invalid cursor.");
+        }
+        yield value;
+      }
+      case "_id" -> {
+        if (!(value instanceof ObjectId)) {
+          throw new IllegalArgumentException("Invalid cursor.");
+        }
+        yield value;
+      }
+      default -> throw new IllegalArgumentException("Invalid cursor.");
+    };
+  }
+
+  /**
+   * Builds the criteria that select every note strictly after this cursor,
+   * following the (sort key, _id) ordering of the listing.
+   *
+   * @param direction The direction the listing is sorted in.
+   * @return Criteria matching the notes on the following pages.
+   */
+  public Criteria seek(Sort.Direction direction) {
+    ObjectId last = new ObjectId(id);
+    boolean ascending = direction == Sort.Direction.ASC;
+
+    if ("_id".equals(field)) {
+      return ascending
+        ? Criteria.where("_id").gt(last)
+        : Criteria.where("_id").lt(last);
+    }
+
+    // Missing values sort before everything else, so they need special care.
+    if (value == null) {
+      return ascending
+        ? new Criteria()
+          .orOperator(
+            Criteria.where(field).ne(null),
+            Criteria.where(field).is(null).and("_id").gt(last)
+          )
+        : Criteria.where(field).is(null).and("_id").lt(last);
+    }
+
+    return ascending
+      ? new Criteria()
+        .orOperator(
+          Criteria.where(field).gt(value),
+          Criteria.where(field).is(value).and("_id").gt(last)
+        )
+      : new Criteria()
+        .orOperator(
+          Criteria.where(field).lt(value),
+          Criteria.where(field).is(value).and("_id").lt(last),
+          // $lt never matches missing values, which sort last when descending.
+          Criteria.where(field).is(null)
+        );
+  }
+}
@@ -0,0 +1,39 @@
+package Pucknotes.Server.Note;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The NoteFilter class holds the catalog references a note listing can be
+ * filtered by. Each reference can be given either by ID or by its natural key
+ * (a section number, course or major code, or school or semester name).
+ *
+ * Once resolved by {@link NoteFilterResolver}, the ID fields hold the resolved
+ * IDs of every reference that was given, whichever way it was given.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class NoteFilter {
+
+  private String sectionID;
+  private String sectionNumber;
+
+  private String courseID;
+  private String courseCode;
+
+  private String majorID;
+  private String majorCode;
+
+  private String schoolID;
+  private String schoolName;
+
+  private String semesterID;
+  private String semesterName;
+
+  /**
+   * The ID of the account that owns the notes.
+   */
+  private String ownerID;
+}
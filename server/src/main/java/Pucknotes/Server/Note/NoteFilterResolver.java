@@ -0,0 +1,308 @@
+package Pucknotes.Server.Note;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Database.TaxonomyCache;
+import Pucknotes.Server.Major.Major;
+import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import Pucknotes.Server.School.School;
+import Pucknotes.Server.Section.Section;
+import Pucknotes.Server.Semester.Semester;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The NoteFilterResolver class validates the catalog references of a note
+ * listing and maps the ones given by number, code or name to IDs.
+ *
+ * Catalog references are answered from the {@link TaxonomyCache}. The rest
+ * (the owner, and anything the cache does not know) are looked up by a single
+ * aggregation that unions one small indexed match per reference, so a listing
+ * pays at most one database round trip for its filters. All invalid references
+ * are reported together.
+ */
+@Component
+public class NoteFilterResolver {
+
+  @Autowired
+  private MongoTemplate template;
+
+  @Autowired
+  private TaxonomyCache taxonomy;
+
+  /**
+   * A single reference to look up.
+   */
+  private static class Lookup {
+
+    private final String key;
+    private final Class<?> type;
+    private final String field;
+    private final String value;
+    private final String message;
+    private final Consumer<String> resolve;
+
+    private Lookup(
+      String key,
+      Class<?> type,
+      String field,
+      String value,
+      String message,
+      Consumer<String> resolve
+    ) {
+      this.key = key;
+      this.type = type;
+      this.field = field;
+      this.value = value;
+      this.message = message;
+      this.resolve = resolve;
+    }
+  }
+
+  /**
+   * Validates every reference in the filter and fills in the IDs of those
+   * given by number, code or name. References given by ID take precedence.
+   *
+   * @param filter The filter to resolve, updated in place.
+   * @throws IllegalArgumentException If any catalog reference does not exist.
+   * @throws ResourceNotFoundException If only the owner does not exist.
+   */
+  public void resolve(NoteFilter filter) {
+    List<Lookup> missing = new ArrayList<>();
+    List<Lookup> queried = new ArrayList<>();
+
+    for (Lookup lookup : lookups(filter)) {
+      TaxonomyCache.Table<?> table = taxonomy.table(lookup.type);
+      String cached = table != null
+        ? table.peekId(lookup.field, lookup.value)
+        : null;
+
+      if (cached != null) {
+        // Most references are answered by the catalog cache.
+        resolve(lookup, cached);
+      } else if (lookup.field.equals("_id") && !ObjectId.isValid(lookup.value)) {
+        // A malformed ID cannot match anything, so there is no need to query it.
+        missing.add(lookup);
+      } else {
+        queried.add(lookup);
+      }
+    }
+
+    Map<String, String> found = find(queried);
+    for (Lookup lookup : queried) {
+      String id = found.get(lookup.key);
+      if (id == null) {
+        missing.add(lookup);
+        continue;
+      }
+
+      resolve(lookup, id);
+      if (taxonomy.table(lookup.type) != null) {
+        // The catalog changed since the cache was loaded.
+        taxonomy.invalidate();
+      }
+    }
+
+    if (missing.isEmpty()) return;
+
+    String message = String.join(
+      " ",
+      missing.stream().map(lookup -> lookup.message).toList()
+    );
+    if (missing.size() == 1 && missing.get(0).type == Account.class) {
+      throw new ResourceNotFoundException(message);
+    }
+    throw new IllegalArgumentException(message);
+  }
+
+  private static void resolve(Lookup lookup, String id) {
+    if (lookup.resolve != null) {
+      lookup.resolve.accept(id);
+    }
+  }
+
+  /**
+   * Lists the references given in the filter.
+   */
+  private List<Lookup> lookups(NoteFilter filter) {
+    List<Lookup> lookups = new ArrayList<>();
+
+    add(
+      lookups,
+      "sectionID",
+      Section.class,
+      "_id",
+      filter.getSectionID(),
+      "A section with 'sectionID' does not exist.",
+      null
+    );
+    add(
+      lookups,
+      "sectionNumber",
+      Section.class,
+      "number",
+      filter.getSectionNumber(),
+      "A section with 'sectionNumber' does not exist.",
+      filter.getSectionID() == null ? filter::setSectionID : null
+    );
+    add(
+      lookups,
+      "courseID",
+      Course.class,
+      "_id",
+      filter.getCourseID(),
+      "A course with 'courseID' does not exist.",
+      null
+    );
+    add(
+      lookups,
+      "courseCode",
+      Course.class,
+      "code",
+      filter.getCourseCode(),
+      "A course with 'courseCode' does not exist.",
+      filter.getCourseID() == null ? filter::setCourseID : null
+    );
+    add(
+      lookups,
+      "majorID",
+      Major.class,
+      "_id",
+      filter.getMajorID(),
+      "A major with 'majorID' does not exist.",
+      null
+    );
+    add(
+      lookups,
+      "majorCode",
+      Major.class,
+      "code",
+      filter.getMajorCode(),
+      "A major with 'majorCode' does not exist.",
+      filter.getMajorID() == null ? filter::setMajorID : null
+    );
+    add(
+      lookups,
+      "schoolID",
+      School.class,
+      "_id",
+      filter.getSchoolID(),
+      "A school with 'schoolID' does not exist.",
+      null
+    );
+    add(
+      lookups,
+      "schoolName",
+      School.class,
+      "name",
+      filter.getSchoolName(),
+      "A school with 'schoolName' does not exist.",
+      filter.getSchoolID() == null ? filter::setSchoolID : null
+    );
+    add(
+      lookups,
+      "semesterID",
+      Semester.class,
+      "_id",
+      filter.getSemesterID(),
+      "A semester with 'semesterID' does not exist.",
+      null
+    );
+    add(
+      lookups,
+      "semesterName",
+      Semester.class,
+      "name",
+      filter.getSemesterName(),
+      "A semester with 'semesterName' does not exist.",
+      filter.getSemesterID() == null ? filter::setSemesterID : null
+    );
+    add(
+      lookups,
+      "ownerID",
+      Account.class,
+      "_id",
+      filter.getOwnerID(),
+      "Account with 'userID' does not exist.",
+      null
+    );
+
+    return lookups;
+  }
+
+  private static void add(
+    List<Lookup> lookups,
+    String key,
+    Class<?> type,
+    String field,
+    String value,
+    String message,
+    Consumer<String> resolve
+  ) {
+    if (value != null) {
+      lookups.add(new Lookup(key, type, field, value, message, resolve));
+    }
+  }
+
+  /**
+   * Looks up every reference with a single aggregation.
+   *
+   * @return The ID of the first document matching each reference, by key.
+   */
+  private Map<String, String> find(List<Lookup> lookups) {
+    Map<String, String> found = new HashMap<>();
+    if (lookups.isEmpty()) return found;
+
+    // The first lookup runs on its own collection; the others are unioned in.
+    List<Document> pipeline = new ArrayList<>(branch(lookups.get(0)));
+    for (Lookup lookup : lookups.subList(1, lookups.size())) {
+      pipeline.add(
+        new Document(
+          "$unionWith",
+          new Document("coll", template.getCollectionName(lookup.type)).append(
+            "pipeline",
+            branch(lookup)
+          )
+        )
+      );
+    }
+
+    template
+      .getCollection(template.getCollectionName(lookups.get(0).type))
+      .aggregate(pipeline)
+      .forEach(document ->
+        found.putIfAbsent(
+          document.getString("key"),
+          document.get("_id").toString()
+        )
+      );
+
+    return found;
+  }
+
+  private static List<Document> branch(Lookup lookup) {
+    Object value = lookup.field.equals("_id")
+      ? new ObjectId(lookup.value)
+      : lookup.value;
+
+    return List.of(
+      new Document("$match", new Document(lookup.field, value)),
+      new Document("$limit", 1),
+      new Document(
+        "$project",
+        new Document("_id", 1).append(
+          "key",
+          new Document("$literal", lookup.key)
+        )
+      )
+    );
+  }
+}
@@ -0,0 +1,40 @@
+package Pucknotes.Server.Note;
+
+import java.util.List;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The NotePage class represents a single page of a cursor-paginated note listing.
+ * It holds the items on the page and an opaque continuation token that can be
+ * passed back to fetch the following page.
+ *
+ * @param <T> The type of the items on the page (full notes or their IDs).
+ */
+@Getter
+@AllArgsConstructor
+public class NotePage<T> {
+
+  /**
+   * The items on this page, in the order requested by the client.
+   */
+  private List<T> items;
+
+  /**
+   * The continuation token for the next page.
+   * This field is null when there are no more results.
+   */
+  private String next;
+
+  /**
+   * Converts the items of this page while keeping the same continuation token.
+   *
+   * @param mapper The function applied to every item on the page.
+   * @param <R> The type of the converted items.
+   * @return A new NotePage holding the converted items.
+   */
+  public <R> NotePage<R> map(Function<T, R> mapper) {
+    return new NotePage<>(items.stream().map(mapper).toList(), next);
+  }
+}
@@ -0,0 +1,481 @@
+package Pucknotes.Server.Note;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The NoteSearchIndex class keeps an in-memory inverted index over the title,
+ * description and tags of every note. It answers search queries with relevance
+ * ranking and prefix matching, so the search box can be served without scanning
+ * the notes collection.
+ *
+ * The index is loaded from the database on startup, kept current by NoteService
+ * whenever a note is created, updated or deleted, and rebuilt periodically to pick
+ * up changes made by other server instances.
+ */
+@Component
+public class NoteSearchIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    NoteSearchIndex.class
+  );
+
+  /**
+   * The most note IDs a ranked search returns, best matches first.
+   */
+  public static final int MAX_RESULTS = 1000;
+
+  /**
+   * The most note IDs an unranked search ({@link #matchAll}) returns. The IDs
+   * are sent to MongoDB in a single "$in" filter, so a search matching more
+   * notes than this (e.g. a one-letter prefix) is left to a scan instead.
+   */
+  public static final int MAX_MATCHES = 5000;
+
+  private static final float TITLE_WEIGHT = 3f;
+  private static final float TAG_WEIGHT = 2f;
+  private static final float DESCRIPTION_WEIGHT = 1f;
+
+  /**
+   * Score multiplier for a term that only starts with the query token.
+   */
+  private static final float PREFIX_WEIGHT = 0.5f;
+
+  @Autowired
+  private MongoTemplate template;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Index index = new Index();
+
+  /**
+   * Changes made while a rebuild is loading, replayed once it completes.
+   * A null value marks a deleted note. This field is null outside of rebuilds.
+   */
+  private Map<String, Note> pending;
+
+  private volatile boolean ready;
+
+  /**
+   * The searchable state of a single note.
+   */
+  private static class Entry {
+
+    private String section;
+    private String course;
+    private String major;
+    private String semester;
+    private String school;
+    private String owner;
+    private Set<String> tags;
+    private Map<String, Float> terms;
+  }
+
+  /**
+   * A snapshot of the inverted index. Instances are guarded by the outer lock.
+   */
+  private static class Index {
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Map<String, Float>> postings =
+      new TreeMap<>();
+
+    private void put(Note note) {
+      remove(note.getId());
+
+      Entry entry = new Entry();
+      entry.section = note.getSection();
+      entry.course = note.getCourse();
+      entry.major = note.getMajor();
+      entry.semester = note.getSemester();
+      entry.school = note.getSchool();
+      entry.owner = note.getOwner();
+      entry.tags = note.getTags() == null
+        ? Set.of()
+        : new HashSet<>(note.getTags());
+      entry.terms = new HashMap<>();
+
+      addTerms(entry.terms, note.getTitle(), TITLE_WEIGHT);
+      addTerms(entry.terms, note.getDescription(), DESCRIPTION_WEIGHT);
+      if (note.getTags() != null) {
+        note.getTags().forEach(tag -> addTerms(entry.terms, tag, TAG_WEIGHT));
+      }
+
+      entries.put(note.getId(), entry);
+      entry.terms.forEach((term, weight) ->
+        postings
+          .computeIfAbsent(term, key -> new HashMap<>())
+          .put(note.getId(), weight)
+      );
+    }
+
+    private void remove(String id) {
+      Entry entry = entries.remove(id);
+      if (entry == null) return;
+
+      for (String term : entry.terms.keySet()) {
+        Map<String, Float> posting = postings.get(term);
+        posting.remove(id);
+        if (posting.isEmpty()) postings.remove(term);
+      }
+    }
+
+    private static void addTerms(
+      Map<String, Float> terms,
+      String text,
+      float weight
+    ) {
+      for (String token : tokenize(text)) {
+        terms.merge(token, weight, Float::sum);
+      }
+    }
+  }
+
+  /**
+   * Splits text into lowercase search tokens, ignoring accents and punctuation.
+   *
+   * @param text The text to tokenize, may be null.
+   * @return The tokens in the order they appear.
+   */
+  public static List<String> tokenize(String text) {
+    if (text == null) return List.of();
+
+    String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+      .replaceAll("\\p{M}", "")
+      .toLowerCase(Locale.ROOT);
+
+    return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+      .filter(token -> !token.isEmpty())
+      .toList();
+  }
+
+  /**
+   * Checks whether the index has finished its initial load.
+   * Until then, callers should fall back to querying the database directly.
+   *
+   * @return True if the index can serve searches.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Reloads the whole index from the notes collection.
+   * Runs once on startup and then periodically, to pick up notes written
+   * by other server instances.
+   */
+  @Scheduled(fixedDelayString = "${pucknotes.search.refresh-interval:PT10M}")
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      pending = new LinkedHashMap<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    Index next = new Index();
+    Query query = new Query();
+    query
+      .fields()
+      .include(
+        "title",
+        "description",
+        "tags",
+        "section",
+        "course",
+        "major",
+        "semester",
+        "school",
+        "owner"
+      );
+
+    try (Stream<Note> notes = template.stream(query, Note.class)) {
+      notes.forEach(next::put);
+    } catch (RuntimeException error) {
+      lock.writeLock().lock();
+      try {
+        pending = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      log.warn("Could not rebuild the note search index.", error);
+      return;
+    }
+
+    lock.writeLock().lock();
+    try {
+      pending.forEach((id, note) -> {
+        if (note == null) next.remove(id);
+        else next.put(note);
+      });
+      pending = null;
+      index = next;
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    log.info("Indexed {} notes for search.", next.entries.size());
+  }
+
+  /**
+   * Adds a note to the index, replacing any previous version of it.
+   *
+   * @param note The note that was created or updated.
+   */
+  public void index(Note note) {
+    lock.writeLock().lock();
+    try {
+      index.put(note);
+      if (pending != null) pending.put(note.getId(), note);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a note from the index.
+   *
+   * @param id The ID of the note that was deleted.
+   */
+  public void remove(String id) {
+    lock.writeLock().lock();
+    try {
+      index.remove(id);
+      if (pending != null) pending.put(id, null);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Searches the index for notes matching every token of the given text.
+   * The last token may also match the start of a longer word, and whole-word
+   * matches in the title rank above matches in tags and the description.
+   *
+   * Only the {@link #MAX_RESULTS} best matches are returned; use
+   * {@link #matchAll} when the search only filters the notes.
+   *
+   * @param text The search text entered by the user.
+   * @param sectionID The ID of the section, or null for any section.
+   * @param courseID The ID of the course, or null for any course.
+   * @param majorID The ID of the major, or null for any major.
+   * @param semesterID The ID of the semester, or null for any semester.
+   * @param schoolID The ID of the school, or null for any school.
+   * @param tags A list of tags to filter by; a note matches if it has any of them.
+   * @param ownerID The ID of the note owner, or null for any owner.
+   * @return The IDs of the best matching notes, best matches first.
+   */
+  public List<String> search(
+    String text,
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String ownerID
+  ) {
+    return find(
+      text,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      ownerID,
+      true
+    );
+  }
+
+  /**
+   * Finds every note matching every token of the given text, like
+   * {@link #search}, but without ranking them. Used when the results are
+   * counted or sorted by another field.
+   *
+   * @param text The search text entered by the user.
+   * @param sectionID The ID of the section, or null for any section.
+   * @param courseID The ID of the course, or null for any course.
+   * @param majorID The ID of the major, or null for any major.
+   * @param semesterID The ID of the semester, or null for any semester.
+   * @param schoolID The ID of the school, or null for any school.
+   * @param tags A list of tags to filter by; a note matches if it has any of them.
+   * @param ownerID The ID of the note owner, or null for any owner.
+   * @return The IDs of every matching note, in no particular order, or null
+   * if more than {@link #MAX_MATCHES} notes match.
+   */
+  public List<String> matchAll(
+    String text,
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String ownerID
+  ) {
+    return find(
+      text,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      ownerID,
+      false
+    );
+  }
+
+  private List<String> find(
+    String text,
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String ownerID,
+    boolean ranked
+  ) {
+    List<String> tokens = tokenize(text);
+    if (tokens.isEmpty()) return List.of();
+
+    lock.readLock().lock();
+    try {
+      Map<String, Float> scores = null;
+
+      for (int i = 0; i < tokens.size(); i++) {
+        boolean last = i == tokens.size() - 1;
+        Map<String, Float> matches = match(tokens.get(i), last);
+
+        if (scores == null) {
+          scores = matches;
+        } else {
+          // Every token must match, so keep only notes matched so far.
+          scores.keySet().retainAll(matches.keySet());
+          scores.replaceAll((id, score) -> score + matches.get(id));
+        }
+
+        if (scores.isEmpty()) return List.of();
+      }
+
+      Stream<Map.Entry<String, Float>> results = scores
+        .entrySet()
+        .stream()
+        .filter(score -> {
+          Entry entry = index.entries.get(score.getKey());
+          return (
+            matches(entry.section, sectionID) &&
+            matches(entry.course, courseID) &&
+            matches(entry.major, majorID) &&
+            matches(entry.semester, semesterID) &&
+            matches(entry.school, schoolID) &&
+            matches(entry.owner, ownerID) &&
+            (tags == null ||
+              tags.isEmpty() ||
+              tags.stream().anyMatch(entry.tags::contains))
+          );
+        });
+
+      if (ranked) {
+        results = results
+          .sorted(
+            Map.Entry.<String, Float>comparingByValue(
+              Comparator.reverseOrder()
+            )
+          )
+          .limit(MAX_RESULTS);
+      } else {
+        results = results.limit(MAX_MATCHES + 1);
+      }
+
+      List<String> ids = results.map(Map.Entry::getKey).toList();
+      return !ranked && ids.size() > MAX_MATCHES ? null : ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Scores every note containing the given token, or a word starting with it.
+   */
+  private Map<String, Float> match(String token, boolean prefix) {
+    Map<String, Float> scores = new HashMap<>();
+    int total = index.entries.size();
+
+    Map<String, Map<String, Float>> terms = index.postings.subMap(
+      token,
+      true,
+      prefix ? token + Character.MAX_VALUE : token,
+      true
+    );
+
+    terms.forEach((term, posting) -> {
+      // Rare terms say more about a note than common ones.
+      float idf = (float) Math.log(1 + (double) total / posting.size());
+      float factor = term.equals(token) ? idf : idf * PREFIX_WEIGHT;
+
+      posting.forEach((id, weight) ->
+        scores.merge(id, weight * factor, Math::max)
+      );
+    });
+
+    return scores;
+  }
+
+  private static boolean matches(String value, String filter) {
+    return filter == null || Objects.equals(value, filter);
+  }
+
+  /**
+   * Reorders items to follow the ranking of a search.
+   *
+   * @param items The items to reorder.
+   * @param ranking The IDs in ranked order, as returned by {@link #search}.
+   * @param id A function extracting an item's ID.
+   * @param <T> The type of the items.
+   * @return The items sorted by their position in the ranking.
+   */
+  public static <T> List<T> rank(
+    List<T> items,
+    List<String> ranking,
+    Function<T, String> id
+  ) {
+    Map<String, Integer> positions = new HashMap<>();
+    for (int i = 0; i < ranking.size(); i++) {
+      positions.put(ranking.get(i), i);
+    }
+
+    List<T> sorted = new ArrayList<>(items);
+    sorted.sort(
+      Comparator.comparingInt(item ->
+        positions.getOrDefault(id.apply(item), Integer.MAX_VALUE)
+      )
+    );
+    return sorted;
+  }
+}
@@ -1,19 +1,26 @@
 package Pucknotes.Server.Note;
 
 import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Database.LikeEngine;
 import Pucknotes.Server.File.FileService;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import Pucknotes.Server.Response.Types.UnauthorizedException;
 import Pucknotes.Server.Section.Section;
+import io.micrometer.core.annotation.Timed;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -23,8 +30,23 @@ import org.springframework.web.multipart.MultipartFile;
  * such as creating, fetching, updating, liking, disliking, and deleting notes.
  */
 @Service
+@Timed("pucknotes.service")
 public class NoteService {
 
+  /**
+   * The largest number of notes returned on a single page of a paginated listing.
+   */
+  public static final int MAX_PAGE_SIZE = 100;
+
+  /**
+   * The sort fields that paginated listings can seek on directly.
+   */
+  private static final List<String> SEEKABLE_FIELDS = List.of(
+    "totalLikes",
+    "title",
+    "createdDate"
+  );
+
   @Autowired
   private NoteRepository repository;
 
@@ -34,6 +56,12 @@ public class NoteService {
   @Autowired
   private MongoTemplate template;
 
+  @Autowired
+  private NoteSearchIndex searchIndex;
+
+  @Autowired
+  private LikeEngine likes;
+
   /**
    * Creates a new note associated with the specified user and section.
    *
@@ -66,27 +94,81 @@ public class NoteService {
       throw new ResourceNotFoundException("Specify a valid course.");
     }
 
-    ObjectId fileID = files.addFile(upload);
+    return createNote(
+      user,
+      section,
+      title,
+      description,
+      upload != null ? files.addFile(upload) : null,
+      link,
+      tags,
+      anonymous
+    );
+  }
 
+  /**
+   * Creates a new note referencing a file that was already stored, such as one
+   * streamed into GridFS while its request was read.
+   *
+   * @param user The account of the user creating the note.
+   * @param section The section to which the note belongs.
+   * @param title The title of the note.
+   * @param description The description of the note.
+   * @param fileID The ID of the stored file, or null if the note has none.
+   * @param link A link associated with the note.
+   * @param tags A list of tags associated with the note.
+   * @param anonymous A boolean indicating whether the note should be created anonymously.
+   * @return The created Note object.
+   * @throws UnauthorizedException If the user is not logged in.
+   * @throws ResourceNotFoundException If the specified section is invalid.
+   *
+   * The note takes over the reference to the stored file, which is released if
+   * the note cannot be created.
+   */
+  public Note createNote(
+    Account user,
+    Section section,
+    String title,
+    String description,
+    ObjectId fileID,
+    String link,
+    List<String> tags,
+    boolean anonymous
+  ) {
     Note note = new Note();
 
-    // Setting the properties of the note using the provided information.
-    note.setSection(section.getId());
-    note.setCourse(section.getCourse());
-    note.setMajor(section.getMajor());
-    note.setSchool(section.getSchool());
-    note.setSemester(section.getSemester());
-
-    note.setOwner(user.getId());
-    note.setTitle(title);
-    note.setDescription(description);
-    note.setLink(link);
-    note.setTags(tags);
-    note.setFile(fileID.toString());
-    note.setAnonymous(anonymous);
-
-    // Save the note to the repository.
-    repository.save(note);
+    // Save the note to the repository, letting go of the stored file if that
+    // fails, so it is not left behind unreferenced.
+    try {
+      if (user == null) {
+        throw new UnauthorizedException("You must log in to create a note.");
+      } else if (section == null) {
+        throw new ResourceNotFoundException("Specify a valid course.");
+      }
+
+      // Setting the properties of the note using the provided information.
+      note.setSection(section.getId());
+      note.setCourse(section.getCourse());
+      note.setMajor(section.getMajor());
+      note.setSchool(section.getSchool());
+      note.setSemester(section.getSemester());
+
+      note.setOwner(user.getId());
+      note.setTitle(title);
+      note.setDescription(description);
+      note.setLink(link);
+      note.setTags(tags);
+      note.setFile(fileID != null ? fileID.toString() : null);
+      note.setAnonymous(anonymous);
+
+      repository.save(note);
+    } catch (RuntimeException error) {
+      if (fileID != null) {
+        files.releaseFile(fileID.toString());
+      }
+      throw error;
+    }
+    searchIndex.index(note);
     return note;
   }
 
@@ -133,7 +215,7 @@ public class NoteService {
    * @param schoolID The ID of the school.
    * @param tags A list of tags to filter by.
    * @param search A search string for filtering by title or description.
-   * @param sortType The criteria to sort the notes by (e.g., title, date).
+   * @param sortType The criteria to sort the notes by (e.g., title, date, relevance).
    * @param orderType The order in which to sort the notes (ascending or descending).
    * @param ownerID The ID of the note owner.
    * @return A list of notes that match the specified criteria.
@@ -150,86 +232,572 @@ public class NoteService {
     String orderType,
     String ownerID
   ) {
-    Query query = new Query();
+    boolean ranked = ranksBySearch(sortType, search);
+    List<String> matches = searchMatches(
+      ranked,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      ownerID
+    );
+    Query query = toQuery(
+      filterCriteria(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        search,
+        matches,
+        ownerID
+      )
+    );
+
+    String field = sortField(sortType);
+    if (field != null) {
+      query.with(Sort.by(direction(orderType), field));
+    }
 
-    Sort.Direction direction = "asc".equalsIgnoreCase(orderType)
-      ? Sort.Direction.ASC
-      : Sort.Direction.DESC;
+    List<Note> result = template.find(query, Note.class); // Fetch the filtered notes.
 
-    switch (sortType.toLowerCase()) {
-      case "title":
-        query.with(Sort.by(direction, "title"));
-        break;
-      case "semester":
-        query.with(Sort.by(direction, "semester.year"));
-        break;
-      case "likes":
-        query.with(Sort.by(direction, "totalLikes"));
-        break;
-      case "date":
-        query.with(Sort.by(direction, "date"));
-        break;
-      default:
-        // Optionally log or handle unsupported sort types.
-        break;
+    if (ranked) {
+      return NoteSearchIndex.rank(result, matches, Note::getId);
+    }
+
+    return result;
+  }
+
+  /**
+   * Streams the notes matching various criteria, in the same order as
+   * {@link #getNotes}. Notes are read from a database cursor as the stream is
+   * consumed, so a large result is never held in memory at once; only results
+   * ranked by relevance are read whole, since they must be reordered.
+   *
+   * @param sectionID The ID of the section.
+   * @param courseID The ID of the course.
+   * @param majorID The ID of the major.
+   * @param semesterID The ID of the semester.
+   * @param schoolID The ID of the school.
+   * @param tags A list of tags to filter by.
+   * @param search A search string for filtering by title or description.
+   * @param sortType The criteria to sort the notes by (e.g., title, date, relevance).
+   * @param orderType The order in which to sort the notes (ascending or descending).
+   * @param ownerID The ID of the note owner.
+   * @return A stream of the matching notes, which must be closed.
+   */
+  public Stream<Note> streamNotes(
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String search,
+    String sortType,
+    String orderType,
+    String ownerID
+  ) {
+    if (ranksBySearch(sortType, search)) {
+      return getNotes(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        search,
+        sortType,
+        orderType,
+        ownerID
+      ).stream();
+    }
+
+    List<String> matches = searchMatches(
+      false,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      ownerID
+    );
+    Query query = toQuery(
+      filterCriteria(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        search,
+        matches,
+        ownerID
+      )
+    );
+
+    String field = sortField(sortType);
+    if (field != null) {
+      query.with(Sort.by(direction(orderType), field));
+    }
+
+    return template.stream(query, Note.class);
+  }
+
+  /**
+   * Retrieves the IDs of the notes matching various criteria.
+   * Only the _id field is requested from the database, and the results are
+   * read as raw documents, so no other note fields are transferred or mapped.
+   *
+   * @param sectionID The ID of the section.
+   * @param courseID The ID of the course.
+   * @param majorID The ID of the major.
+   * @param semesterID The ID of the semester.
+   * @param schoolID The ID of the school.
+   * @param tags A list of tags to filter by.
+   * @param search A search string for filtering by title or description.
+   * @param sortType The criteria to sort the notes by (e.g., title, date, relevance).
+   * @param orderType The order in which to sort the notes (ascending or descending).
+   * @param ownerID The ID of the note owner.
+   * @return The IDs of the notes that match the specified criteria.
+   */
+  public List<String> getNoteIds(
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String search,
+    String sortType,
+    String orderType,
+    String ownerID
+  ) {
+    boolean ranked = ranksBySearch(sortType, search);
+    List<String> matches = searchMatches(
+      ranked,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      ownerID
+    );
+    Query query = toQuery(
+      filterCriteria(
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        search,
+        matches,
+        ownerID
+      )
+    );
+
+    String field = sortField(sortType);
+    if (field != null) {
+      query.with(Sort.by(direction(orderType), field));
+    }
+
+    query.fields().include("_id");
+
+    String collection = template.getCollectionName(Note.class);
+    try (
+      Stream<Document> documents = template.stream(
+        query,
+        Document.class,
+        collection
+      )
+    ) {
+      List<String> ids = documents
+        .map(document -> document.get("_id").toString())
+        .toList();
+
+      if (ranked) {
+        return NoteSearchIndex.rank(ids, matches, id -> id);
+      }
+
+      return ids;
+    }
+  }
+
+  /**
+   * Retrieves a single page of notes filtered by various criteria.
+   * Pages are addressed with keyset pagination: each page seeks past the
+   * (sort key, _id) pair of the previous page's last note, so fetching a
+   * page only ever reads the notes on that page.
+   *
+   * @param sectionID The ID of the section.
+   * @param courseID The ID of the course.
+   * @param majorID The ID of the major.
+   * @param semesterID The ID of the semester.
+   * @param schoolID The ID of the school.
+   * @param tags A list of tags to filter by.
+   * @param search A search string for filtering by title or description.
+   * @param sortType The criteria to sort the notes by (likes, title or date).
+   * @param orderType The order in which to sort the notes (ascending or descending).
+   * @param ownerID The ID of the note owner.
+   * @param cursor The continuation token of the previous page, or null for the first page.
+   * @param limit The requested page size, capped at {@link #MAX_PAGE_SIZE}.
+   * @return The requested page of notes and the token for the following page.
+   * @throws IllegalArgumentException If the page size or cursor is invalid.
+   */
+  public NotePage<Note> getNotePage(
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String search,
+    String sortType,
+    String orderType,
+    String ownerID,
+    String cursor,
+    int limit
+  ) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Page size must be positive.");
+    }
+
+    int size = Math.min(limit, MAX_PAGE_SIZE);
+    Sort.Direction direction = direction(orderType);
+
+    // Only fields with a well-defined order can be seeked on; otherwise fall back to _id.
+    String field = sortField(sortType);
+    if (field == null || !SEEKABLE_FIELDS.contains(field)) {
+      field = "_id";
+    }
+
+    List<String> matches = searchMatches(
+      false,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      ownerID
+    );
+    List<Criteria> criteria = filterCriteria(
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      matches,
+      ownerID
+    );
+
+    if (cursor != null) {
+      NoteCursor position = NoteCursor.decode(cursor);
+      if (!field.equals(position.getField())) {
+        throw new IllegalArgumentException(
+          "Cursor does not match the requested sort."
+        );
+      }
+      criteria.add(position.seek(direction));
+    }
+
+    Query query = toQuery(criteria);
+    query.with(
+      "_id".equals(field)
+        ? Sort.by(direction, "_id")
+        : Sort.by(direction, field, "_id")
+    );
+    query.limit(size + 1); // One extra note tells us whether another page exists.
+
+    List<Note> result = template.find(query, Note.class);
+    if (result.size() <= size) {
+      return new NotePage<>(result, null);
+    }
+
+    List<Note> items = result.subList(0, size);
+    String next = NoteCursor.after(items.get(size - 1), field).encode();
+    return new NotePage<>(items, next);
+  }
+
+  /**
+   * Counts the notes matching various criteria without fetching them.
+   * When no filter is applied, the count is estimated from collection
+   * metadata instead of scanning the collection.
+   *
+   * @param sectionID The ID of the section.
+   * @param courseID The ID of the course.
+   * @param majorID The ID of the major.
+   * @param semesterID The ID of the semester.
+   * @param schoolID The ID of the school.
+   * @param tags A list of tags to filter by.
+   * @param search A search string for filtering by title or description.
+   * @param ownerID The ID of the note owner.
+   * @return The number of notes that match the specified criteria.
+   */
+  public long countNotes(
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String search,
+    String ownerID
+  ) {
+    List<String> matches = searchMatches(
+      false,
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      ownerID
+    );
+    List<Criteria> criteria = filterCriteria(
+      sectionID,
+      courseID,
+      majorID,
+      semesterID,
+      schoolID,
+      tags,
+      search,
+      matches,
+      ownerID
+    );
+
+    if (criteria.isEmpty()) {
+      return template.estimatedCount(Note.class);
     }
 
-    if (!tags.isEmpty()) {
-      query.addCriteria(Criteria.where("tags").in(tags));
+    return template.count(toQuery(criteria), Note.class);
+  }
+
+  /**
+   * Looks up the notes matching a search in the search index, once per
+   * request. A search ranked by relevance returns the
+   * {@link NoteSearchIndex#MAX_RESULTS} best matches, best first; a search
+   * that only filters returns every match, so counts and other sorts see them
+   * all, unless there are more than {@link NoteSearchIndex#MAX_MATCHES}.
+   *
+   * @return The IDs of the matching notes, or null if there is no search, the
+   * index has not loaded yet or the search only filters and matches too many
+   * notes to list; the notes are then scanned for the search text instead.
+   */
+  private List<String> searchMatches(
+    boolean ranked,
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String search,
+    String ownerID
+  ) {
+    if (search == null || !searchIndex.isReady()) return null;
+
+    return ranked
+      ? searchIndex.search(
+        search,
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        ownerID
+      )
+      : searchIndex.matchAll(
+        search,
+        sectionID,
+        courseID,
+        majorID,
+        semesterID,
+        schoolID,
+        tags,
+        ownerID
+      );
+  }
+
+  /**
+   * Builds the filter criteria shared by all note listings.
+   *
+   * @param matches The IDs of the notes matching the search, from
+   * {@link #searchMatches}, or null to scan for the search text instead.
+   * @return A mutable list of criteria, one per applied filter.
+   */
+  private List<Criteria> filterCriteria(
+    String sectionID,
+    String courseID,
+    String majorID,
+    String semesterID,
+    String schoolID,
+    List<String> tags,
+    String search,
+    List<String> matches,
+    String ownerID
+  ) {
+    List<Criteria> criteria = new ArrayList<>();
+
+    if (tags != null && !tags.isEmpty()) {
+      criteria.add(Criteria.where("tags").in(tags));
     }
 
-    if (search != null) {
-      Criteria criteria = new Criteria();
-      query.addCriteria(
-        criteria.orOperator(
-          Criteria.where("title").regex(search, "i"),
-          Criteria.where("description").regex(search, "i")
-        )
+    if (matches != null) {
+      criteria.add(
+        Criteria.where("_id").in(matches.stream().map(ObjectId::new).toList())
+      );
+    } else if (search != null) {
+      // Fall back to scanning until the search index has loaded.
+      criteria.add(
+        new Criteria()
+          .orOperator(
+            Criteria.where("title").regex(Pattern.quote(search), "i"),
+            Criteria.where("description").regex(Pattern.quote(search), "i")
+          )
       );
     }
 
+    if (sectionID != null) {
+      criteria.add(Criteria.where("section").is(new ObjectId(sectionID)));
+    }
+
     if (courseID != null) {
-      query.addCriteria(Criteria.where("course").is(new ObjectId(courseID)));
+      criteria.add(Criteria.where("course").is(new ObjectId(courseID)));
     }
 
     if (majorID != null) {
-      query.addCriteria(Criteria.where("major").is(new ObjectId(majorID)));
+      criteria.add(Criteria.where("major").is(new ObjectId(majorID)));
     }
 
     if (semesterID != null) {
-      query.addCriteria(
-        Criteria.where("semester").is(new ObjectId(semesterID))
-      );
+      criteria.add(Criteria.where("semester").is(new ObjectId(semesterID)));
     }
 
     if (schoolID != null) {
-      query.addCriteria(Criteria.where("school").is(new ObjectId(schoolID)));
+      criteria.add(Criteria.where("school").is(new ObjectId(schoolID)));
     }
 
     if (ownerID != null) {
-      query.addCriteria(Criteria.where("account").is(new ObjectId(ownerID)));
+      criteria.add(Criteria.where("owner").is(new ObjectId(ownerID)));
+    }
+
+    return criteria;
+  }
+
+  /**
+   * Combines the given criteria into a single query.
+   */
+  private Query toQuery(List<Criteria> criteria) {
+    Query query = new Query();
+    if (!criteria.isEmpty()) {
+      query.addCriteria(new Criteria().andOperator(criteria));
+    }
+    return query;
+  }
+
+  /**
+   * Maps a client-facing sort type to the document field it sorts by.
+   *
+   * @return The field name, or null if the sort type is unsupported.
+   */
+  private String sortField(String sortType) {
+    switch (sortType.toLowerCase()) {
+      case "title":
+        return "title";
+      case "semester":
+        return "semester.year";
+      case "likes":
+        return "totalLikes";
+      case "date":
+        return "createdDate";
+      default:
+        // Optionally log or handle unsupported sort types.
+        return null;
     }
+  }
 
-    query.fields().exclude("likes");
+  /**
+   * Checks whether results should be ordered by search relevance.
+   */
+  private boolean ranksBySearch(String sortType, String search) {
+    return (
+      "relevance".equalsIgnoreCase(sortType) &&
+      search != null &&
+      searchIndex.isReady()
+    );
+  }
 
-    return template.find(query, Note.class); // Fetch and return the filtered notes.
+  /**
+   * Maps a client-facing order type to a sort direction, defaulting to descending.
+   */
+  private Sort.Direction direction(String orderType) {
+    return "asc".equalsIgnoreCase(orderType)
+      ? Sort.Direction.ASC
+      : Sort.Direction.DESC;
   }
 
   /**
    * Updates the properties of an existing note.
    *
+   * Only the fields a user can edit are written, so likes recorded while the
+   * note was being edited are kept: the note's like counter is only ever
+   * changed by the LikeEngine. The version of the note is incremented and its
+   * updatedDate set to the time of the update.
+   *
    * @param note The Note object containing updated information.
+   * @throws ResourceNotFoundException If the note was deleted in the meantime.
    */
   public void updateNote(Note note, Account user) {
     if (!user.getId().equals(note.getOwner()) && user.getRole() != 3) {
       throw new UnauthorizedException("You are not the note's owner.");
     }
 
-    repository.save(note);
+    Update update = new Update()
+      .set("title", note.getTitle())
+      .set("description", note.getDescription())
+      .set("file", note.getFile())
+      .set("link", note.getLink())
+      .set("tags", note.getTags())
+      .set("section", note.getSection())
+      .set("course", note.getCourse())
+      .set("major", note.getMajor())
+      .set("school", note.getSchool())
+      .set("semester", note.getSemester())
+      .set("anonymous", note.isAnonymous())
+      .inc("version", 1)
+      .currentDate("updatedDate");
+
+    Note updated = template.findAndModify(
+      Query.query(Criteria.where("_id").is(new ObjectId(note.getId()))),
+      update,
+      FindAndModifyOptions.options().returnNew(true),
+      Note.class
+    );
+    if (updated == null) {
+      throw new ResourceNotFoundException("No note with this ID.");
+    }
+
+    searchIndex.index(updated);
   }
 
   /**
-   * Deletes the specified note and its associated file.
+   * Deletes the specified note, and its associated file unless other notes
+   * still reference it.
    *
    * @param note The Note object to delete.
    */
@@ -238,43 +806,33 @@ public class NoteService {
       throw new UnauthorizedException("You are not the note's owner.");
     }
     repository.delete(note);
-    files.deleteFile(note.getFile());
+    searchIndex.remove(note.getId());
+    likes.removeAll(note.getId());
+    files.releaseFile(note.getFile());
   }
 
   /**
    * Likes a note for the specified user.
+   * The like is recorded atomically, so concurrent likes are never lost.
    *
    * @param user The account of the user liking the note.
    * @param note The Note object to like.
+   * @return True if the like was added, false if the user already liked the note.
    */
-  public void likeNote(Account user, Note note) {
-    if (note.getLikes().contains(user.getId())) return; // Do not allow duplicate likes.
-
-    ArrayList<String> next = new ArrayList<>(note.getLikes());
-    next.add(user.getId());
-    note.setLikes(next);
-
-    note.setTotalLikes(note.getTotalLikes() + 1); // Increment the total likes count.
-
-    repository.save(note); // Save the updated note with the new like information.
+  public boolean likeNote(Account user, Note note) {
+    return likes.like(Note.class, note.getId(), user.getId());
   }
 
   /**
    * Dislikes a note for the specified user.
+   * The like is removed atomically, so concurrent changes are never lost.
    *
    * @param user The account of the user disliking the note.
    * @param note The Note object to dislike.
+   * @return True if the like was removed, false if the user had not liked the note.
    */
-  public void dislikeNote(Account user, Note note) {
-    if (!note.getLikes().contains(user.getId())) return; // Do not proceed if the user did not like the note.
-
-    ArrayList<String> next = new ArrayList<>(note.getLikes());
-    next.remove(user.getId());
-    note.setLikes(next);
-
-    note.setTotalLikes(note.getTotalLikes() - 1); // Decrement the total likes count.
-
-    repository.save(note); // Save the updated note with the new dislike information.
+  public boolean dislikeNote(Account user, Note note) {
+    return likes.unlike(Note.class, note.getId(), user.getId());
   }
 
   /**
@@ -285,6 +843,6 @@ public class NoteService {
    * @return True if the user has liked the note, false otherwise.
    */
   public boolean hasLikedNote(Account user, Note note) {
-    return note.getLikes().contains(user.getId()); // Check if the user's ID is in the list of likes.
+    return likes.hasLiked(note.getId(), user.getId());
   }
 }
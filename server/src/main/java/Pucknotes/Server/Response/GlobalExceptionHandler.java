@@ -7,6 +7,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 /**
  * GlobalExceptionHandler is a centralized error handling component that intercepts exceptions thrown by
@@ -92,4 +93,19 @@ public class GlobalExceptionHandler {
     APIResponse<Object> response = APIResponse.bad(ex.getMessage()); // Creating a bad response from the error message.
     return new ResponseEntity<>(response, HttpStatus.FORBIDDEN); // Return with an HTTP 403 status.
   }
+
+  /**
+   * Handles MaxUploadSizeExceededExceptions, thrown when an upload is larger than the configured limits.
+   * It returns an HTTP 413 status along with the error message.
+   *
+   * @param ex the MaxUploadSizeExceededException thrown
+   * @return a ResponseEntity containing an APIResponse with the error message and HTTP status
+   */
+  @ExceptionHandler(MaxUploadSizeExceededException.class)
+  public ResponseEntity<APIResponse<Object>> handleMaxUploadSizeExceededException(
+    MaxUploadSizeExceededException ex
+  ) {
+    APIResponse<Object> response = APIResponse.bad(ex.getMessage()); // Creating a bad response from the error message.
+    return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE); // Return with an HTTP 413 status.
+  }
 }
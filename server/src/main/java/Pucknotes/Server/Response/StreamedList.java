@@ -0,0 +1,64 @@
+package Pucknotes.Server.Response;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The StreamedList class is a list of results that is written to the response
+ * as it is read, typically from a database cursor. It is serialized as a JSON
+ * array, so it can be returned as the data of an {@link APIResponse} in place
+ * of a List, but the results are never all held in memory at once.
+ *
+ * The underlying stream is closed when the current request completes, whether
+ * or not it was read to the end (e.g. when the client disconnected).
+ *
+ * @param <T> The type of the results.
+ */
+public class StreamedList<T> implements AutoCloseable {
+
+  private final Stream<T> items;
+
+  private StreamedList(Stream<T> items) {
+    this.items = items;
+  }
+
+  /**
+   * Wraps a stream of results, to be closed when the current request completes.
+   * Outside a request, the caller must close it.
+   *
+   * @param items The stream of results, read once.
+   * @param <T> The type of the results.
+   * @return A list that is written as the stream is read.
+   */
+  public static <T> StreamedList<T> of(Stream<T> items) {
+    StreamedList<T> list = new StreamedList<>(items);
+
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null) {
+      request.registerDestructionCallback(
+        StreamedList.class.getName() + "@" + System.identityHashCode(list),
+        list::close,
+        RequestAttributes.SCOPE_REQUEST
+      );
+    }
+    return list;
+  }
+
+  /**
+   * Returns the results for serialization. Can only be called once.
+   *
+   * @return An iterator over the results.
+   */
+  @JsonValue
+  public Iterator<T> iterator() {
+    return items.iterator();
+  }
+
+  @Override
+  public void close() {
+    items.close();
+  }
+}
@@ -1,14 +1,12 @@
 package Pucknotes.Server.School;
 
+import Pucknotes.Server.Database.TaxonomyCache;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
 import lombok.AllArgsConstructor;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 /**
@@ -19,15 +17,13 @@ import org.springframework.stereotype.Service;
  * The results can be sorted based on specified parameters.
  */
 @Service
+@Timed("pucknotes.service")
 @AllArgsConstructor
 @Document(collection = "schools")
 public class SchoolService {
 
   @Autowired
-  private final SchoolRepository repository;
-
-  @Autowired
-  private MongoTemplate template;
+  private TaxonomyCache cache;
 
   /**
    * Retrieves a School entity by its unique identifier.
@@ -36,7 +32,7 @@ public class SchoolService {
    * @return The School object if found, otherwise null.
    */
   public School getById(String id) {
-    return repository.findById(id).orElse(null);
+    return cache.schools().get(id);
   }
 
   /**
@@ -46,7 +42,7 @@ public class SchoolService {
    * @return The School object if found, otherwise null.
    */
   public School getByName(String name) {
-    return repository.findByName(name).orElse(null);
+    return cache.schools().find("name", name);
   }
 
   /**
@@ -56,7 +52,7 @@ public class SchoolService {
    * @return True if the School exists, otherwise false.
    */
   public boolean existsById(String id) {
-    return repository.existsById(id);
+    return getById(id) != null;
   }
 
   /**
@@ -66,7 +62,7 @@ public class SchoolService {
    * @return True if the School exists, otherwise false.
    */
   public boolean existsByName(String name) {
-    return repository.existsByName(name);
+    return getByName(name) != null;
   }
 
   /**
@@ -89,37 +85,25 @@ public class SchoolService {
     String sortType,
     String orderType
   ) {
-    Query query = new Query();
-
     // Determine the sorting direction based on the orderType parameter.
     Sort.Direction direction = "asc".equalsIgnoreCase(orderType)
       ? Sort.Direction.ASC
       : Sort.Direction.DESC;
 
-    // Set the sort criteria based on the sortType parameter.
-    switch (sortType.toLowerCase()) {
-      case "name":
-        query.with(Sort.by(direction, "name"));
-        break;
-      case "semester":
-        query.with(Sort.by(direction, "semester.year"));
-        break;
-      // Additional cases can be added here for more sorting options.
-    }
+    // Filter by semester ID if provided, using the cached catalog.
+    List<School> result = semesterID != null
+      ? cache.schools().children("semester", semesterID)
+      : cache.schools().all();
 
-    // Add criteria to filter by semester ID if provided
-    if (semesterID != null) {
-      query.addCriteria(
-        Criteria.where("semester").is(new ObjectId(semesterID))
-      );
-    }
+    // Filter by name using a case-insensitive regex if provided.
+    result = TaxonomyCache.matching(result, School::getName, name);
 
-    // Add criteria to filter by name using a case-insensitive regex if provided.
-    if (name != null) {
-      query.addCriteria(Criteria.where("name").regex(name, "i"));
+    // Set the sort order based on the sortType parameter.
+    // Schools have no semester year, so sorting by semester keeps the stored order.
+    if ("name".equalsIgnoreCase(sortType)) {
+      result = TaxonomyCache.sorted(result, School::getName, direction);
     }
 
-    // Execute the query against the School collection and return the results.
-    return template.find(query, School.class);
+    return result;
   }
 }
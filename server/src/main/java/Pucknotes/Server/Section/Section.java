@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
@@ -32,6 +33,7 @@ public class Section {
    * This field is stored in the database as an ObjectId.
    */
   @Field(targetType = FieldType.OBJECT_ID)
+  @Indexed
   private String course;
 
   /**
@@ -62,5 +64,6 @@ public class Section {
    * The number assigned to this section.
    * This could represent the section number or identifier within the course.
    */
+  @Indexed
   private String number;
 }
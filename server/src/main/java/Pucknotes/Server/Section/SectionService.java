@@ -1,15 +1,12 @@
 package Pucknotes.Server.Section;
 
+import Pucknotes.Server.Database.TaxonomyCache;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
 import lombok.AllArgsConstructor;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 /**
@@ -18,15 +15,13 @@ import org.springframework.stereotype.Service;
  * them by their ID or number.
  */
 @Service
+@Timed("pucknotes.service")
 @AllArgsConstructor
 @Document(collection = "sections")
 public class SectionService {
 
   @Autowired
-  private SectionRepository repository;
-
-  @Autowired
-  private MongoTemplate template;
+  private TaxonomyCache cache;
 
   /**
    * Retrieves a list of sections based on the specified course ID.
@@ -43,30 +38,11 @@ public class SectionService {
     String sortType,
     String orderType
   ) {
-    Query query = new Query();
-
-    Sort.Direction direction = "asc".equalsIgnoreCase(orderType)
-      ? Sort.Direction.ASC
-      : Sort.Direction.DESC;
-
-    switch (sortType.toLowerCase()) {
-      case "name":
-        query.with(Sort.by(direction, "name"));
-        break;
-      case "semester":
-        query.with(Sort.by(direction, "semester.year"));
-        break;
-      // If an unsupported sortType is provided, the query will not be modified.
-      default:
-        // Consider logging here if unsupported sortType is a frequent issue.
-        break;
-    }
-
-    if (courseId != null) {
-      query.addCriteria(Criteria.where("course").is(new ObjectId(courseId)));
-    }
-
-    return template.find(query, Section.class);
+    // Sections have neither a name nor a semester year, so every supported
+    // sort type keeps the stored order.
+    return courseId != null
+      ? cache.sections().children("course", courseId)
+      : cache.sections().all();
   }
 
   /**
@@ -82,7 +58,7 @@ public class SectionService {
       throw new IllegalArgumentException("Invalid section ID.");
     }
 
-    Section section = repository.findById(id).orElse(null);
+    Section section = cache.sections().get(id);
     if (section == null) {
       throw new ResourceNotFoundException("No section with this ID.");
     }
@@ -97,7 +73,7 @@ public class SectionService {
    * @return True if a section with the specified ID exists, otherwise false.
    */
   public boolean existsById(String id) {
-    return repository.existsById(id);
+    return cache.sections().get(id) != null;
   }
 
   /**
@@ -107,7 +83,7 @@ public class SectionService {
    * @return True if a section with the specified number exists, otherwise false.
    */
   public boolean existsByNumber(String number) {
-    return repository.existsByNumber(number);
+    return getByNumber(number) != null;
   }
 
   /**
@@ -117,6 +93,6 @@ public class SectionService {
    * @return The section associated with the given number.
    */
   public Section getByNumber(String number) {
-    return repository.getByNumber(number);
+    return cache.sections().find("number", number);
   }
 }
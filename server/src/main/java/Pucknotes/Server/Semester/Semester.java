@@ -7,6 +7,8 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -19,6 +21,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @NoArgsConstructor
 @AllArgsConstructor
 @RequiredArgsConstructor
+@CompoundIndex(name = "season_year", def = "{'season': 1, 'year': 1}")
 @Document(collection = "semesters")
 public class Semester {
 
@@ -40,6 +43,7 @@ public class Semester {
    * The year in which the semester takes place.
    * This field is of type Number to allow for flexibility in year representation.
    */
+  @Indexed
   private Number year;
 
   /**
@@ -47,5 +51,6 @@ public class Semester {
    * This field provides a more descriptive identification of the semester.
    */
   @NonNull
+  @Indexed
   private String name;
 }
@@ -1,10 +1,12 @@
 package Pucknotes.Server.Semester;
 
+import Pucknotes.Server.Database.TaxonomyCache;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import java.util.Comparator;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.stereotype.Service;
 
@@ -14,12 +16,13 @@ import org.springframework.stereotype.Service;
  * Spring Data JPA features.
  */
 @Service
+@Timed("pucknotes.service")
 @AllArgsConstructor
 @Document(collection = "semesters")
 public class SemesterService {
 
   @Autowired
-  private SemesterRepository repository;
+  private TaxonomyCache cache;
 
   /**
    * Retrieves a list of Semester objects filtered by year and season, and optionally sorted.
@@ -30,22 +33,29 @@ public class SemesterService {
    * @return A list of Semester objects matching the specified filters and sorting order.
    */
   public List<Semester> getSemesters(Integer year, String season, String sort) {
-    Sort order = Sort.by(
-      "newest".equalsIgnoreCase(sort)
-        ? Sort.Order.desc("year")
-        : Sort.Order.asc("year")
-    );
+    List<Semester> all = cache.semesters().all();
 
     // Check if both year and season are not specified.
     if (year == -1 && season.equals("any")) {
-      return repository.findAll(); // Return all semesters if no filters are applied.
-    } else if (season != null && !season.equals("any") && year == -1) {
-      return repository.findBySeason(season, order); // Filter by season only.
-    } else if (season.equals("any") && year != -1) {
-      return repository.findByYear(year, order); // Filter by year only.
-    } else {
-      return repository.findBySeasonAndYear(season, year, order); // Filter by both year and season.
+      return all; // Return all semesters if no filters are applied.
     }
+
+    Comparator<Semester> byYear = Comparator.comparing(
+      semester -> year(semester),
+      Comparator.nullsFirst(Comparator.<Double>naturalOrder())
+    );
+
+    return all
+      .stream()
+      // Filter by season and year, when specified.
+      .filter(semester -> season.equals("any") || season.equals(semester.getSeason()))
+      .filter(semester -> year == -1 || Double.valueOf(year).equals(year(semester)))
+      .sorted("newest".equalsIgnoreCase(sort) ? byYear.reversed() : byYear)
+      .toList();
+  }
+
+  private static Double year(Semester semester) {
+    return semester.getYear() == null ? null : semester.getYear().doubleValue();
   }
 
   /**
@@ -61,12 +71,12 @@ public class SemesterService {
       throw new IllegalArgumentException("Invalid semester ID."); // Validate input.
     }
 
-    Semester account = repository.findById(id).orElse(null);
-    if (account == null) {
+    Semester semester = cache.semesters().get(id);
+    if (semester == null) {
       throw new ResourceNotFoundException("No semester with this ID."); // Handle case where semester is not found.
     }
 
-    return account; // Return the found semester.
+    return semester; // Return the found semester.
   }
 
   /**
@@ -76,7 +86,7 @@ public class SemesterService {
    * @return The Semester object with the specified name, or null if not found.
    */
   public Semester getByName(String name) {
-    return repository.findByName(name).orElse(null); // Retrieve by name, returning null if not found.
+    return cache.semesters().find("name", name); // Retrieve by name, returning null if not found.
   }
 
   /**
@@ -86,7 +96,7 @@ public class SemesterService {
    * @return A boolean indicating whether the semester exists.
    */
   public boolean existsById(String id) {
-    return repository.existsById(id); // Check for existence based on ID.
+    return cache.semesters().get(id) != null; // Check for existence based on ID.
   }
 
   /**
@@ -96,6 +106,6 @@ public class SemesterService {
    * @return A boolean indicating whether the semester exists.
    */
   public boolean existsByName(String name) {
-    return repository.existsByName(name); // Check for existence based on name.
+    return getByName(name) != null; // Check for existence based on name.
   }
 }
@@ -4,7 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -20,27 +20,9 @@ import org.springframework.web.servlet.function.ServerResponse;
  */
 @SpringBootApplication
 @EnableWebMvc
+@EnableScheduling
 public class ServerApplication {
 
-  /**
-   * Creates a bean of type CommonsRequestLoggingFilter.
-   * This filter is used to log incoming HTTP requests. The logging
-   * includes client information, query strings, and payloads
-   * with a maximum payload length set to 64000 bytes.
-   *
-   * @return An instance of CommonsRequestLoggingFilter configured with logging options.
-   */
-  @Bean
-  public CommonsRequestLoggingFilter requestLoggingFilter() {
-    CommonsRequestLoggingFilter loggingFilter =
-      new CommonsRequestLoggingFilter();
-    loggingFilter.setIncludeClientInfo(true); // This includes client information in the logs.
-    loggingFilter.setIncludeQueryString(true); // This includes the query string in the logs.
-    loggingFilter.setIncludePayload(true); // This includes the payload in the logs.
-    loggingFilter.setMaxPayloadLength(64000); // This sets the maximum payload length to log.
-    return loggingFilter; // Return the configured logging filter.
-  }
-
   @Bean
   RouterFunction<ServerResponse> spaRouter() {
     var path = RequestPredicates.path("/assets/**")
@@ -0,0 +1,583 @@
+package Pucknotes.Server.Session;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+/**
+ * The MongoSessionRepository class stores HTTP sessions in the "sessions"
+ * collection, so every server instance sees the same sessions and requests can
+ * be balanced across instances without sticky sessions.
+ *
+ * Each session is one document holding its timestamps, the ID of the logged-in
+ * account (indexed, to find every session of an account) and its attributes,
+ * each serialized on its own. A TTL index on "expireAt" lets MongoDB delete
+ * sessions once they have been idle for too long.
+ *
+ * Saving a session only writes the attributes that were set or removed during
+ * the request. Requests that change nothing only refresh the expiry, and at
+ * most once per {@link #ACCESS_WRITE_INTERVAL}. Loaded sessions are kept in a
+ * small local near-cache for a few seconds, so the several lookups of a single
+ * request (and bursts of requests) do not each read the database. A change made
+ * through another instance may therefore take up to the near-cache time to live
+ * to be seen here.
+ *
+ * Attributes are only written when set through setAttribute: an attribute
+ * object changed in place must be set again to be saved.
+ */
+public class MongoSessionRepository
+  implements
+    FindByIndexNameSessionRepository<MongoSessionRepository.MongoSession>,
+    MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    MongoSessionRepository.class
+  );
+
+  /**
+   * The collection holding the sessions.
+   */
+  public static final String COLLECTION = "sessions";
+
+  /**
+   * How long a session may go without its expiry being refreshed. A session
+   * can therefore expire up to this much earlier than its idle timeout.
+   */
+  static final Duration ACCESS_WRITE_INTERVAL = Duration.ofMinutes(1);
+
+  /**
+   * The attribute holding the ID of the logged-in account (see SessionService).
+   */
+  private static final String ACCOUNT_ATTRIBUTE = "id";
+
+  private final MongoTemplate template;
+  private final Duration maxInactiveInterval;
+  private final Duration nearCacheTtl;
+
+  private final Converter<Object, byte[]> serializer = new SerializingConverter();
+  private final Converter<byte[], Object> deserializer =
+    new DeserializingConverter();
+
+  /**
+   * Recently loaded or saved sessions by ID, least recently used first.
+   */
+  private final Map<String, Cached> nearCache;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * A session as last loaded or saved by this instance.
+   */
+  private static class Cached {
+
+    private final MapSession session;
+    private final Instant persistedAccess;
+    private final String principal;
+    private final long cachedAt;
+
+    private Cached(
+      MapSession session,
+      Instant persistedAccess,
+      String principal,
+      long cachedAt
+    ) {
+      this.session = session;
+      this.persistedAccess = persistedAccess;
+      this.principal = principal;
+      this.cachedAt = cachedAt;
+    }
+  }
+
+  /**
+   * Creates a repository.
+   *
+   * @param template The template used to access the database.
+   * @param maxInactiveInterval The idle timeout of new sessions.
+   * @param nearCacheTtl How long a loaded session is reused without rereading it.
+   * @param nearCacheSize The most sessions kept in the near-cache.
+   */
+  public MongoSessionRepository(
+    MongoTemplate template,
+    Duration maxInactiveInterval,
+    Duration nearCacheTtl,
+    int nearCacheSize
+  ) {
+    this.template = template;
+    this.maxInactiveInterval = maxInactiveInterval;
+    this.nearCacheTtl = nearCacheTtl;
+    this.nearCache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+        return size() > nearCacheSize;
+      }
+    };
+  }
+
+  /**
+   * Creates the TTL index that expires idle sessions, and the index used to
+   * find the sessions of an account.
+   */
+  @Order(0)
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    IndexOperations operations = template.indexOps(COLLECTION);
+    try {
+      operations.ensureIndex(
+        new Index()
+          .on("expireAt", Sort.Direction.ASC)
+          .expire(Duration.ZERO)
+          .named("expireAt_ttl")
+      );
+      operations.ensureIndex(
+        new Index().on("principal", Sort.Direction.ASC).sparse()
+      );
+    } catch (DataAccessException error) {
+      log.warn(
+        "Could not create the indexes on '{}': {}",
+        COLLECTION,
+        error.getMessage()
+      );
+    }
+  }
+
+  @Override
+  public MongoSession createSession() {
+    MapSession session = new MapSession();
+    session.setMaxInactiveInterval(maxInactiveInterval);
+    return new MongoSession(session, null, null, true);
+  }
+
+  @Override
+  public void save(MongoSession session) {
+    if (!session.getId().equals(session.originalId)) {
+      // The ID changed (e.g. on login), so move the whole session to the new ID.
+      if (session.originalId != null) {
+        template.remove(byId(session.originalId), COLLECTION);
+        evict(session.originalId);
+      }
+      session.isNew = true;
+    }
+
+    String principal = principalOf(session);
+    Instant accessed = session.getLastAccessedTime();
+
+    if (session.isNew) {
+      template.save(toDocument(session, principal), COLLECTION);
+    } else {
+      Update update = changes(session, principal);
+      if (update != null) {
+        template.updateFirst(byId(session.getId()), update, COLLECTION);
+      } else {
+        accessed = session.persistedAccess;
+      }
+    }
+
+    session.saved(accessed, principal);
+    cache(session);
+  }
+
+  /**
+   * Builds the update writing what changed since the session was loaded.
+   *
+   * @return The update, or null if nothing needs to be written.
+   */
+  private Update changes(MongoSession session, String principal) {
+    Update update = new Update();
+    boolean changed = false;
+
+    for (String name : session.changed) {
+      Object value = session.getAttribute(name);
+      String field = "attrs." + encode(name);
+      if (value == null) {
+        update.unset(field);
+      } else {
+        update.set(field, new Binary(serializer.convert(value)));
+      }
+      changed = true;
+    }
+
+    if (!Objects.equals(principal, session.principal)) {
+      if (principal == null) {
+        update.unset("principal");
+      } else {
+        update.set("principal", principal);
+      }
+      changed = true;
+    }
+
+    boolean accessDue =
+      session.persistedAccess == null ||
+      Duration.between(session.persistedAccess, session.getLastAccessedTime())
+        .compareTo(ACCESS_WRITE_INTERVAL) >= 0;
+
+    if (!changed && !accessDue && !session.maxInactiveChanged) return null;
+
+    update
+      .set("accessed", Date.from(session.getLastAccessedTime()))
+      .set("maxInactive", session.getMaxInactiveInterval().toSeconds())
+      .set("expireAt", Date.from(expiryOf(session)));
+    return update;
+  }
+
+  @Override
+  public MongoSession findById(String id) {
+    MongoSession session = fromCache(id);
+    if (session == null) {
+      Document document = template.findById(id, Document.class, COLLECTION);
+      if (document == null) {
+        evict(id);
+        return null;
+      }
+
+      session = fromDocument(document);
+      if (session == null) {
+        // The session holds attributes this version cannot read.
+        deleteById(id);
+        return null;
+      }
+      cache(session);
+    }
+
+    if (session.isExpired()) {
+      deleteById(id);
+      return null;
+    }
+    return session;
+  }
+
+  @Override
+  public void deleteById(String id) {
+    template.remove(byId(id), COLLECTION);
+    evict(id);
+  }
+
+  @Override
+  public Map<String, MongoSession> findByIndexNameAndIndexValue(
+    String indexName,
+    String indexValue
+  ) {
+    Map<String, MongoSession> sessions = new HashMap<>();
+    if (!PRINCIPAL_NAME_INDEX_NAME.equals(indexName)) return sessions;
+
+    for (Document document : template.find(
+      new Query(Criteria.where("principal").is(indexValue)),
+      Document.class,
+      COLLECTION
+    )) {
+      MongoSession session = fromDocument(document);
+      if (session != null && !session.isExpired()) {
+        sessions.put(session.getId(), session);
+      }
+    }
+    return sessions;
+  }
+
+  /**
+   * Names the account a session belongs to: the principal name set by Spring
+   * Security if there is one, otherwise the logged-in account ID.
+   */
+  private static String principalOf(Session session) {
+    Object principal = session.getAttribute(PRINCIPAL_NAME_INDEX_NAME);
+    if (principal == null) {
+      principal = session.getAttribute(ACCOUNT_ATTRIBUTE);
+    }
+    return principal instanceof String name ? name : null;
+  }
+
+  private static Instant expiryOf(Session session) {
+    return session.getLastAccessedTime().plus(session.getMaxInactiveInterval());
+  }
+
+  private static Query byId(String id) {
+    return new Query(Criteria.where("_id").is(id));
+  }
+
+  private Document toDocument(MongoSession session, String principal) {
+    Document attributes = new Document();
+    for (String name : session.getAttributeNames()) {
+      attributes.put(
+        encode(name),
+        new Binary(serializer.convert(session.getAttribute(name)))
+      );
+    }
+
+    Document document = new Document("_id", session.getId())
+      .append("created", Date.from(session.getCreationTime()))
+      .append("accessed", Date.from(session.getLastAccessedTime()))
+      .append("maxInactive", session.getMaxInactiveInterval().toSeconds())
+      .append("expireAt", Date.from(expiryOf(session)))
+      .append("attrs", attributes);
+    if (principal != null) {
+      document.append("principal", principal);
+    }
+    return document;
+  }
+
+  /**
+   * Reads a stored session.
+   *
+   * @return The session, or null if one of its attributes cannot be read.
+   */
+  private MongoSession fromDocument(Document document) {
+    MapSession session = new MapSession(document.getString("_id"));
+    session.setCreationTime(document.getDate("created").toInstant());
+    session.setLastAccessedTime(document.getDate("accessed").toInstant());
+    session.setMaxInactiveInterval(
+      Duration.ofSeconds(document.get("maxInactive", Number.class).longValue())
+    );
+
+    Document attributes = document.get("attrs", Document.class);
+    if (attributes != null) {
+      for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+        try {
+          session.setAttribute(
+            decode(entry.getKey()),
+            deserializer.convert(((Binary) entry.getValue()).getData())
+          );
+        } catch (RuntimeException error) {
+          log.debug(
+            "Dropping session with unreadable attribute '{}'.",
+            entry.getKey(),
+            error
+          );
+          return null;
+        }
+      }
+    }
+
+    return new MongoSession(
+      session,
+      session.getLastAccessedTime(),
+      document.getString("principal"),
+      false
+    );
+  }
+
+  private MongoSession fromCache(String id) {
+    Cached cached;
+    synchronized (nearCache) {
+      cached = nearCache.get(id);
+    }
+    if (cached == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    if (System.currentTimeMillis() - cached.cachedAt >= nearCacheTtl.toMillis()) {
+      misses.incrementAndGet();
+      evict(id);
+      return null;
+    }
+    hits.incrementAndGet();
+
+    // Hand out a copy, so changes are only seen by others once saved.
+    return new MongoSession(
+      new MapSession(cached.session),
+      cached.persistedAccess,
+      cached.principal,
+      false
+    );
+  }
+
+  private void cache(MongoSession session) {
+    if (nearCacheTtl.isZero()) return;
+
+    Cached cached = new Cached(
+      new MapSession(session.delegate),
+      session.persistedAccess,
+      session.principal,
+      System.currentTimeMillis()
+    );
+    synchronized (nearCache) {
+      nearCache.put(session.getId(), cached);
+    }
+  }
+
+  private void evict(String id) {
+    synchronized (nearCache) {
+      nearCache.remove(id);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("pucknotes.session.lookups", hits, AtomicLong::get)
+      .tag("result", "hit")
+      .description("Session lookups")
+      .register(registry);
+
+    FunctionCounter.builder("pucknotes.session.lookups", misses, AtomicLong::get)
+      .tag("result", "miss")
+      .description("Session lookups")
+      .register(registry);
+
+    Gauge.builder("pucknotes.cache.hit.ratio", this, sessions -> {
+      long hit = sessions.hits.get();
+      long total = hit + sessions.misses.get();
+      return total == 0 ? 0 : (double) hit / total;
+    })
+      .tag("cache", "sessions")
+      .description("Share of lookups served from memory")
+      .register(registry);
+  }
+
+  /**
+   * Escapes an attribute name for use as a field name, which may not contain
+   * dots or start with a dollar sign.
+   */
+  static String encode(String name) {
+    return name.replace("%", "%25").replace(".", "%2E").replace("$", "%24");
+  }
+
+  static String decode(String field) {
+    return field.replace("%24", "$").replace("%2E", ".").replace("%25", "%");
+  }
+
+  /**
+   * A session loaded from (or to be saved to) the sessions collection. It
+   * records which attributes were changed, so only those are written.
+   */
+  public static final class MongoSession implements Session {
+
+    private final MapSession delegate;
+    private final Set<String> changed = new HashSet<>();
+    private boolean maxInactiveChanged;
+    private boolean isNew;
+
+    /**
+     * The ID the session is stored under, or null if it was never stored.
+     */
+    private String originalId;
+
+    /**
+     * The last access time written to the database.
+     */
+    private Instant persistedAccess;
+
+    /**
+     * The account the session is stored as belonging to.
+     */
+    private String principal;
+
+    private MongoSession(
+      MapSession delegate,
+      Instant persistedAccess,
+      String principal,
+      boolean isNew
+    ) {
+      this.delegate = delegate;
+      this.persistedAccess = persistedAccess;
+      this.principal = principal;
+      this.isNew = isNew;
+      this.originalId = isNew ? null : delegate.getId();
+    }
+
+    private void saved(Instant accessed, String principal) {
+      this.changed.clear();
+      this.maxInactiveChanged = false;
+      this.isNew = false;
+      this.originalId = delegate.getId();
+      this.persistedAccess = accessed;
+      this.principal = principal;
+    }
+
+    @Override
+    public String getId() {
+      return delegate.getId();
+    }
+
+    @Override
+    public String changeSessionId() {
+      return delegate.changeSessionId();
+    }
+
+    @Override
+    public <T> T getAttribute(String attributeName) {
+      return delegate.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+      return delegate.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+      delegate.setAttribute(attributeName, attributeValue);
+      changed.add(attributeName);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+      if (delegate.getAttribute(attributeName) == null) return;
+      delegate.removeAttribute(attributeName);
+      changed.add(attributeName);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+      return delegate.getCreationTime();
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+      delegate.setLastAccessedTime(lastAccessedTime);
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+      return delegate.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+      if (!interval.equals(delegate.getMaxInactiveInterval())) {
+        maxInactiveChanged = true;
+      }
+      delegate.setMaxInactiveInterval(interval);
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+      return delegate.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+      return delegate.isExpired();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package Pucknotes.Server.Session;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The PrincipalCache class decides whether the account snapshot stored in a
+ * session ({@link SessionPrincipal}) can still be trusted.
+ *
+ * A snapshot expires after a fixed time to live, so changes made by other
+ * server instances are eventually picked up. Changes made through this instance
+ * (such as a new role or username) expire every snapshot of that account
+ * immediately.
+ *
+ * Snapshots and changes are ordered by the stamps of {@link #stamp()}, which
+ * follow the clock but never repeat, so a snapshot taken in the same
+ * millisecond as a change is still known to be newer or older than it.
+ */
+@Component
+public class PrincipalCache implements MeterBinder {
+
+  @Value("${pucknotes.session.principal-ttl:PT5M}")
+  private Duration ttl = Duration.ofMinutes(5);
+
+  @Autowired(required = false)
+  private Clock clock = Clock.systemUTC();
+
+  /**
+   * The last stamp handed out.
+   */
+  private final AtomicLong lastStamp = new AtomicLong();
+
+  /**
+   * When each recently changed account was last changed, by account ID.
+   */
+  private final Map<String, Long> changes = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Hands out the stamp of a new snapshot or change: the current time in
+   * milliseconds since the epoch, or one more than the previous stamp if the
+   * clock has not moved past it.
+   *
+   * Take the stamp of a snapshot before loading its account, so a change made
+   * while the account is loaded is never mistaken for an older one.
+   *
+   * @return A stamp greater than every stamp handed out before.
+   */
+  public long stamp() {
+    long now = clock.millis();
+    return lastStamp.accumulateAndGet(now, (last, time) ->
+      Math.max(last + 1, time)
+    );
+  }
+
+  /**
+   * Checks whether a snapshot can still be used.
+   *
+   * @param principal The snapshot stored in a session.
+   * @return True if the snapshot is younger than the time to live and its
+   *         account has not changed since it was taken.
+   */
+  public boolean isCurrent(SessionPrincipal principal) {
+    Long changed = changes.get(principal.getId());
+    boolean current =
+      clock.millis() - principal.getLoadedAt() < ttl.toMillis() &&
+      (changed == null || changed < principal.getLoadedAt());
+
+    (current ? hits : misses).incrementAndGet();
+    return current;
+  }
+
+  /**
+   * Expires every snapshot of an account, so the next request reloads it.
+   * Call this whenever an account's role or details change.
+   *
+   * @param accountID The ID of the changed account.
+   */
+  public void invalidate(String accountID) {
+    long now = stamp();
+
+    // Snapshots older than the time to live expire anyway, so forget old changes.
+    changes.values().removeIf(changed -> now - changed >= ttl.toMillis());
+    changes.put(accountID, now);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("pucknotes.session.principals", hits, AtomicLong::get)
+      .tag("result", "hit")
+      .description("Session account snapshots checked")
+      .register(registry);
+
+    FunctionCounter.builder(
+      "pucknotes.session.principals",
+      misses,
+      AtomicLong::get
+    )
+      .tag("result", "miss")
+      .description("Session account snapshots checked")
+      .register(registry);
+
+    Gauge.builder("pucknotes.cache.hit.ratio", this, cache -> {
+      long hit = cache.hits.get();
+      long total = hit + cache.misses.get();
+      return total == 0 ? 0 : (double) hit / total;
+    })
+      .tag("cache", "session.principals")
+      .description("Share of lookups served from memory")
+      .register(registry);
+  }
+}
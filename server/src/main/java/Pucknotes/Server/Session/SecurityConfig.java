@@ -3,10 +3,12 @@ package Pucknotes.Server.Session;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -24,6 +26,9 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 @EnableWebSecurity
 public class SecurityConfig {
 
+  @Autowired
+  private SessionRegistry sessionRegistry;
+
   /**
    * Configures the security filter chain for the application.
    * This method sets up basic security features including:
@@ -34,6 +39,8 @@ public class SecurityConfig {
    *   documentation and webjars for front-end resources.
    * - Requiring all other requests to be authenticated.
    * - Managing user sessions to enforce a maximum of one session per user.
+   *   The sessions are counted by the registry from {@link SessionConfig}, so
+   *   the limit holds across every server instance.
    *
    * @param http The HttpSecurity object to be configured.
    * @return The configured SecurityFilterChain object.
@@ -62,7 +69,11 @@ public class SecurityConfig {
           .authenticated()
       )
       .sessionManagement(s ->
-        s.sessionFixation().newSession().maximumSessions(1)
+        s
+          .sessionFixation()
+          .newSession()
+          .maximumSessions(1)
+          .sessionRegistry(sessionRegistry)
       )
       .build();
   }
@@ -1,7 +1,20 @@
 package Pucknotes.Server.Session;
 
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
 import org.springframework.session.web.http.CookieSerializer;
 import org.springframework.session.web.http.DefaultCookieSerializer;
 
@@ -9,10 +22,86 @@ import org.springframework.session.web.http.DefaultCookieSerializer;
  * The SessionConfig class is responsible for configuring the session management
  * settings for the application. It uses Spring's configuration capabilities to
  * define beans that will be used throughout the application.
+ *
+ * Sessions are managed by Spring Session rather than the servlet container.
+ * By default they are stored in MongoDB (see {@link MongoSessionRepository}),
+ * so any server instance can serve any request. Setting
+ * "pucknotes.session.store" to "memory" keeps them in this instance's memory
+ * instead, which only suits a single instance.
  */
 @Configuration
+@EnableSpringHttpSession
 public class SessionConfig {
 
+  @Value("${server.servlet.session.timeout:PT30M}")
+  private Duration timeout;
+
+  /**
+   * Stores sessions in the "sessions" collection of the database.
+   *
+   * @param template The template used to access the database.
+   * @param nearCacheTtl How long a loaded session is reused without rereading it.
+   * @param nearCacheSize The most sessions kept in memory by this instance.
+   * @return The session repository.
+   */
+  @Bean
+  @ConditionalOnProperty(
+    name = "pucknotes.session.store",
+    havingValue = "mongo",
+    matchIfMissing = true
+  )
+  public MongoSessionRepository mongoSessionRepository(
+    MongoTemplate template,
+    @Value("${pucknotes.session.near-cache-ttl:PT5S}") Duration nearCacheTtl,
+    @Value("${pucknotes.session.near-cache-size:10000}") int nearCacheSize
+  ) {
+    return new MongoSessionRepository(
+      template,
+      timeout,
+      nearCacheTtl,
+      nearCacheSize
+    );
+  }
+
+  /**
+   * Stores sessions in this instance's memory.
+   *
+   * @return The session repository.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "pucknotes.session.store", havingValue = "memory")
+  public MapSessionRepository mapSessionRepository() {
+    MapSessionRepository repository = new MapSessionRepository(
+      new ConcurrentHashMap<>()
+    );
+    repository.setDefaultMaxInactiveInterval(timeout);
+    return repository;
+  }
+
+  /**
+   * Creates the registry Spring Security uses to limit the sessions of each
+   * user. With a shared session store, the registry reads the sessions of a
+   * user from the store, so the limit holds across every server instance.
+   *
+   * @param sessions The session repository.
+   * @return The session registry.
+   */
+  @Bean
+  public SessionRegistry sessionRegistry(
+    SessionRepository<? extends Session> sessions
+  ) {
+    if (sessions instanceof FindByIndexNameSessionRepository<?> indexed) {
+      return registry(indexed);
+    }
+    return new SessionRegistryImpl();
+  }
+
+  private static <S extends Session> SessionRegistry registry(
+    FindByIndexNameSessionRepository<S> sessions
+  ) {
+    return new SpringSessionBackedSessionRegistry<>(sessions);
+  }
+
   /**
    * This method creates a bean of type CookieSerializer.
    * It initializes the DefaultCookieSerializer with specific settings
@@ -0,0 +1,72 @@
+package Pucknotes.Server.Session;
+
+import Pucknotes.Server.Account.Account;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The SessionPrincipal class is an immutable snapshot of the account that is
+ * logged into a session. It holds just what request handlers need to know about
+ * the caller (their ID, role and username) and is stored in the session itself,
+ * so authenticated requests can identify the caller without loading the account.
+ *
+ * Snapshots are replaced when they expire or when the account changes; see
+ * {@link PrincipalCache}.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionPrincipal implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The ID of the logged-in account.
+   */
+  private final String id;
+
+  /**
+   * The role of the account when the snapshot was taken.
+   */
+  private final int role;
+
+  /**
+   * The username of the account when the snapshot was taken.
+   */
+  private final String username;
+
+  /**
+   * When the snapshot was taken, as stamped by {@link PrincipalCache#stamp()}.
+   */
+  private final long loadedAt;
+
+  /**
+   * Takes a snapshot of an account.
+   *
+   * @param account The account logged into the session.
+   * @param now The stamp of the snapshot, from {@link PrincipalCache#stamp()}.
+   * @return A snapshot of the account.
+   */
+  public static SessionPrincipal of(Account account, long now) {
+    return new SessionPrincipal(
+      account.getId(),
+      account.getRole(),
+      account.getUsername(),
+      now
+    );
+  }
+
+  /**
+   * Creates a detached Account holding this snapshot's ID, role and username.
+   * The email and password are not set.
+   *
+   * @return A new Account object describing the caller.
+   */
+  public Account toAccount() {
+    Account account = new Account();
+    account.setId(id);
+    account.setRole(role);
+    account.setUsername(username);
+    return account;
+  }
+}
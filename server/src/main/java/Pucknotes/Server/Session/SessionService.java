@@ -3,7 +3,9 @@ package Pucknotes.Server.Session;
 import Pucknotes.Server.Account.Account;
 import Pucknotes.Server.Account.AccountService;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -15,6 +17,7 @@ import org.springframework.stereotype.Service;
  * logged-in user based on the session information.
  */
 @Service
+@Timed("pucknotes.service")
 public class SessionService {
 
   @Autowired
@@ -23,6 +26,14 @@ public class SessionService {
   @Autowired
   private BCryptPasswordEncoder passwordEncoder;
 
+  @Autowired
+  private PrincipalCache principals;
+
+  /**
+   * The session attribute holding the snapshot of the logged-in account.
+   */
+  static final String PRINCIPAL = "principal";
+
   /**
    * Creates a user session by validating the provided email and password.
    * If the credentials are valid, the user ID is stored in the session.
@@ -38,6 +49,7 @@ public class SessionService {
     String email,
     String password
   ) {
+    long now = principals.stamp(); // Before the account is read.
     Account account = accountService.getByEmail(email);
 
     // Verify if the retrieved account exists. If it does not, an exception should be thrown.
@@ -52,8 +64,14 @@ public class SessionService {
       throw new IllegalArgumentException("Password and email do not match.");
     }
 
-    // Store the user's ID in the session upon successful authentication.
-    request.getSession().setAttribute("id", account.getId());
+    // Store the user's ID in the session upon successful authentication,
+    // along with a snapshot of the account for later requests.
+    HttpSession session = request.getSession();
+    session.setAttribute("id", account.getId());
+    session.setAttribute(
+      PRINCIPAL,
+      SessionPrincipal.of(account, now)
+    );
     return account.getId();
   }
 
@@ -81,16 +99,40 @@ public class SessionService {
    * Obtains the currently logged-in user based on the session information.
    * If the session does not correspond to an existing user, null is returned.
    *
+   * The user is described by the account snapshot stored in the session, so
+   * this normally makes no database request. The returned Account only holds the
+   * user's ID, role and username; load the account to read anything else.
+   *
    * @param request an HttpServletRequest object that contains the request the client made
    * @return an Account object representing the current user, or null if not found
    */
   public Account getCurrentUser(HttpServletRequest request) {
-    String id = getSession(request);
+    HttpSession session = request.getSession();
+    String id = (String) session.getAttribute("id");
+
+    Object cached = session.getAttribute(PRINCIPAL);
+    if (
+      cached instanceof SessionPrincipal principal &&
+      principal.getId().equals(id) &&
+      principals.isCurrent(principal)
+    ) {
+      return principal.toAccount();
+    }
+
+    // The snapshot is missing or out of date, so reload the account, stamping
+    // the new snapshot before the account is read.
+    long now = principals.stamp();
+    Account account;
     try {
-      return accountService.getById(id);
+      account = accountService.getById(id);
     } catch (ResourceNotFoundException error) {
       // If the user with the given ID cannot be found, return null.
+      session.removeAttribute(PRINCIPAL);
       return null;
     }
+
+    SessionPrincipal principal = SessionPrincipal.of(account, now);
+    session.setAttribute(PRINCIPAL, principal);
+    return principal.toAccount();
   }
 }
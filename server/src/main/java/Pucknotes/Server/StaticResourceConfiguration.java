@@ -6,6 +6,7 @@ import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
 
 @Configuration
 @EnableWebMvc
@@ -21,9 +22,15 @@ public class StaticResourceConfiguration implements WebMvcConfigurer {
   public void addResourceHandlers(ResourceHandlerRegistry registry) {
     registry
       .addResourceHandler("/favicon.ico", "/index.html")
-      .addResourceLocations("classpath:/public/");
+      .addResourceLocations("classpath:/public/")
+      .resourceChain(true)
+      .addResolver(new EncodedResourceResolver());
+    // The client build writes Brotli and gzip copies of its larger assets,
+    // which are sent instead to browsers that accept them.
     registry
       .addResourceHandler("/assets/**")
-      .addResourceLocations("classpath:/public/assets/");
+      .addResourceLocations("classpath:/public/assets/")
+      .resourceChain(true)
+      .addResolver(new EncodedResourceResolver());
   }
 }
@@ -0,0 +1,126 @@
+package Pucknotes.Server.Threading;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * The PinningMonitor class reports virtual threads that stay pinned to their
+ * carrier thread, which happens when a virtual thread blocks inside a
+ * synchronized block or a native call. A pinned virtual thread holds a carrier
+ * like a platform thread would, so pinning under load undoes the benefit of
+ * virtual threads.
+ *
+ * It listens to the JDK Flight Recorder "jdk.VirtualThreadPinned" event, and
+ * logs the first pin seen at each place in this application's code (or the top
+ * frame, if none of it is on the stack). Every pin is counted in the
+ * "pucknotes.threads.pinned" meter. The monitor only runs in the virtual
+ * thread execution mode.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinningMonitor implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    PinningMonitor.class
+  );
+
+  private static final String EVENT = "jdk.VirtualThreadPinned";
+
+  private static final String APPLICATION_PACKAGE = "Pucknotes.";
+
+  @Value("${pucknotes.threads.pinning-threshold:PT0.02S}")
+  private Duration threshold = Duration.ofMillis(20);
+
+  private final AtomicLong pinned = new AtomicLong();
+
+  /**
+   * The places already logged, so each is only reported once.
+   */
+  private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+  private RecordingStream stream;
+
+  /**
+   * Starts listening for pinned virtual threads.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    try {
+      stream = new RecordingStream();
+      stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+      stream.onEvent(EVENT, this::record);
+      stream.startAsync();
+    } catch (RuntimeException error) {
+      // Flight Recorder is not available in every runtime.
+      log.warn("Could not monitor virtual thread pinning: {}", error.getMessage());
+      stream = null;
+    }
+  }
+
+  private void record(RecordedEvent event) {
+    pinned.incrementAndGet();
+
+    String place = placeOf(event);
+    if (reported.add(place)) {
+      log.warn(
+        "A virtual thread was pinned to its carrier for {} ms at {}.",
+        event.getDuration().toMillis(),
+        place
+      );
+    }
+  }
+
+  /**
+   * Names the innermost frame of this application's code on the pinned stack.
+   */
+  private static String placeOf(RecordedEvent event) {
+    if (event.getStackTrace() == null) return "an unknown place";
+
+    List<RecordedFrame> frames = event.getStackTrace().getFrames();
+    for (RecordedFrame frame : frames) {
+      String type = frame.getMethod().getType().getName();
+      if (type.startsWith(APPLICATION_PACKAGE)) return describe(frame);
+    }
+    return frames.isEmpty() ? "an unknown place" : describe(frames.get(0));
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return (
+      frame.getMethod().getType().getName() +
+      "." +
+      frame.getMethod().getName() +
+      ":" +
+      frame.getLineNumber()
+    );
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (stream != null) stream.close();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("pucknotes.threads.pinned", pinned, AtomicLong::get)
+      .description("Virtual threads pinned to their carrier for too long")
+      .register(registry);
+  }
+}
@@ -0,0 +1,34 @@
+package Pucknotes.Server.Threading;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The VirtualThreadConfig class completes the virtual thread execution mode,
+ * enabled by setting "spring.threads.virtual.enabled" to true on Java 21 or
+ * newer.
+ *
+ * In that mode Spring Boot already runs Tomcat's request handling, the
+ * application task executor (used by @Async methods) and scheduled tasks on
+ * virtual threads. Since this application configures Spring MVC itself
+ * (@EnableWebMvc), asynchronous responses such as streamed GridFS downloads
+ * are moved to virtual threads here, so a slow download no longer holds a
+ * platform thread.
+ *
+ * In the default platform thread mode, none of this applies.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-");
+    executor.setVirtualThreads(true);
+    configurer.setTaskExecutor(executor);
+  }
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -33,5 +34,6 @@ public class Verification {
   private Account details;
 
   @Setter // Allows setting the token field from outside the class
+  @Indexed(unique = true)
   private String token = UUID.randomUUID().toString(); // Automatically generates a new UUID token upon creation
 }
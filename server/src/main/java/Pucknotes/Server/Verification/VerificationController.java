@@ -46,8 +46,8 @@ public class VerificationController {
     Account account = new Account(email, username, password);
     // Initiate verification process for the created account.
     Verification verify = service.createVerification(account);
-    // Send a verification email to the user.
-    service.sendEmail(verify.getId());
+    // Queue a verification email to the user.
+    service.sendEmail(verify);
 
     // Return a successful response containing the verification ID.
     return ResponseEntity.ok(APIResponse.good(verify.getId()));
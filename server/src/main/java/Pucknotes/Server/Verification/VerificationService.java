@@ -2,12 +2,13 @@ package Pucknotes.Server.Verification;
 
 import Pucknotes.Server.Account.Account;
 import Pucknotes.Server.Account.AccountService;
+import Pucknotes.Server.Mail.MailDispatcher;
 import Pucknotes.Server.Response.Types.ResourceConflictException;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -20,8 +21,12 @@ import org.springframework.web.util.UriComponentsBuilder;
 @AllArgsConstructor
 public class VerificationService {
 
+  private static final Logger log = LoggerFactory.getLogger(
+    VerificationService.class
+  );
+
   @Autowired
-  private JavaMailSender mailer;
+  private MailDispatcher mailer;
 
   @Autowired
   private VerificationRepository repository;
@@ -57,6 +62,8 @@ public class VerificationService {
 
   /**
    * Sends a verification email to the specified recipient with the provided token.
+   * The email is queued in the mail outbox and sent in the background, so this
+   * does not wait for the mail server.
    *
    * @param recipient The email address to which the verification email will be sent.
    * @param token The verification token to include in the email.
@@ -69,18 +76,15 @@ public class VerificationService {
       .queryParam("token", token)
       .toUriString();
 
-    // Create a simple mail message object.
-    SimpleMailMessage message = new SimpleMailMessage();
-    message.setTo(recipient);
-    message.setSubject("Email Verification");
-    message.setText("Verify your account by clicking on this link: " + link);
-
-    // Log the details of the email being sent for debugging purposes.
-    System.out.println("Sending email to: " + recipient);
-    System.out.println("Verification link: " + link);
+    // Log the recipient only, since the link holds the secret token.
+    log.debug("Queueing a verification email to {}.", recipient);
 
-    // Send the email using the mailer service.
-    mailer.send(message);
+    // Queue the email for the background dispatcher.
+    mailer.queue(
+      recipient,
+      "Email Verification",
+      "Verify your account by clicking on this link: " + link
+    );
   }
 
   /**
@@ -90,9 +94,16 @@ public class VerificationService {
    */
   public void sendEmail(String id) {
     // Retrieve the verification instance by its ID.
-    Verification verify = getById(id);
+    sendEmail(getById(id));
+  }
 
-    // Send the verification email using the retrieved verification details.
+  /**
+   * Sends a verification email to the account linked with the specified verification.
+   *
+   * @param verify The verification instance.
+   */
+  public void sendEmail(Verification verify) {
+    // Send the verification email using the verification details.
     sendVerify(verify.getDetails().getEmail(), verify.getToken());
   }
 
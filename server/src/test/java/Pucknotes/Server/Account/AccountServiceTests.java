@@ -14,6 +14,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import Pucknotes.Server.Response.Types.ResourceConflictException;
 import Pucknotes.Server.Response.Types.ResourceNotFoundException;
 import Pucknotes.Server.Response.Types.UnauthorizedException;
+import Pucknotes.Server.Session.PrincipalCache;
 
 class AccountServiceTest {
 
@@ -23,6 +24,9 @@ class AccountServiceTest {
   @Mock
   private PasswordEncoder encoder;
 
+  @Mock
+  private PrincipalCache principals;
+
   @InjectMocks
   private AccountService accountService;
 
@@ -0,0 +1,50 @@
+package Pucknotes.Server.Benchmark;
+
+import Pucknotes.Server.ServerApplication;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The BenchmarkApplication class starts the whole application against a
+ * {@link LocalMongo} database, on a random port, without the settings that
+ * only make sense in a real deployment (such as mail credentials).
+ */
+public class BenchmarkApplication {
+
+  private static final String[] DEFAULTS = {
+    "--server.port=0",
+    "--management.server.port=0",
+    "--spring.mail.host=localhost",
+    "--spring.mail.username=bench",
+    "--spring.mail.password=bench",
+    "--spring.main.banner-mode=off",
+    "--logging.level.root=WARN",
+    "--pucknotes.indexes.verify=false",
+    "--pucknotes.likes.migrate=false",
+  };
+
+  /**
+   * Starts the application.
+   *
+   * @param mongo The database to run against, already seeded.
+   * @param properties Further "--name=value" properties, overriding the defaults.
+   * @return The running application.
+   */
+  public static ConfigurableApplicationContext run(
+    LocalMongo mongo,
+    String... properties
+  ) {
+    List<String> args = new ArrayList<>(Arrays.asList(DEFAULTS));
+    args.addAll(Arrays.asList(mongo.properties()));
+    args.addAll(Arrays.asList(properties));
+
+    return new SpringApplicationBuilder(ServerApplication.class)
+      .web(WebApplicationType.SERVLET)
+      .logStartupInfo(false)
+      .run(args.toArray(String[]::new));
+  }
+}
@@ -0,0 +1,105 @@
+package Pucknotes.Server.Benchmark;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * The LocalMongo class provides the MongoDB server that benchmarks and load
+ * tests run against, with a fresh database filled with {@link SyntheticData}.
+ *
+ * By default an embedded MongoDB server is started (and downloaded on the first
+ * run). Set PUCKNOTES_BENCH_MONGO_URI to use a running server instead, such as
+ * the one from compose.dev.yml; the "pucknotes-bench" database (or the one
+ * named in the URI) is dropped and seeded again every time. Tests that need a
+ * real server but not the generated data use {@link #connect()} instead.
+ */
+public class LocalMongo implements AutoCloseable {
+
+  private static final String DATABASE = "pucknotes-bench";
+
+  private final TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+  private final String uri;
+  private final String database;
+
+  private LocalMongo(
+    TransitionWalker.ReachedState<RunningMongodProcess> mongod,
+    String uri
+  ) {
+    this.mongod = mongod;
+    this.uri = uri;
+
+    String named = new ConnectionString(uri).getDatabase();
+    this.database = named != null ? named : DATABASE;
+  }
+
+  /**
+   * Connects to PUCKNOTES_BENCH_MONGO_URI, or starts an embedded server.
+   *
+   * @return The running server.
+   */
+  public static LocalMongo start() {
+    String uri = System.getenv("PUCKNOTES_BENCH_MONGO_URI");
+    if (uri != null && !uri.isBlank()) {
+      return new LocalMongo(null, uri);
+    }
+
+    TransitionWalker.ReachedState<RunningMongodProcess> mongod =
+      Mongod.instance().start(Version.Main.V7_0);
+    ServerAddress address = mongod.current().getServerAddress();
+    return new LocalMongo(
+      mongod,
+      "mongodb://" + address.getHost() + ":" + address.getPort()
+    );
+  }
+
+  /**
+   * Drops the database and fills it with generated data.
+   *
+   * @return The generated data, to pick requests from.
+   */
+  public SyntheticData seed() {
+    try (MongoClient client = connect()) {
+      MongoTemplate template = new MongoTemplate(client, database);
+      template.getDb().drop();
+      return SyntheticData.seed(template);
+    }
+  }
+
+  /**
+   * Connects to the database, without seeding it.
+   *
+   * @return A client, to be closed by the caller.
+   */
+  public MongoClient connect() {
+    return MongoClients.create(uri);
+  }
+
+  /**
+   * @return The name of the database used on the server.
+   */
+  public String database() {
+    return database;
+  }
+
+  /**
+   * @return The arguments pointing the application at the database.
+   */
+  public String[] properties() {
+    return new String[] {
+      "--spring.data.mongodb.uri=" + uri,
+      "--spring.data.mongodb.database=" + database,
+    };
+  }
+
+  @Override
+  public void close() {
+    if (mongod != null) mongod.close();
+  }
+}
@@ -0,0 +1,303 @@
+package Pucknotes.Server.Benchmark;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Comment.Comment;
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Major.Major;
+import Pucknotes.Server.Note.Note;
+import Pucknotes.Server.School.School;
+import Pucknotes.Server.Section.Section;
+import Pucknotes.Server.Semester.Semester;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * The SyntheticData class fills an empty database with a generated catalog
+ * (schools, majors, courses and sections), accounts, files, notes and comments,
+ * shaped like a small university: every section has the same number of notes,
+ * most of them with an attached file, and likes follow a long tail so a few
+ * notes are much more popular than the rest. Every account can log in with
+ * {@link #PASSWORD}.
+ *
+ * The data is generated from a fixed seed, so every run benchmarks the same
+ * database. The number of notes per section can be scaled with the
+ * "pucknotes.bench.scale" system property.
+ */
+@Getter
+public class SyntheticData {
+
+  static final int SCHOOLS = 2;
+  static final int MAJORS_PER_SCHOOL = 6;
+  static final int COURSES_PER_MAJOR = 10;
+  static final int SECTIONS_PER_COURSE = 2;
+  static final int NOTES_PER_SECTION = 25;
+  static final int COMMENTS_PER_NOTE = 5;
+  static final int ACCOUNTS = 500;
+  static final int FILES = 20;
+
+  /**
+   * The password of every generated account.
+   */
+  public static final String PASSWORD = "benchmark";
+
+  private static final String[] SEASONS = { "Spring", "Fall" };
+
+  private static final String[] WORDS = {
+    "algebra", "calculus", "derivatives", "integrals", "matrices", "vectors",
+    "probability", "statistics", "recursion", "graphs", "sorting", "hashing",
+    "thermodynamics", "kinematics", "optics", "circuits", "genetics", "cells",
+    "enzymes", "ecology", "markets", "inflation", "contracts", "ethics",
+    "midterm", "final", "review", "lecture", "lab", "summary", "cheatsheet",
+  };
+
+  private static final String[] TAGS = {
+    "exam", "lecture", "homework", "lab", "review", "summary", "solutions",
+  };
+
+  private final List<Semester> semesters = new ArrayList<>();
+  private final List<School> schools = new ArrayList<>();
+  private final List<Major> majors = new ArrayList<>();
+  private final List<Course> courses = new ArrayList<>();
+  private final List<Section> sections = new ArrayList<>();
+  private final List<Account> accounts = new ArrayList<>();
+  private final List<String> files = new ArrayList<>();
+  private final List<Note> notes = new ArrayList<>();
+  private int comments;
+
+  @Getter(AccessLevel.NONE)
+  private final Random random;
+
+  private SyntheticData(Random random) {
+    this.random = random;
+  }
+
+  /**
+   * Generates the data set and inserts it into the database.
+   *
+   * @param template The template of the (empty) benchmark database.
+   * @return The generated data, to pick benchmark arguments from.
+   */
+  public static SyntheticData seed(MongoTemplate template) {
+    SyntheticData data = new SyntheticData(new Random(42));
+    int scale = Integer.getInteger("pucknotes.bench.scale", 1);
+
+    data.catalog();
+    data.accounts();
+    data.files(
+      new GridFsTemplate(
+        template.getMongoDatabaseFactory(),
+        template.getConverter()
+      )
+    );
+    data.notes(NOTES_PER_SECTION * scale);
+
+    template.insertAll(data.semesters);
+    template.insertAll(data.schools);
+    template.insertAll(data.majors);
+    template.insertAll(data.courses);
+    template.insertAll(data.sections);
+    template.insertAll(data.accounts);
+    template.insertAll(data.notes);
+
+    // Comments are not kept in memory, only their count.
+    for (Note note : data.notes) {
+      template.insertAll(data.comments(note));
+    }
+    return data;
+  }
+
+  private void catalog() {
+    for (int year = 2024; year <= 2025; year++) {
+      for (String season : SEASONS) {
+        semesters.add(new Semester(id(), season, year, season + " " + year));
+      }
+    }
+
+    for (int s = 0; s < SCHOOLS; s++) {
+      School school = new School(id(), "School " + s, pick(semesters).getId());
+      schools.add(school);
+
+      for (int m = 0; m < MAJORS_PER_SCHOOL; m++) {
+        String code = "M" + s + m;
+        Major major = new Major(
+          id(),
+          code,
+          "Major " + code,
+          school.getId(),
+          school.getSemester()
+        );
+        majors.add(major);
+
+        for (int c = 0; c < COURSES_PER_MAJOR; c++) {
+          Course course = new Course(
+            id(),
+            major.getId(),
+            school.getId(),
+            pick(semesters).getId(),
+            code + "-" + (100 + c),
+            "Course " + code + "-" + (100 + c)
+          );
+          courses.add(course);
+
+          for (int n = 0; n < SECTIONS_PER_COURSE; n++) {
+            sections.add(
+              new Section(
+                id(),
+                course.getId(),
+                major.getId(),
+                school.getId(),
+                course.getSemester(),
+                List.of("Professor " + random.nextInt(100)),
+                String.valueOf(n + 1)
+              )
+            );
+          }
+        }
+      }
+    }
+  }
+
+  private void accounts() {
+    // Hashing is slow on purpose, so every account shares the same hash.
+    String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+
+    for (int i = 0; i < ACCOUNTS; i++) {
+      Account account = new Account(
+        "student" + i + "@bench.pucknotes",
+        "student" + i,
+        hash
+      );
+      account.setId(id());
+      accounts.add(account);
+    }
+  }
+
+  /**
+   * Stores files of 32 KiB to 2 MiB, the range of scanned pages and slides.
+   */
+  private void files(GridFsTemplate gridFs) {
+    for (int i = 0; i < FILES; i++) {
+      byte[] content = new byte[(32 << 10) + random.nextInt(2 << 20)];
+      random.nextBytes(content);
+
+      DBObject metadata = new BasicDBObject();
+      metadata.put("fileSize", content.length);
+      ObjectId id = gridFs.store(
+        new ByteArrayInputStream(content),
+        "notes-" + i + ".pdf",
+        "application/pdf",
+        metadata
+      );
+      files.add(id.toHexString());
+    }
+  }
+
+  private void notes(int perSection) {
+    long now = System.currentTimeMillis();
+
+    for (Section section : sections) {
+      for (int i = 0; i < perSection; i++) {
+        boolean hasFile = random.nextInt(10) != 0;
+        notes.add(
+          new Note(
+            id(),
+            words(4),
+            words(30),
+            pick(accounts).getId(),
+            hasFile ? pick(files) : null,
+            hasFile ? null : "https://example.com/notes",
+            List.of(pick(TAGS), pick(TAGS)),
+            section.getId(),
+            section.getCourse(),
+            section.getMajor(),
+            section.getSchool(),
+            section.getSemester(),
+            new Date(now - random.nextInt(365 * 24 * 60) * 60_000L),
+            null,
+            0,
+            // A long tail: most notes have a few likes, some have many.
+            (long) (Math.pow(random.nextDouble(), 4) * 200),
+            random.nextInt(10) == 0
+          )
+        );
+      }
+    }
+  }
+
+  private List<Comment> comments(Note note) {
+    List<Comment> result = new ArrayList<>(COMMENTS_PER_NOTE);
+    for (int i = 0; i < COMMENTS_PER_NOTE; i++) {
+      Comment comment = new Comment(
+        pick(accounts).getId(),
+        note.getId(),
+        words(12)
+      );
+      comment.setCreatedDate(note.getCreatedDate());
+      comment.setTotalLikes(random.nextInt(20));
+      result.add(comment);
+    }
+    comments += result.size();
+    return result;
+  }
+
+  private String words(int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) text.append(' ');
+      text.append(pick(WORDS));
+    }
+    return text.toString();
+  }
+
+  private <T> T pick(List<T> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+
+  private String pick(String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static String id() {
+    return new ObjectId().toHexString();
+  }
+
+  /**
+   * Picks a random element, to vary the arguments between invocations.
+   *
+   * @param values The values to pick from.
+   * @return One of the values.
+   */
+  public static <T> T any(List<T> values) {
+    return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+  }
+
+  /**
+   * Picks a random search word that appears in note titles and descriptions.
+   *
+   * @return A word to search for.
+   */
+  public static String anyWord() {
+    return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+  }
+
+  /**
+   * Picks a random tag used by the notes.
+   *
+   * @return A tag to filter by.
+   */
+  public static String anyTag() {
+    return TAGS[ThreadLocalRandom.current().nextInt(TAGS.length)];
+  }
+}
@@ -0,0 +1,62 @@
+package Pucknotes.Server.Database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class CatalogValidatorTest {
+
+  @Mock
+  private TaxonomyCache taxonomy;
+
+  @InjectMocks
+  private CatalogValidator validator;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(taxonomy.generation()).thenReturn("0123456789abcdef");
+  }
+
+  @Test
+  void preHandle_ShouldTagResponse_WhenClientHasNoCopy() {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/course"
+    );
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertTrue(validator.preHandle(request, response, null));
+    assertEquals(200, response.getStatus());
+    assertEquals("W/\"catalog-0123456789abcdef\"", response.getHeader("ETag"));
+    assertEquals("no-cache", response.getHeader("Cache-Control"));
+  }
+
+  @Test
+  void preHandle_ShouldAnswerNotModified_WhenClientCopyIsCurrent() {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/course"
+    );
+    request.addHeader("If-None-Match", "W/\"catalog-0123456789abcdef\"");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertFalse(validator.preHandle(request, response, null));
+    assertEquals(304, response.getStatus());
+
+    // A copy of an older catalog is sent again.
+    request = new MockHttpServletRequest("GET", "/api/course");
+    request.addHeader("If-None-Match", "W/\"catalog-fedcba9876543210\"");
+    response = new MockHttpServletResponse();
+
+    assertTrue(validator.preHandle(request, response, null));
+    assertEquals(200, response.getStatus());
+  }
+}
@@ -0,0 +1,33 @@
+package Pucknotes.Server.Database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class IndexManagerTest {
+
+  @Test
+  void stages_ShouldFindNestedStages() {
+    Document plan = Document.parse(
+      "{ stage: 'SORT', inputStage: { stage: 'FETCH', inputStage: { stage: 'COLLSCAN' } } }"
+    );
+
+    assertEquals(List.of("SORT", "FETCH", "COLLSCAN"), IndexManager.stages(plan));
+  }
+
+  @Test
+  void stages_ShouldFindStagesInsideOrBranches() {
+    Document plan = Document.parse(
+      "{ stage: 'OR', inputStages: [ { stage: 'IXSCAN' }, { stage: 'COLLSCAN' } ] }"
+    );
+
+    assertEquals(List.of("OR", "IXSCAN", "COLLSCAN"), IndexManager.stages(plan));
+  }
+
+  @Test
+  void stages_ShouldReturnEmpty_WhenPlanIsMissing() {
+    assertEquals(List.of(), IndexManager.stages(null));
+  }
+}
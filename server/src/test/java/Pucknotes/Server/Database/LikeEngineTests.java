@@ -0,0 +1,185 @@
+package Pucknotes.Server.Database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Comment.Comment;
+import Pucknotes.Server.Note.Note;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+class LikeEngineTest {
+
+  @Mock
+  private MongoTemplate template;
+
+  @InjectMocks
+  private LikeEngine engine;
+
+  private final String noteID = new ObjectId().toHexString();
+  private final String userID = new ObjectId().toHexString();
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void like_ShouldInsertEdgeAndIncrementTotal() {
+    assertTrue(engine.like(Note.class, noteID, userID));
+
+    ArgumentCaptor<Like> like = ArgumentCaptor.forClass(Like.class);
+    verify(template).insert(like.capture());
+    assertEquals(noteID, like.getValue().getItem());
+    assertEquals(userID, like.getValue().getAccount());
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(
+      any(Query.class),
+      update.capture(),
+      eq(Note.class)
+    );
+    assertEquals(
+      new Document("totalLikes", 1).append("version", 1),
+      update.getValue().getUpdateObject().get("$inc")
+    );
+  }
+
+  @Test
+  void like_ShouldOnlyCount_WhenDocumentIsNotVersioned() {
+    assertTrue(engine.like(Comment.class, noteID, userID));
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(
+      any(Query.class),
+      update.capture(),
+      eq(Comment.class)
+    );
+    assertEquals(
+      new Document("$inc", new Document("totalLikes", 1)),
+      update.getValue().getUpdateObject()
+    );
+  }
+
+  @Test
+  void like_ShouldNotCountTwice_WhenAlreadyLiked() {
+    when(template.insert(any(Like.class))).thenThrow(
+      new DuplicateKeyException("duplicate")
+    );
+
+    assertFalse(engine.like(Note.class, noteID, userID));
+    verify(template, never()).updateFirst(
+      any(Query.class),
+      any(Update.class),
+      eq(Note.class)
+    );
+  }
+
+  @Test
+  void unlike_ShouldDecrementOnlyWhenEdgeRemoved() {
+    when(template.remove(any(Query.class), eq(Like.class))).thenReturn(
+      DeleteResult.acknowledged(0)
+    );
+    assertFalse(engine.unlike(Note.class, noteID, userID));
+    verify(template, never()).updateFirst(
+      any(Query.class),
+      any(Update.class),
+      eq(Note.class)
+    );
+
+    when(template.remove(any(Query.class), eq(Like.class))).thenReturn(
+      DeleteResult.acknowledged(1)
+    );
+    assertTrue(engine.unlike(Note.class, noteID, userID));
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(
+      any(Query.class),
+      update.capture(),
+      eq(Note.class)
+    );
+    assertEquals(
+      new Document("totalLikes", -1).append("version", 1),
+      update.getValue().getUpdateObject().get("$inc")
+    );
+  }
+
+  @Test
+  void like_ShouldTakeBackLike_WhenCountingFails() {
+    when(
+      template.updateFirst(any(Query.class), any(Update.class), eq(Note.class))
+    ).thenThrow(new DataAccessResourceFailureException("down"));
+
+    assertThrows(DataAccessResourceFailureException.class, () ->
+      engine.like(Note.class, noteID, userID)
+    );
+    verify(template).insert(any(Like.class));
+    verify(template).remove(any(Query.class), eq(Like.class));
+  }
+
+  @Test
+  void unlike_ShouldRestoreLike_WhenCountingFails() {
+    when(template.remove(any(Query.class), eq(Like.class))).thenReturn(
+      DeleteResult.acknowledged(1)
+    );
+    when(
+      template.updateFirst(any(Query.class), any(Update.class), eq(Note.class))
+    ).thenThrow(new DataAccessResourceFailureException("down"));
+
+    assertThrows(DataAccessResourceFailureException.class, () ->
+      engine.unlike(Note.class, noteID, userID)
+    );
+
+    ArgumentCaptor<Like> like = ArgumentCaptor.forClass(Like.class);
+    verify(template).insert(like.capture());
+    assertEquals(userID, like.getValue().getAccount());
+  }
+
+  @Test
+  void recount_ShouldSetTotalFromLikes() {
+    when(template.count(any(Query.class), eq(Like.class))).thenReturn(7L);
+
+    assertEquals(7, engine.recount(Comment.class, noteID));
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(
+      any(Query.class),
+      update.capture(),
+      eq(Comment.class)
+    );
+    assertEquals(
+      new Document("$set", new Document("totalLikes", 7L)),
+      update.getValue().getUpdateObject()
+    );
+  }
+
+  @Test
+  void hasLiked_ShouldLookUpEdge() {
+    when(template.exists(any(Query.class), eq(Like.class))).thenReturn(true);
+
+    assertTrue(engine.hasLiked(noteID, userID));
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(template).exists(query.capture(), eq(Like.class));
+    assertEquals(
+      new Document("item", new ObjectId(noteID)).append(
+        "account",
+        new ObjectId(userID)
+      ),
+      query.getValue().getQueryObject()
+    );
+  }
+}
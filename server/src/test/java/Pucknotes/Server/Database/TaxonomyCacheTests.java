@@ -0,0 +1,135 @@
+package Pucknotes.Server.Database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Major.Major;
+import Pucknotes.Server.School.School;
+import Pucknotes.Server.Section.Section;
+import Pucknotes.Server.Semester.Semester;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+class TaxonomyCacheTest {
+
+  @Mock
+  private MongoTemplate template;
+
+  @InjectMocks
+  private TaxonomyCache cache;
+
+  private final String schoolID = new ObjectId().toHexString();
+  private final String semesterID = new ObjectId().toHexString();
+
+  private final Major csci = new Major(
+    new ObjectId().toHexString(),
+    "CSCI",
+    "Computer Science",
+    schoolID,
+    semesterID
+  );
+  private final Major math = new Major(
+    new ObjectId().toHexString(),
+    "MATH",
+    "Mathematics",
+    schoolID,
+    semesterID
+  );
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(template.findAll(School.class)).thenReturn(List.of());
+    when(template.findAll(Major.class)).thenReturn(List.of(math, csci));
+    when(template.findAll(Course.class)).thenReturn(List.of());
+    when(template.findAll(Section.class)).thenReturn(List.of());
+    when(template.findAll(Semester.class)).thenReturn(List.of());
+  }
+
+  @Test
+  void lookups_ShouldBeServedFromMemory_AfterFirstLoad() {
+    assertSame(csci, cache.majors().get(csci.getId()));
+    assertSame(csci, cache.majors().find("code", "CSCI"));
+    assertEquals(
+      List.of(math, csci),
+      cache.majors().children("school", schoolID)
+    );
+
+    verify(template, times(1)).findAll(Major.class);
+    verify(template, never()).findOne(any(Query.class), eq(Major.class));
+  }
+
+  @Test
+  void find_ShouldReadThroughAndReload_WhenDatabaseHasNewItem() {
+    Major phys = new Major(
+      new ObjectId().toHexString(),
+      "PHYS",
+      "Physics",
+      schoolID,
+      semesterID
+    );
+    when(template.findOne(any(Query.class), eq(Major.class))).thenReturn(phys);
+
+    assertSame(phys, cache.majors().find("code", "PHYS"));
+
+    // The next access reloads the catalog, which now contains the new major.
+    when(template.findAll(Major.class)).thenReturn(List.of(math, csci, phys));
+    assertSame(phys, cache.majors().peek("code", "PHYS"));
+    verify(template, times(2)).findAll(Major.class);
+  }
+
+  @Test
+  void generation_ShouldChangeOnlyWhenCatalogChanges() {
+    String generation = cache.generation();
+
+    cache.refresh();
+    assertEquals(generation, cache.generation());
+
+    Major phys = new Major(
+      new ObjectId().toHexString(),
+      "PHYS",
+      "Physics",
+      schoolID,
+      semesterID
+    );
+    when(template.findAll(Major.class)).thenReturn(List.of(math, csci, phys));
+    cache.refresh();
+    assertNotEquals(generation, cache.generation());
+  }
+
+  @Test
+  void get_ShouldNotQuery_WhenIdIsMalformed() {
+    assertNull(cache.majors().get("not-an-id"));
+
+    verify(template, never()).findOne(any(Query.class), eq(Major.class));
+  }
+
+  @Test
+  void matchingAndSorted_ShouldMirrorMongoQueries() {
+    List<Major> result = TaxonomyCache.matching(
+      cache.majors().all(),
+      Major::getName,
+      "sci"
+    );
+    assertEquals(List.of(csci), result);
+
+    assertEquals(
+      List.of(csci, math),
+      TaxonomyCache.sorted(
+        cache.majors().all(),
+        Major::getName,
+        Sort.Direction.ASC
+      )
+    );
+  }
+}
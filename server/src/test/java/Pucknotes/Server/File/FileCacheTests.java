@@ -0,0 +1,239 @@
+package Pucknotes.Server.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+class FileCacheTest {
+
+  @Mock
+  private GridFsOperations operations;
+
+  @Spy
+  private GridFsMetrics metrics = new GridFsMetrics();
+
+  @InjectMocks
+  private FileCache cache;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(cache, "heapMaxFile", DataSize.ofBytes(8));
+    ReflectionTestUtils.setField(cache, "directory", directory.toString());
+    cache.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    cache.shutdown();
+  }
+
+  @Test
+  void get_ShouldServeSmallFileFromHeap_AfterSecondMiss() throws Exception {
+    GridFSFile file = stored("tiny");
+
+    assertNull(cache.get(id(file)));
+    cache.offer(file, MediaType.TEXT_PLAIN);
+    assertNull(cache.get(id(file)));
+    cache.offer(file, MediaType.TEXT_PLAIN);
+
+    File cached = awaitCached(id(file));
+    assertEquals(
+      "tiny",
+      new String(cached.getContent().getContentAsByteArray())
+    );
+    assertEquals(MediaType.TEXT_PLAIN, cached.getFileType());
+    assertFalse(FileCache.sendfile(sendfileRequest(), cached));
+    verify(operations, times(1)).getResource(file);
+  }
+
+  @Test
+  void get_ShouldServeLargeFileFromDisk_AndHandItToContainer()
+    throws Exception {
+    GridFSFile file = stored("lecture slides");
+    cache.offer(file, MediaType.APPLICATION_PDF);
+    cache.offer(file, MediaType.APPLICATION_PDF);
+
+    File cached = awaitCached(id(file));
+    assertInstanceOf(CachedFileResource.class, cached.getContent());
+    assertEquals(
+      "lecture slides",
+      new String(cached.getContent().getContentAsByteArray())
+    );
+
+    MockHttpServletRequest request = sendfileRequest();
+    assertTrue(FileCache.sendfile(request, cached));
+    assertEquals(
+      ((CachedFileResource) cached.getContent()).getPath().toString(),
+      request.getAttribute("org.apache.tomcat.sendfile.filename")
+    );
+    assertEquals(14L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+  }
+
+  @Test
+  void invalidate_ShouldDropCachedFile() throws Exception {
+    GridFSFile file = stored("tiny");
+    cache.offer(file, MediaType.TEXT_PLAIN);
+    cache.offer(file, MediaType.TEXT_PLAIN);
+    awaitCached(id(file));
+
+    cache.invalidate(id(file));
+
+    assertNull(cache.get(id(file)));
+  }
+
+  @Test
+  void invalidate_ShouldDiscardCopyBeingMade() throws Exception {
+    GridFSFile file = stored("lecture slides");
+    GridFsResource resource = operations.getResource(file);
+    when(resource.getInputStream()).then(invocation -> {
+      cache.invalidate(id(file)); // Deleted while it is being copied.
+      return new ByteArrayInputStream("lecture slides".getBytes());
+    });
+
+    cache.offer(file, MediaType.APPLICATION_PDF);
+    cache.offer(file, MediaType.APPLICATION_PDF);
+    ExecutorService worker = (ExecutorService) ReflectionTestUtils.getField(
+      cache,
+      "worker"
+    );
+    worker.shutdown();
+    assertTrue(worker.awaitTermination(2, TimeUnit.SECONDS));
+
+    assertNull(cache.get(id(file)));
+    Path root = (Path) ReflectionTestUtils.getField(cache, "root");
+    try (Stream<Path> copies = Files.list(root)) {
+      assertEquals(List.of(".lock"), names(copies));
+    }
+  }
+
+  @Test
+  void start_ShouldOnlyRemoveDirectoriesOfStoppedCaches() throws Exception {
+    Path other = directory.resolve("report.pdf");
+    Files.writeString(other, "not a cached copy");
+
+    // A cache that stopped without cleaning up, and one that is running.
+    Path abandoned = Files.createDirectory(
+      directory.resolve("pucknotes-files-1")
+    );
+    Files.createFile(abandoned.resolve(".lock"));
+    Files.writeString(abandoned.resolve("copy-1"), "stale");
+    FileCache running = new FileCache();
+    ReflectionTestUtils.setField(running, "directory", directory.toString());
+    running.start();
+
+    cache.shutdown();
+    cache.start();
+
+    assertTrue(Files.exists(other));
+    assertFalse(Files.exists(abandoned));
+    Path live = (Path) ReflectionTestUtils.getField(running, "root");
+    assertTrue(Files.exists(live));
+    running.shutdown();
+    assertFalse(Files.exists(live));
+  }
+
+  private static List<String> names(Stream<Path> paths) {
+    return paths.map(path -> path.getFileName().toString()).toList();
+  }
+
+  @Test
+  void bindTo_ShouldReportHitRatio() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    cache.bindTo(registry);
+
+    GridFSFile file = stored("tiny");
+    cache.get(id(file));
+    cache.offer(file, MediaType.TEXT_PLAIN);
+    cache.get(id(file));
+    cache.offer(file, MediaType.TEXT_PLAIN);
+    awaitCached(id(file));
+
+    assertTrue(
+      registry
+        .get("pucknotes.cache.hit.ratio")
+        .tag("cache", "files")
+        .gauge()
+        .value() >
+      0
+    );
+    assertEquals(
+      4,
+      registry
+        .get("pucknotes.files.cache.size")
+        .tag("tier", "heap")
+        .gauge()
+        .value()
+    );
+  }
+
+  private GridFSFile stored(String content) throws Exception {
+    GridFSFile file = new GridFSFile(
+      new BsonObjectId(new ObjectId()),
+      "notes.txt",
+      content.length(),
+      255 * 1024,
+      new Date(),
+      new Document()
+    );
+
+    GridFsResource resource = mock(GridFsResource.class);
+    when(operations.getResource(file)).thenReturn(resource);
+    when(resource.getInputStream()).then(invocation ->
+      new ByteArrayInputStream(content.getBytes())
+    );
+    return file;
+  }
+
+  private static String id(GridFSFile file) {
+    return file.getObjectId().toHexString();
+  }
+
+  /**
+   * Waits for the background copy of a file to be cached.
+   */
+  private File awaitCached(String id) throws InterruptedException {
+    for (int i = 0; i < 200; i++) {
+      File cached = cache.get(id);
+      if (cached != null) return cached;
+      Thread.sleep(10);
+    }
+    throw new AssertionError("The file was never cached.");
+  }
+
+  private static MockHttpServletRequest sendfileRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+    return request;
+  }
+}
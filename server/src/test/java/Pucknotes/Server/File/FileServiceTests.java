@@ -0,0 +1,276 @@
+package Pucknotes.Server.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.DBObject;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.stream.Stream;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+class FileServiceTest {
+
+  @Mock
+  private GridFsTemplate template;
+
+  @Mock
+  private GridFsOperations operations;
+
+  @Mock
+  private MongoTemplate mongo;
+
+  @Spy
+  private GridFsMetrics metrics = new GridFsMetrics();
+
+  @Mock
+  private FileCache cache;
+
+  @InjectMocks
+  private FileService fileService;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void downloadFile_ShouldThrowException_WhenFileDoesNotExist() {
+    when(template.findOne(any(Query.class))).thenReturn(null);
+
+    assertThrows(ResourceNotFoundException.class, () ->
+      fileService.downloadFile(new ObjectId().toHexString())
+    );
+  }
+
+  @Test
+  void downloadFile_ShouldThrowException_WhenIdIsInvalid() {
+    assertThrows(ResourceNotFoundException.class, () ->
+      fileService.downloadFile("not-an-id")
+    );
+    verify(template, never()).findOne(any(Query.class));
+  }
+
+  @Test
+  void downloadFile_ShouldStreamContent_WithoutReadingIt() throws Exception {
+    ObjectId id = new ObjectId();
+    Date uploaded = new Date();
+    GridFSFile stored = new GridFSFile(
+      new BsonObjectId(id),
+      "notes.pdf",
+      5,
+      255 * 1024,
+      uploaded,
+      new Document("_contentType", "application/pdf")
+    );
+
+    GridFsResource resource = mock(GridFsResource.class);
+    when(template.findOne(any(Query.class))).thenReturn(stored);
+    when(operations.getResource(stored)).thenReturn(resource);
+    when(resource.getInputStream()).then(invocation ->
+      new ByteArrayInputStream("hello".getBytes())
+    );
+
+    File file = fileService.downloadFile(id.toHexString());
+
+    assertEquals(MediaType.APPLICATION_PDF, file.getFileType());
+    assertEquals(5, file.getContent().contentLength());
+    assertEquals(uploaded, file.getUploadDate());
+    verify(operations, never()).getResource(any(GridFSFile.class));
+
+    // Each read opens its own stream, so several ranges can be served.
+    assertEquals("hello", new String(file.getContent().getInputStream().readAllBytes()));
+    assertEquals("hello", new String(file.getContent().getInputStream().readAllBytes()));
+
+    // The bytes read are counted.
+    verify(metrics, atLeastOnce()).read(5);
+  }
+
+  @Test
+  void addFile_ShouldReuseStoredFile_WhenContentMatches() throws Exception {
+    ObjectId stored = new ObjectId();
+    when(
+      mongo.findAndModify(
+        any(Query.class),
+        any(Update.class),
+        eq(Document.class),
+        eq(FileService.FILES_COLLECTION)
+      )
+    ).thenReturn(new Document("_id", stored));
+
+    ObjectId id = fileService.addFile(
+      new MockMultipartFile("file", "slides.pdf", "application/pdf", SLIDES)
+    );
+
+    assertEquals(stored, id);
+    verify(template, never()).store(
+      any(InputStream.class),
+      anyString(),
+      anyString(),
+      any(DBObject.class)
+    );
+    verify(metrics).deduplicated(SLIDES.length);
+  }
+
+  @Test
+  void addFile_ShouldStoreHashAndReference_WhenContentIsNew() throws Exception {
+    ObjectId stored = new ObjectId();
+    when(
+      template.store(
+        any(InputStream.class),
+        anyString(),
+        anyString(),
+        any(DBObject.class)
+      )
+    ).thenReturn(stored);
+
+    ObjectId id = fileService.addFile(
+      new MockMultipartFile("file", "slides.pdf", "application/pdf", SLIDES)
+    );
+
+    ArgumentCaptor<DBObject> metadata = ArgumentCaptor.forClass(DBObject.class);
+    verify(template).store(
+      any(InputStream.class),
+      eq("slides.pdf"),
+      eq("application/pdf"),
+      metadata.capture()
+    );
+    assertEquals(stored, id);
+    assertEquals(
+      FileService.hash(new ByteArrayInputStream(SLIDES)),
+      metadata.getValue().get("sha256")
+    );
+    assertEquals(1, metadata.getValue().get("refs"));
+  }
+
+  @Test
+  void hash_ShouldBeSha256OfContent() throws Exception {
+    assertEquals(
+      "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+      FileService.hash(new ByteArrayInputStream("hello".getBytes()))
+    );
+  }
+
+  @Test
+  void releaseFile_ShouldKeepFile_WhileOtherNotesReferenceIt() {
+    when(
+      mongo.findAndModify(
+        any(Query.class),
+        any(Update.class),
+        any(FindAndModifyOptions.class),
+        eq(Document.class),
+        eq(FileService.FILES_COLLECTION)
+      )
+    ).thenReturn(new Document("metadata", new Document("refs", 1)));
+
+    fileService.releaseFile(new ObjectId().toHexString());
+
+    verify(template, never()).delete(any(Query.class));
+  }
+
+  @Test
+  void releaseFile_ShouldDeleteFile_WhenLastReferenceIsReleased() {
+    when(
+      mongo.findAndModify(
+        any(Query.class),
+        any(Update.class),
+        any(FindAndModifyOptions.class),
+        eq(Document.class),
+        eq(FileService.FILES_COLLECTION)
+      )
+    ).thenReturn(new Document("metadata", new Document("refs", 0)));
+
+    fileService.releaseFile(new ObjectId().toHexString());
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(template).delete(query.capture());
+    assertTrue(query.getValue().getQueryObject().containsKey(FileService.REFS));
+  }
+
+  @Test
+  void releaseFile_ShouldIgnoreNotesWithoutFile() {
+    fileService.releaseFile(null);
+
+    verifyNoInteractions(mongo, template);
+  }
+
+  private static final byte[] SLIDES = "week 5 slides".getBytes();
+
+  @Test
+  void assemble_ShouldCreateFileFromChunks_WithoutCopyingThem() {
+    ObjectId id = new ObjectId();
+    when(
+      mongo.stream(
+        any(Query.class),
+        eq(Document.class),
+        eq(FileService.CHUNKS_COLLECTION)
+      )
+    ).thenReturn(
+      Stream.of(
+        new Document("n", 0).append("data", new Binary("hel".getBytes())),
+        new Document("n", 1).append("data", new Binary("lo".getBytes()))
+      )
+    );
+
+    assertEquals(id, fileService.assemble(id, "a.txt", "text/plain", 5, 3));
+
+    ArgumentCaptor<Document> file = ArgumentCaptor.forClass(Document.class);
+    verify(mongo).insert(file.capture(), eq(FileService.FILES_COLLECTION));
+    assertEquals(id, file.getValue().get("_id"));
+    assertEquals(3, file.getValue().get("chunkSize"));
+    assertEquals(
+      "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+      file.getValue().get("metadata", Document.class).get("sha256")
+    );
+    verify(template, never()).store(
+      any(InputStream.class),
+      anyString(),
+      anyString(),
+      any(DBObject.class)
+    );
+  }
+
+  @Test
+  void assemble_ShouldReject_WhenChunkIsMissing() {
+    when(
+      mongo.stream(
+        any(Query.class),
+        eq(Document.class),
+        eq(FileService.CHUNKS_COLLECTION)
+      )
+    ).thenReturn(
+      Stream.of(
+        new Document("n", 0).append("data", new Binary("hel".getBytes())),
+        new Document("n", 2).append("data", new Binary("lo".getBytes()))
+      )
+    );
+
+    assertThrows(IllegalArgumentException.class, () ->
+      fileService.assemble(new ObjectId(), "a.txt", null, 8, 3)
+    );
+    verify(mongo, never()).insert(any(Document.class), anyString());
+  }
+}
@@ -0,0 +1,105 @@
+package Pucknotes.Server.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Note.Note;
+import com.mongodb.client.result.UpdateResult;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class OrphanFileCollectorTest {
+
+  @Mock
+  private MongoTemplate mongo;
+
+  @Mock
+  private GridFsTemplate template;
+
+  @Spy
+  private GridFsMetrics metrics = new GridFsMetrics();
+
+  @Mock
+  private FileCache cache;
+
+  @InjectMocks
+  private OrphanFileCollector collector;
+
+  private final ObjectId referenced = new ObjectId();
+  private final ObjectId orphan = new ObjectId();
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(collector, "deleteRate", 0);
+
+    when(
+      mongo.find(
+        any(Query.class),
+        eq(Document.class),
+        eq(FileService.FILES_COLLECTION)
+      )
+    ).thenReturn(
+      List.of(
+        new Document("_id", referenced).append("length", 100L),
+        new Document("_id", orphan).append("length", 250L)
+      )
+    );
+    when(
+      mongo.findDistinct(
+        any(Query.class),
+        eq("file"),
+        eq(Note.class),
+        eq(ObjectId.class)
+      )
+    ).thenReturn(List.of(referenced));
+  }
+
+  @Test
+  void collect_ShouldDeleteOnlyUnreferencedFiles() {
+    when(
+      mongo.updateFirst(
+        any(Query.class),
+        any(Update.class),
+        eq(FileService.FILES_COLLECTION)
+      )
+    ).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    assertEquals(250, collector.collect());
+
+    ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+    verify(template).delete(deleted.capture());
+    assertEquals(orphan, deleted.getValue().getQueryObject().get("_id"));
+    verify(metrics).reclaimed(250);
+  }
+
+  @Test
+  void collect_ShouldKeepFile_WhenAnUploadReusedIt() {
+    when(
+      mongo.updateFirst(
+        any(Query.class),
+        any(Update.class),
+        eq(FileService.FILES_COLLECTION)
+      )
+    ).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+    assertEquals(0, collector.collect());
+
+    verify(template, never()).delete(any(Query.class));
+    verify(metrics, never()).reclaimed(anyLong());
+  }
+}
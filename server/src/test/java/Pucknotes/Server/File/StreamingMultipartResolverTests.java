@@ -0,0 +1,27 @@
+package Pucknotes.Server.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class StreamingMultipartResolverTest {
+
+  private final StreamingMultipartResolver resolver =
+    new StreamingMultipartResolver();
+
+  @Test
+  void isMultipart_ShouldLeaveStreamedRoutesAlone() {
+    assertFalse(resolver.isMultipart(multipart("POST", "/api/note")));
+    assertFalse(resolver.isMultipart(multipart("PUT", "/api/note/123")));
+
+    assertTrue(resolver.isMultipart(multipart("POST", "/api/account")));
+    assertTrue(resolver.isMultipart(multipart("POST", "/api/note/123/like")));
+  }
+
+  private static MockHttpServletRequest multipart(String method, String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+    request.setContentType("multipart/form-data; boundary=x");
+    return request;
+  }
+}
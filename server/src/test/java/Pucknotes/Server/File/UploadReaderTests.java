@@ -0,0 +1,139 @@
+package Pucknotes.Server.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+class UploadReaderTest {
+
+  private static final String BOUNDARY = "----boundary";
+
+  @Mock
+  private FileService files;
+
+  @InjectMocks
+  private UploadReader reader;
+
+  private final ObjectId stored = new ObjectId();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    MockitoAnnotations.openMocks(this);
+
+    // Read the whole upload, as storing it in GridFS would.
+    when(
+      files.addFile(any(InputStream.class), anyString(), any())
+    ).thenAnswer(invocation -> {
+      invocation.getArgument(0, InputStream.class).readAllBytes();
+      return stored;
+    });
+  }
+
+  @Test
+  void read_ShouldStreamFileAndCollectFields() throws Exception {
+    MockHttpServletRequest request = multipart(
+      "PUT",
+      field("title", "Week 1") +
+      file("notes.pdf", "lecture slides") +
+      field("sectionID", "abc") +
+      field("tags", "exam, midterm,")
+    );
+    request.setQueryString("anonymous=true&description=a%20b");
+
+    Upload upload = reader.read(request);
+
+    assertEquals(stored, upload.getFile());
+    assertEquals("Week 1", upload.get("title"));
+    assertEquals("abc", upload.require("sectionID"));
+    assertEquals(List.of("exam", "midterm"), upload.getList("tags"));
+    assertEquals("true", upload.get("anonymous"));
+    assertEquals("a b", upload.get("description"));
+    assertFalse(upload.has("link"));
+    assertThrows(IllegalArgumentException.class, () -> upload.require("link"));
+    verify(files).addFile(
+      any(InputStream.class),
+      eq("notes.pdf"),
+      eq("application/pdf")
+    );
+  }
+
+  @Test
+  void read_ShouldSkipEmptyFilePart() throws Exception {
+    Upload upload = reader.read(
+      multipart("POST", field("title", "Week 1") + file("", ""))
+    );
+
+    assertNull(upload.getFile());
+    verify(files, never()).addFile(any(InputStream.class), any(), any());
+  }
+
+  @Test
+  void read_ShouldRejectOversizedFile() throws Exception {
+    ReflectionTestUtils.setField(reader, "maxFileSize", DataSize.ofBytes(4));
+
+    assertThrows(MaxUploadSizeExceededException.class, () ->
+      reader.read(multipart("POST", file("notes.pdf", "lecture slides")))
+    );
+  }
+
+  @Test
+  void read_ShouldReleaseFile_WhenRequestIsRejected() throws Exception {
+    assertThrows(IllegalArgumentException.class, () ->
+      reader.read(
+        multipart("POST", file("a.pdf", "first") + file("b.pdf", "second"))
+      )
+    );
+
+    verify(files).releaseFile(stored.toHexString());
+  }
+
+  private static MockHttpServletRequest multipart(String method, String parts) {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      method,
+      "/api/note"
+    );
+    request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+    request.setContent(
+      (parts + "--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8)
+    );
+    return request;
+  }
+
+  private static String field(String name, String value) {
+    return (
+      "--" +
+      BOUNDARY +
+      "\r\nContent-Disposition: form-data; name=\"" +
+      name +
+      "\"\r\n\r\n" +
+      value +
+      "\r\n"
+    );
+  }
+
+  private static String file(String filename, String content) {
+    return (
+      "--" +
+      BOUNDARY +
+      "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"" +
+      filename +
+      "\"\r\nContent-Type: application/pdf\r\n\r\n" +
+      content +
+      "\r\n"
+    );
+  }
+}
@@ -0,0 +1,204 @@
+package Pucknotes.Server.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.File.UploadSession.ChunkRange;
+import Pucknotes.Server.Response.Types.ResourceConflictException;
+import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import Pucknotes.Server.Response.Types.UnauthorizedException;
+import com.mongodb.client.result.UpdateResult;
+import java.io.ByteArrayInputStream;
+import java.util.Date;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class UploadSessionServiceTest {
+
+  @Mock
+  private MongoTemplate template;
+
+  @Mock
+  private FileService files;
+
+  @InjectMocks
+  private UploadSessionService uploads;
+
+  private Account owner;
+  private UploadSession session;
+  private ObjectId file;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+
+    owner = new Account("student@rpi.edu", "student", "hash");
+    ReflectionTestUtils.setField(owner, "id", "owner");
+
+    // A 10 byte file sent in chunks of 4 bytes: 4, 4 and 2.
+    file = new ObjectId();
+    session = new UploadSession(
+      "owner",
+      "lecture.mp4",
+      "video/mp4",
+      10,
+      4,
+      new Date(System.currentTimeMillis() + 60_000)
+    );
+    ReflectionTestUtils.setField(session, "id", file.toHexString());
+    when(
+      template.findById(file.toHexString(), UploadSession.class)
+    ).thenReturn(session);
+    when(
+      template.updateFirst(
+        any(Query.class),
+        any(Update.class),
+        eq(UploadSession.class)
+      )
+    ).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+  }
+
+  @Test
+  void writeChunk_ShouldStoreChunk_WhenSizeMatches() throws Exception {
+    uploads.writeChunk(
+      owner,
+      file.toHexString(),
+      2,
+      new ByteArrayInputStream(new byte[] { 1, 2 })
+    );
+
+    verify(files).writeChunk(file, 2, new byte[] { 1, 2 });
+  }
+
+  @Test
+  void writeChunk_ShouldReject_WhenSizeOrNumberIsWrong() {
+    assertThrows(IllegalArgumentException.class, () ->
+      uploads.writeChunk(
+        owner,
+        file.toHexString(),
+        0,
+        new ByteArrayInputStream(new byte[5])
+      )
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+      uploads.writeChunk(
+        owner,
+        file.toHexString(),
+        3,
+        new ByteArrayInputStream(new byte[2])
+      )
+    );
+    verify(files, never()).writeChunk(any(), anyInt(), any());
+  }
+
+  @Test
+  void writeChunk_ShouldReject_WhenUploadBelongsToSomeoneElse() {
+    Account other = new Account("other@rpi.edu", "other", "hash");
+    ReflectionTestUtils.setField(other, "id", "other");
+
+    assertThrows(UnauthorizedException.class, () ->
+      uploads.writeChunk(
+        other,
+        file.toHexString(),
+        0,
+        new ByteArrayInputStream(new byte[4])
+      )
+    );
+  }
+
+  @Test
+  void writeChunk_ShouldNotStore_WhenUploadWasClosedMeanwhile()
+    throws Exception {
+    when(
+      template.updateFirst(
+        any(Query.class),
+        any(Update.class),
+        eq(UploadSession.class)
+      )
+    ).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+    assertThrows(ResourceNotFoundException.class, () ->
+      uploads.writeChunk(
+        owner,
+        file.toHexString(),
+        2,
+        new ByteArrayInputStream(new byte[] { 1, 2 })
+      )
+    );
+    verify(files, never()).writeChunk(any(), anyInt(), any());
+  }
+
+  @Test
+  void complete_ShouldReject_WhenChunksAreStillBeingWritten() {
+    when(
+      template.updateFirst(
+        any(Query.class),
+        any(Update.class),
+        eq(UploadSession.class)
+      )
+    ).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+    assertThrows(ResourceConflictException.class, () ->
+      uploads.complete(owner, file.toHexString())
+    );
+    assertThrows(ResourceConflictException.class, () ->
+      uploads.cancel(owner, file.toHexString())
+    );
+    verify(files, never()).writtenChunks(any());
+    verify(files, never()).discardChunks(any());
+  }
+
+  @Test
+  void complete_ShouldReject_WhenChunksAreMissing() {
+    when(files.writtenChunks(file)).thenReturn(List.of(0, 2));
+
+    assertThrows(IllegalArgumentException.class, () ->
+      uploads.complete(owner, file.toHexString())
+    );
+    verify(files, never()).assemble(any(), any(), any(), anyLong(), anyInt());
+  }
+
+  @Test
+  void complete_ShouldAssembleChunksAndCloseSession() {
+    when(files.writtenChunks(file)).thenReturn(List.of(0, 1, 2));
+    when(
+      files.assemble(file, "lecture.mp4", "video/mp4", 10, 4)
+    ).thenReturn(file);
+
+    assertEquals(file, uploads.complete(owner, file.toHexString()));
+  }
+
+  @Test
+  void removeExpired_ShouldDiscardChunksOfExpiredSessions() {
+    when(
+      template.find(any(Query.class), eq(UploadSession.class))
+    ).thenReturn(List.of(session));
+    when(
+      template.findAndRemove(any(Query.class), eq(UploadSession.class))
+    ).thenReturn(session);
+
+    uploads.removeExpired();
+
+    verify(files).discardChunks(file);
+  }
+
+  @Test
+  void ranges_ShouldGroupConsecutiveChunks() {
+    assertEquals(
+      List.of(new ChunkRange(0, 2), new ChunkRange(5, 5), new ChunkRange(7, 8)),
+      UploadSessionService.ranges(List.of(0, 1, 2, 5, 7, 8))
+    );
+    assertEquals(List.of(), UploadSessionService.ranges(List.of()));
+  }
+}
@@ -0,0 +1,61 @@
+package Pucknotes.Server.Load;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import Pucknotes.Server.Benchmark.BenchmarkApplication;
+import Pucknotes.Server.Benchmark.LocalMongo;
+import Pucknotes.Server.Benchmark.SyntheticData;
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the whole application against a seeded local database, and plays exam
+ * week traffic against it: students browsing the notes of a few busy courses,
+ * reading comments, downloading files, liking and commenting.
+ *
+ * Run with "mvn test -Dtest=ExamWeekLoadTest -Dload=true", tuned with the
+ * "load.*" properties described in {@link LoadProfile}, e.g.
+ * "-Dload.users=200 -Dload.think-time=PT0.5S". The run prints the latency
+ * percentiles, throughput and error rate of every endpoint, and fails if more
+ * requests failed than "load.max-error-rate" allows.
+ */
+@EnabledIfSystemProperty(named = "load", matches = "true")
+class ExamWeekLoadTest {
+
+  @Test
+  void examWeek() throws Exception {
+    LoadProfile profile = LoadProfile.fromSystemProperties();
+
+    try (LocalMongo mongo = LocalMongo.start()) {
+      SyntheticData data = mongo.seed();
+
+      try (
+        ConfigurableApplicationContext context = BenchmarkApplication.run(mongo)
+      ) {
+        int port = context
+          .getEnvironment()
+          .getRequiredProperty("local.server.port", Integer.class);
+
+        LoadReport report = new LoadDriver(
+          URI.create("http://localhost:" + port),
+          profile,
+          data
+        ).run();
+
+        System.out.printf(
+          "%d users, %s think time, measured over %s:%n%s",
+          profile.getUsers(),
+          profile.getThinkTime(),
+          profile.getDuration(),
+          report.format()
+        );
+        assertTrue(
+          report.errorRate() <= profile.getMaxErrorRate(),
+          "Error rate " + report.errorRate() + " is above the limit."
+        );
+      }
+    }
+  }
+}
@@ -0,0 +1,310 @@
+package Pucknotes.Server.Load;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Benchmark.SyntheticData;
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Load.LoadProfile.Action;
+import Pucknotes.Server.Note.Note;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * The LoadDriver class plays a {@link LoadProfile} against a running server:
+ * every simulated student logs in with their own account, then repeatedly
+ * pauses and performs an action picked from the traffic mix, until the run is
+ * over. Each student waits for a response before thinking about the next
+ * request, as a person in a browser does.
+ *
+ * Students arrive evenly over the ramp-up; only requests started after it are
+ * measured. Courses are picked with the exam-week skew of the profile, and notes
+ * from the picked course.
+ */
+public class LoadDriver {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final URI base;
+  private final LoadProfile profile;
+  private final SyntheticData data;
+  private final HttpClient client;
+
+  private final List<Course> courses;
+  private final Map<String, List<Note>> notesByCourse;
+
+  /**
+   * Creates a driver.
+   *
+   * @param base The address of the server, such as "http://localhost:8080".
+   * @param profile The load to generate.
+   * @param data The data the server's database was seeded with.
+   */
+  public LoadDriver(URI base, LoadProfile profile, SyntheticData data) {
+    this.base = base;
+    this.profile = profile;
+    this.data = data;
+    this.client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(TIMEOUT)
+      .build();
+
+    this.notesByCourse = data
+      .getNotes()
+      .stream()
+      .collect(Collectors.groupingBy(Note::getCourse));
+    this.courses = data
+      .getCourses()
+      .stream()
+      .filter(course -> notesByCourse.containsKey(course.getId()))
+      .toList();
+
+    if (profile.getUsers() > data.getAccounts().size()) {
+      throw new IllegalArgumentException(
+        "There are only " +
+        data.getAccounts().size() +
+        " accounts to log in with."
+      );
+    }
+  }
+
+  /**
+   * Runs the load test and waits for it to finish.
+   *
+   * @return The latencies and errors measured per endpoint.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public LoadReport run() throws InterruptedException {
+    LoadReport report = new LoadReport(profile.getDuration());
+
+    long start = System.nanoTime();
+    long measureFrom = start + profile.getRampUp().toNanos();
+    long end = measureFrom + profile.getDuration().toNanos();
+
+    List<Thread> users = new ArrayList<>();
+    for (int i = 0; i < profile.getUsers(); i++) {
+      Account account = data.getAccounts().get(i);
+      long arrival =
+        start + (profile.getRampUp().toNanos() * i) / profile.getUsers();
+
+      Thread user = new Thread(
+        () -> new Student(account, report, measureFrom, end).run(arrival),
+        "load-user-" + i
+      );
+      user.setDaemon(true);
+      users.add(user);
+      user.start();
+    }
+
+    for (Thread user : users) {
+      user.join();
+    }
+    return report;
+  }
+
+  /**
+   * A simulated student, with their own session.
+   */
+  private class Student {
+
+    private final Account account;
+    private final LoadReport report;
+    private final long measureFrom;
+    private final long end;
+    private String cookie;
+
+    Student(Account account, LoadReport report, long measureFrom, long end) {
+      this.account = account;
+      this.report = report;
+      this.measureFrom = measureFrom;
+      this.end = end;
+    }
+
+    void run(long arrival) {
+      try {
+        sleepUntil(arrival);
+        login();
+
+        while (System.nanoTime() < end) {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          Thread.sleep(profile.thinkMillis(random.nextDouble()));
+          if (System.nanoTime() >= end) break;
+
+          perform(profile.pick(random.nextDouble()));
+        }
+      } catch (InterruptedException error) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void login() throws InterruptedException {
+      HttpResponse<Void> response = send(
+        Action.LOGIN,
+        post(
+          "/api/session",
+          Map.of(
+            "email",
+            account.getEmail(),
+            "password",
+            SyntheticData.PASSWORD
+          )
+        )
+      );
+
+      if (response != null) {
+        // Keep the session cookie, dropping its attributes.
+        cookie = response
+          .headers()
+          .allValues("Set-Cookie")
+          .stream()
+          .map(value -> value.split(";", 2)[0])
+          .collect(Collectors.joining("; "));
+      }
+    }
+
+    private void perform(Action action) throws InterruptedException {
+      Course course = course();
+      Note note = SyntheticData.any(notesByCourse.get(course.getId()));
+
+      switch (action) {
+        case BROWSE:
+          send(
+            action,
+            get(
+              "/api/note?courseID=" +
+              course.getId() +
+              "&sort=likes&order=desc&return=object&limit=20"
+            )
+          );
+          break;
+        case COMMENTS:
+          send(
+            action,
+            get("/api/comment?noteID=" + note.getId() + "&return=object")
+          );
+          break;
+        case DOWNLOAD:
+          Note download = withFile(course, note);
+          send(action, get("/api/note/" + download.getId() + "/file"));
+          break;
+        case LIKE:
+          send(
+            action,
+            request("/api/note/" + note.getId() + "/like")
+              .PUT(HttpRequest.BodyPublishers.noBody())
+              .build()
+          );
+          break;
+        case COMMENT:
+          send(
+            action,
+            post(
+              "/api/comment",
+              Map.of("noteID", note.getId(), "body", "Thanks, this helped!")
+            )
+          );
+          break;
+        default:
+          throw new IllegalStateException("Unexpected action: " + action);
+      }
+    }
+
+    /**
+     * Picks a course, favoring the hot ones.
+     */
+    private Course course() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int hot = Math.max(
+        1,
+        (int) Math.ceil(courses.size() * profile.getHotCourses())
+      );
+      int bound = random.nextDouble() < profile.getHotTraffic()
+        ? hot
+        : courses.size();
+      return courses.get(random.nextInt(bound));
+    }
+
+    /**
+     * Picks a note with a file, from the same course when possible.
+     */
+    private Note withFile(Course course, Note note) {
+      List<Note> notes = notesByCourse.get(course.getId());
+      for (int i = 0; note.getFile() == null && i < notes.size(); i++) {
+        note = notes.get(i);
+      }
+      return note;
+    }
+
+    private HttpRequest get(String path) {
+      return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, Map<String, String> form) {
+      String body = form
+        .entrySet()
+        .stream()
+        .map(field ->
+          field.getKey() +
+          "=" +
+          URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8)
+        )
+        .collect(Collectors.joining("&"));
+
+      return request(path)
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+      HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(path))
+        .timeout(TIMEOUT);
+      if (cookie != null && !cookie.isEmpty()) {
+        builder.header("Cookie", cookie);
+      }
+      return builder;
+    }
+
+    /**
+     * Sends a request and reads its whole response, recording how long it took
+     * if it started within the measured window.
+     *
+     * @return The response, or null if the request failed to complete.
+     */
+    private HttpResponse<Void> send(Action action, HttpRequest request)
+      throws InterruptedException {
+      long started = System.nanoTime();
+      HttpResponse<Void> response;
+      try {
+        response = client.send(request, HttpResponse.BodyHandlers.discarding());
+      } catch (IOException error) {
+        response = null;
+      }
+
+      if (started >= measureFrom) {
+        boolean ok =
+          response != null &&
+          response.statusCode() >= 200 &&
+          response.statusCode() < 300;
+        report.record(action.getEndpoint(), System.nanoTime() - started, ok);
+      }
+      return response;
+    }
+  }
+
+  private static void sleepUntil(long nanos) throws InterruptedException {
+    long wait = nanos - System.nanoTime();
+    if (wait > 0) {
+      Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+    }
+  }
+}
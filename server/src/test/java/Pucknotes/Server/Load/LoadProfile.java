@@ -0,0 +1,185 @@
+package Pucknotes.Server.Load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * The LoadProfile class describes a load test: how many students use the site
+ * at once, for how long, how long they pause between requests, and what they
+ * do. Each setting is read from a system property, so a run can be tuned from
+ * the command line:
+ *
+ * - "load.users": the number of concurrent students (50).
+ * - "load.duration": how long the load is measured (PT1M).
+ * - "load.ramp-up": how long it takes for every student to arrive (PT10S);
+ *   requests made meanwhile are not measured.
+ * - "load.think-time": the mean pause between two requests of a student (PT2S),
+ *   drawn from an exponential distribution; PT0S sends requests back to back.
+ * - "load.mix": the relative weights of the {@link Action actions}, such as
+ *   "browse=45,comments=20,download=25,like=7,comment=3".
+ * - "load.hot-courses" and "load.hot-traffic": the share of courses that gets
+ *   the given share of the traffic (0.1 and 0.8), as in exam week, when a few
+ *   large courses have their exams at once.
+ * - "load.max-error-rate": the share of failed requests above which the run
+ *   fails (0.01).
+ */
+@Getter
+public class LoadProfile {
+
+  /**
+   * Something a student does on the site, with the endpoint it requests.
+   */
+  public enum Action {
+    LOGIN("POST /api/session"),
+    BROWSE("GET /api/note"),
+    COMMENTS("GET /api/comment"),
+    DOWNLOAD("GET /api/note/{id}/file"),
+    LIKE("PUT /api/note/{id}/like"),
+    COMMENT("POST /api/comment");
+
+    @Getter
+    private final String endpoint;
+
+    Action(String endpoint) {
+      this.endpoint = endpoint;
+    }
+  }
+
+  static final String DEFAULT_MIX =
+    "browse=45,comments=20,download=25,like=7,comment=3";
+
+  private final int users;
+  private final Duration duration;
+  private final Duration rampUp;
+  private final Duration thinkTime;
+  private final Map<Action, Integer> mix;
+  private final double hotCourses;
+  private final double hotTraffic;
+  private final double maxErrorRate;
+
+  private final int totalWeight;
+
+  LoadProfile(
+    int users,
+    Duration duration,
+    Duration rampUp,
+    Duration thinkTime,
+    Map<Action, Integer> mix,
+    double hotCourses,
+    double hotTraffic,
+    double maxErrorRate
+  ) {
+    if (users < 1) {
+      throw new IllegalArgumentException("A load test needs at least one user.");
+    }
+    if (hotCourses <= 0 || hotCourses > 1 || hotTraffic < 0 || hotTraffic > 1) {
+      throw new IllegalArgumentException(
+        "The hot course and traffic shares must be between 0 and 1."
+      );
+    }
+
+    this.users = users;
+    this.duration = duration;
+    this.rampUp = rampUp;
+    this.thinkTime = thinkTime;
+    this.mix = mix;
+    this.hotCourses = hotCourses;
+    this.hotTraffic = hotTraffic;
+    this.maxErrorRate = maxErrorRate;
+    this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+    if (totalWeight <= 0) {
+      throw new IllegalArgumentException("The traffic mix has no actions.");
+    }
+  }
+
+  /**
+   * Reads the profile from the "load.*" system properties.
+   *
+   * @return The profile, with defaults for the properties that are not set.
+   */
+  public static LoadProfile fromSystemProperties() {
+    return new LoadProfile(
+      Integer.getInteger("load.users", 50),
+      Duration.parse(System.getProperty("load.duration", "PT1M")),
+      Duration.parse(System.getProperty("load.ramp-up", "PT10S")),
+      Duration.parse(System.getProperty("load.think-time", "PT2S")),
+      parseMix(System.getProperty("load.mix", DEFAULT_MIX)),
+      Double.parseDouble(System.getProperty("load.hot-courses", "0.1")),
+      Double.parseDouble(System.getProperty("load.hot-traffic", "0.8")),
+      Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"))
+    );
+  }
+
+  /**
+   * Parses a traffic mix such as "browse=45,download=25".
+   *
+   * @param mix The comma separated action weights.
+   * @return The weight of each action.
+   * @throws IllegalArgumentException if an action or weight is not valid.
+   */
+  static Map<Action, Integer> parseMix(String mix) {
+    Map<Action, Integer> weights = new EnumMap<>(Action.class);
+
+    for (String entry : mix.split(",")) {
+      if (entry.isBlank()) continue;
+
+      String[] parts = entry.split("=", 2);
+      Action action;
+      try {
+        action = Action.valueOf(parts[0].trim().toUpperCase());
+      } catch (IllegalArgumentException error) {
+        throw new IllegalArgumentException(
+          "Unknown action in load.mix: " + parts[0].trim()
+        );
+      }
+      if (action == Action.LOGIN) {
+        throw new IllegalArgumentException(
+          "Logging in happens once per user and cannot be part of load.mix."
+        );
+      }
+
+      int weight;
+      try {
+        weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : -1;
+      } catch (NumberFormatException error) {
+        weight = -1;
+      }
+      if (weight < 0) {
+        throw new IllegalArgumentException(
+          "Invalid weight in load.mix: " + entry.trim()
+        );
+      }
+      weights.put(action, weight);
+    }
+    return weights;
+  }
+
+  /**
+   * Picks an action according to the traffic mix.
+   *
+   * @param random A number between 0 (inclusive) and 1 (exclusive).
+   * @return The action.
+   */
+  public Action pick(double random) {
+    int target = (int) (random * totalWeight);
+    for (Map.Entry<Action, Integer> entry : mix.entrySet()) {
+      target -= entry.getValue();
+      if (target < 0) return entry.getKey();
+    }
+    throw new IllegalStateException("The traffic mix has no actions.");
+  }
+
+  /**
+   * Draws the pause before a student's next request.
+   *
+   * @param random A number between 0 (inclusive) and 1 (exclusive).
+   * @return The pause in milliseconds, at most ten times the mean.
+   */
+  public long thinkMillis(double random) {
+    double mean = thinkTime.toMillis();
+    return (long) Math.min(-mean * Math.log(1 - random), mean * 10);
+  }
+}
@@ -0,0 +1,174 @@
+package Pucknotes.Server.Load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The LoadReport class collects the outcome of every measured request of a
+ * load test, and summarizes it per endpoint: the number of requests, the
+ * errors, the throughput, and the 50th, 95th and 99th percentile latencies.
+ *
+ * Latencies are kept exactly rather than in a histogram, as even a long run
+ * only makes a few hundred thousand requests.
+ */
+public class LoadReport {
+
+  private final Map<String, Endpoint> endpoints = new TreeMap<>();
+  private final Duration window;
+
+  /**
+   * Creates an empty report.
+   *
+   * @param window The time over which requests are measured.
+   */
+  public LoadReport(Duration window) {
+    this.window = window;
+  }
+
+  /**
+   * Records a request.
+   *
+   * @param endpoint The endpoint requested.
+   * @param nanos How long the request took, until its response was read.
+   * @param ok Whether the request succeeded.
+   */
+  public void record(String endpoint, long nanos, boolean ok) {
+    Endpoint stats;
+    synchronized (endpoints) {
+      stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+    }
+    stats.add(nanos, ok);
+  }
+
+  /**
+   * @return The share of all measured requests that failed.
+   */
+  public double errorRate() {
+    long requests = 0;
+    long errors = 0;
+    synchronized (endpoints) {
+      for (Endpoint stats : endpoints.values()) {
+        synchronized (stats) {
+          requests += stats.count;
+          errors += stats.errors;
+        }
+      }
+    }
+    return requests == 0 ? 0 : (double) errors / requests;
+  }
+
+  /**
+   * Summarizes the statistics of an endpoint.
+   *
+   * @param endpoint The endpoint.
+   * @return The summary, or null if the endpoint was never requested.
+   */
+  public Summary summary(String endpoint) {
+    Endpoint stats;
+    synchronized (endpoints) {
+      stats = endpoints.get(endpoint);
+    }
+    return stats != null ? stats.summarize(window) : null;
+  }
+
+  /**
+   * Formats the report as a table, with a row per endpoint.
+   *
+   * @return The table.
+   */
+  public String format() {
+    StringBuilder table = new StringBuilder();
+    table.append(
+      String.format(
+        Locale.ROOT,
+        "%-26s %9s %7s %7s %9s %9s %9s %9s%n",
+        "endpoint",
+        "requests",
+        "errors",
+        "req/s",
+        "p50 ms",
+        "p95 ms",
+        "p99 ms",
+        "max ms"
+      )
+    );
+
+    synchronized (endpoints) {
+      for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+        Summary summary = entry.getValue().summarize(window);
+        table.append(
+          String.format(
+            Locale.ROOT,
+            "%-26s %9d %6.2f%% %7.1f %9.1f %9.1f %9.1f %9.1f%n",
+            entry.getKey(),
+            summary.requests(),
+            summary.errorRate() * 100,
+            summary.throughput(),
+            summary.p50(),
+            summary.p95(),
+            summary.p99(),
+            summary.max()
+          )
+        );
+      }
+    }
+    return table.toString();
+  }
+
+  /**
+   * The statistics of an endpoint, with latencies in milliseconds and the
+   * throughput in requests per second.
+   */
+  public record Summary(
+    long requests,
+    double errorRate,
+    double throughput,
+    double p50,
+    double p95,
+    double p99,
+    double max
+  ) {}
+
+  private static class Endpoint {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    synchronized void add(long nanos, boolean ok) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = nanos;
+      if (!ok) errors++;
+    }
+
+    synchronized Summary summarize(Duration window) {
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+
+      double seconds = window.toMillis() / 1000.0;
+      return new Summary(
+        count,
+        count == 0 ? 0 : (double) errors / count,
+        seconds > 0 ? count / seconds : 0,
+        percentile(sorted, 0.50),
+        percentile(sorted, 0.95),
+        percentile(sorted, 0.99),
+        percentile(sorted, 1.0)
+      );
+    }
+
+    /**
+     * Finds a percentile by the nearest rank, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double p) {
+      if (sorted.length == 0) return 0;
+      int rank = (int) Math.ceil(p * sorted.length);
+      return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package Pucknotes.Server.Load;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import Pucknotes.Server.Load.LoadProfile.Action;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LoadReportTest {
+
+  @Test
+  void summary_ShouldComputePercentilesThroughputAndErrors() {
+    LoadReport report = new LoadReport(Duration.ofSeconds(10));
+    for (int i = 1; i <= 100; i++) {
+      report.record("GET /api/note", i * 1_000_000L, i % 10 != 0);
+    }
+
+    LoadReport.Summary summary = report.summary("GET /api/note");
+
+    assertEquals(100, summary.requests());
+    assertEquals(0.1, summary.errorRate(), 1e-9);
+    assertEquals(10.0, summary.throughput(), 1e-9);
+    assertEquals(50.0, summary.p50(), 1e-9);
+    assertEquals(95.0, summary.p95(), 1e-9);
+    assertEquals(99.0, summary.p99(), 1e-9);
+    assertEquals(100.0, summary.max(), 1e-9);
+    assertEquals(0.1, report.errorRate(), 1e-9);
+    assertNull(report.summary("GET /api/comment"));
+  }
+
+  @Test
+  void parseMix_ShouldReadWeights() {
+    Map<Action, Integer> mix = LoadProfile.parseMix("browse=3, download=1");
+
+    assertEquals(Map.of(Action.BROWSE, 3, Action.DOWNLOAD, 1), mix);
+  }
+
+  @Test
+  void parseMix_ShouldRejectUnknownActionsAndWeights() {
+    assertThrows(IllegalArgumentException.class, () ->
+      LoadProfile.parseMix("browse=1,upload=2")
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+      LoadProfile.parseMix("browse=many")
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+      LoadProfile.parseMix("login=1")
+    );
+  }
+
+  @Test
+  void pick_ShouldFollowTheMix() {
+    LoadProfile profile = new LoadProfile(
+      1,
+      Duration.ofSeconds(1),
+      Duration.ZERO,
+      Duration.ZERO,
+      LoadProfile.parseMix("browse=3,download=1"),
+      0.1,
+      0.8,
+      0.01
+    );
+
+    assertEquals(Action.BROWSE, profile.pick(0.0));
+    assertEquals(Action.BROWSE, profile.pick(0.74));
+    assertEquals(Action.DOWNLOAD, profile.pick(0.75));
+    assertEquals(Action.DOWNLOAD, profile.pick(0.99));
+    assertEquals(0, profile.thinkMillis(0.5));
+  }
+}
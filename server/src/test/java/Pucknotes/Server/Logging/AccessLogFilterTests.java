@@ -0,0 +1,137 @@
+package Pucknotes.Server.Logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+class AccessLogFilterTest {
+
+  @Mock
+  private AccessLog log;
+
+  @InjectMocks
+  private AccessLogFilter filter;
+
+  private MockHttpServletResponse response;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(filter, "payloadRoutes", List.of("/api/report/**"));
+    response = new MockHttpServletResponse();
+  }
+
+  @Test
+  void doFilter_ShouldLogRouteStatusAndBytes() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/note/123"
+    );
+
+    filter.doFilter(request, response, (req, res) -> {
+      req.setAttribute(
+        HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+        "/api/note/{id}"
+      );
+      res.getOutputStream().write(new byte[42]);
+    });
+
+    ArgumentCaptor<AccessLog.Entry> entry = ArgumentCaptor.forClass(
+      AccessLog.Entry.class
+    );
+    verify(log).submit(entry.capture());
+    String line = entry.getValue().format();
+    assertTrue(line.startsWith("method=GET route=/api/note/{id} status=200"));
+    assertTrue(line.contains("bytes=42"));
+    assertFalse(line.contains("payload="));
+    assertEquals(42, response.getContentAsByteArray().length);
+  }
+
+  @Test
+  void doFilter_ShouldCapturePayload_ForOptInRoutes() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "POST",
+      "/api/report"
+    );
+    request.setContentType("application/json");
+    request.setContent("{\"reason\":\"spam\"}".getBytes(StandardCharsets.UTF_8));
+
+    filter.doFilter(request, response, (req, res) ->
+      req.getInputStream().readAllBytes()
+    );
+
+    ArgumentCaptor<AccessLog.Entry> entry = ArgumentCaptor.forClass(
+      AccessLog.Entry.class
+    );
+    verify(log).submit(entry.capture());
+    assertTrue(
+      entry.getValue().format().contains("payload=\"{\\\"reason\\\":\\\"spam\\\"}\"")
+    );
+  }
+
+  @Test
+  void doFilter_ShouldNeverBufferMultipartBodies() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "POST",
+      "/api/report/upload"
+    );
+    request.setContentType("multipart/form-data; boundary=x");
+
+    filter.doFilter(request, response, (req, res) ->
+      assertFalse(req instanceof ContentCachingRequestWrapper)
+    );
+  }
+
+  @Test
+  void doFilter_ShouldAlwaysLogServerErrors_WhenSampled() throws Exception {
+    ReflectionTestUtils.setField(filter, "sampleRate", 0.0);
+
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/note"
+    );
+    filter.doFilter(request, response, (req, res) -> {});
+    verify(log, never()).submit(any());
+
+    filter.doFilter(
+      new MockHttpServletRequest("GET", "/api/note"),
+      new MockHttpServletResponse(),
+      (req, res) -> ((HttpServletResponse) res).setStatus(500)
+    );
+    verify(log, times(1)).submit(any());
+  }
+
+  @Test
+  void format_ShouldQuoteValues() {
+    AccessLog.Entry entry = new AccessLog.Entry(
+      "GET",
+      "/api/note",
+      "title=a b\"c",
+      200,
+      1500,
+      10,
+      "127.0.0.1",
+      null
+    );
+
+    assertEquals(
+      "method=GET route=/api/note status=200 ms=1.500 bytes=10 client=127.0.0.1 query=\"title=a b\\\"c\"",
+      entry.format()
+    );
+  }
+}
@@ -0,0 +1,105 @@
+package Pucknotes.Server.Mail;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MailDispatcherTest {
+
+  @Mock
+  private JavaMailSender mailer;
+
+  @Mock
+  private MailOutbox outbox;
+
+  @InjectMocks
+  private MailDispatcher dispatcher;
+
+  private OutboxMail first;
+  private OutboxMail second;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+
+    first = mail("first@rpi.edu", 1);
+    second = mail("second@rpi.edu", 1);
+    when(outbox.claim(anyInt(), any(Duration.class)))
+      .thenReturn(List.of(first, second))
+      .thenReturn(List.of());
+  }
+
+  private static OutboxMail mail(String recipient, int attempts) {
+    OutboxMail mail = new OutboxMail(recipient, "Subject", "Text");
+    ReflectionTestUtils.setField(mail, "id", recipient);
+    ReflectionTestUtils.setField(mail, "attempts", attempts);
+    return mail;
+  }
+
+  @Test
+  void drain_ShouldSendBatchOverOneConnection() {
+    assertEquals(2, dispatcher.drain());
+
+    ArgumentCaptor<SimpleMailMessage[]> messages = ArgumentCaptor.forClass(
+      SimpleMailMessage[].class
+    );
+    verify(mailer, times(1)).send(messages.capture());
+    verify(outbox).sent(first);
+    verify(outbox).sent(second);
+  }
+
+  @Test
+  void drain_ShouldRetryOnlyFailedMessages() {
+    doAnswer(invocation -> {
+      Object[] messages = invocation.getArguments(); // One per message.
+      throw new MailSendException(
+        Map.of(messages[1], new RuntimeException("Mailbox full"))
+      );
+    })
+      .when(mailer)
+      .send(any(SimpleMailMessage[].class));
+
+    dispatcher.drain();
+
+    verify(outbox).sent(first);
+    verify(outbox).retry(eq(second), any(Date.class), eq("Mailbox full"));
+    verify(outbox, never()).fail(any(), anyString());
+  }
+
+  @Test
+  void drain_ShouldGiveUp_AfterMaxAttempts() {
+    ReflectionTestUtils.setField(second, "attempts", 8);
+    doThrow(new MailSendException("Connection refused"))
+      .when(mailer)
+      .send(any(SimpleMailMessage[].class));
+
+    dispatcher.drain();
+
+    verify(outbox).retry(eq(first), any(Date.class), anyString());
+    verify(outbox).fail(eq(second), anyString());
+    verify(outbox, never()).sent(any());
+  }
+
+  @Test
+  void backoff_ShouldDoubleUpToOneHour() {
+    assertEquals(Duration.ofSeconds(30), dispatcher.backoff(1));
+    assertEquals(Duration.ofSeconds(60), dispatcher.backoff(2));
+    assertEquals(Duration.ofSeconds(120), dispatcher.backoff(3));
+    assertEquals(Duration.ofHours(1), dispatcher.backoff(20));
+  }
+}
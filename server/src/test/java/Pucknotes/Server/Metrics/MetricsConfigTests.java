@@ -0,0 +1,78 @@
+package Pucknotes.Server.Metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MetricsConfigTest {
+
+  private SimpleMeterRegistry registry;
+  private MetricsConfig config;
+
+  @Timed(MetricsConfig.SERVICE_TIMER)
+  static class ExampleService {
+
+    public String find(String id) {
+      return id;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    config = new MetricsConfig();
+    ReflectionTestUtils.setField(config, "registry", registry);
+  }
+
+  @Test
+  void timedAspect_ShouldTimeEveryMethodOfTimedServices() {
+    AspectJProxyFactory factory = new AspectJProxyFactory(new ExampleService());
+    factory.addAspect(config.timedAspect(registry));
+    ExampleService service = factory.getProxy();
+
+    service.find("a");
+    service.find("b");
+
+    Timer timer = registry
+      .get(MetricsConfig.SERVICE_TIMER)
+      .tag("class", ExampleService.class.getName())
+      .tag("method", "find")
+      .timer();
+    assertEquals(2, timer.count());
+  }
+
+  @Test
+  void extendMessageConverters_ShouldTimeJsonWrites() throws Exception {
+    List<HttpMessageConverter<?>> converters = new ArrayList<>(
+      List.of(
+        new StringHttpMessageConverter(),
+        new MappingJackson2HttpMessageConverter(new ObjectMapper())
+      )
+    );
+    config.extendMessageConverters(converters);
+
+    assertTrue(converters.get(0) instanceof StringHttpMessageConverter);
+    TimedJsonConverter json = (TimedJsonConverter) converters.get(1);
+
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    json.write(Map.of("data", 1), MediaType.APPLICATION_JSON, output);
+
+    assertEquals("{\"data\":1}", output.getBodyAsString());
+    assertEquals(1, registry.get("pucknotes.json.write").timer().count());
+  }
+}
@@ -0,0 +1,142 @@
+package Pucknotes.Server.Note;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Course.Course;
+import Pucknotes.Server.Database.TaxonomyCache;
+import Pucknotes.Server.Response.Types.ResourceNotFoundException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.List;
+import java.util.function.Consumer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class NoteFilterResolverTest {
+
+  @Mock
+  private MongoTemplate template;
+
+  @Mock
+  private TaxonomyCache taxonomy;
+
+  @Mock
+  private MongoCollection<Document> collection;
+
+  @Mock
+  private AggregateIterable<Document> results;
+
+  @InjectMocks
+  private NoteFilterResolver resolver;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(template.getCollectionName(any())).then(invocation ->
+      ((Class<?>) invocation.getArgument(0)).getSimpleName().toLowerCase()
+    );
+    when(template.getCollection(anyString())).thenReturn(collection);
+    when(collection.aggregate(anyList())).thenReturn(results);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void found(Document... documents) {
+    doAnswer(invocation -> {
+      List.of(documents).forEach(
+        (Consumer<Document>) invocation.getArgument(0)
+      );
+      return null;
+    })
+      .when(results)
+      .forEach(any());
+  }
+
+  @Test
+  void resolve_ShouldNotQuery_WhenNoFilterIsGiven() {
+    resolver.resolve(new NoteFilter());
+
+    verify(template, never()).getCollection(anyString());
+  }
+
+  @Test
+  void resolve_ShouldLookUpEveryReferenceInOneAggregation() {
+    ObjectId course = new ObjectId();
+    ObjectId semester = new ObjectId();
+    found(
+      new Document("_id", course).append("key", "courseCode"),
+      new Document("_id", semester).append("key", "semesterName")
+    );
+
+    NoteFilter filter = new NoteFilter();
+    filter.setCourseCode("CSCI-1200");
+    filter.setSemesterName("Fall 2024");
+    resolver.resolve(filter);
+
+    assertEquals(course.toHexString(), filter.getCourseID());
+    assertEquals(semester.toHexString(), filter.getSemesterID());
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(
+      List.class
+    );
+    verify(collection, times(1)).aggregate(pipeline.capture());
+    assertTrue(
+      pipeline
+        .getValue()
+        .stream()
+        .anyMatch(stage -> stage.containsKey("$unionWith"))
+    );
+  }
+
+  @Test
+  void resolve_ShouldNotQuery_WhenCatalogCacheKnowsReference() {
+    String course = new ObjectId().toHexString();
+    TaxonomyCache.Table<?> courses = mock(TaxonomyCache.Table.class);
+    when(courses.peekId("code", "CSCI-1200")).thenReturn(course);
+    doReturn(courses).when(taxonomy).table(Course.class);
+
+    NoteFilter filter = new NoteFilter();
+    filter.setCourseCode("CSCI-1200");
+    resolver.resolve(filter);
+
+    assertEquals(course, filter.getCourseID());
+    verify(template, never()).getCollection(anyString());
+  }
+
+  @Test
+  void resolve_ShouldReportEveryInvalidReference() {
+    found();
+
+    NoteFilter filter = new NoteFilter();
+    filter.setSectionID("not-an-id");
+    filter.setCourseCode("NOPE-0000");
+
+    IllegalArgumentException error = assertThrows(
+      IllegalArgumentException.class,
+      () -> resolver.resolve(filter)
+    );
+    assertTrue(error.getMessage().contains("'sectionID'"));
+    assertTrue(error.getMessage().contains("'courseCode'"));
+  }
+
+  @Test
+  void resolve_ShouldThrowNotFound_WhenOnlyOwnerIsMissing() {
+    found();
+
+    NoteFilter filter = new NoteFilter();
+    filter.setOwnerID(new ObjectId().toHexString());
+
+    assertThrows(ResourceNotFoundException.class, () ->
+      resolver.resolve(filter)
+    );
+  }
+}
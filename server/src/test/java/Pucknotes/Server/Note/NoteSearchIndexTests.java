@@ -0,0 +1,133 @@
+package Pucknotes.Server.Note;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NoteSearchIndexTest {
+
+  private NoteSearchIndex searchIndex;
+
+  @BeforeEach
+  void setUp() {
+    searchIndex = new NoteSearchIndex();
+  }
+
+  private Note note(
+    String id,
+    String title,
+    String description,
+    List<String> tags,
+    String course
+  ) {
+    Note note = new Note();
+    note.setTitle(title);
+    note.setDescription(description);
+    note.setTags(tags);
+    note.setCourse(course);
+    try {
+      var field = Note.class.getDeclaredField("id");
+      field.setAccessible(true);
+      field.set(note, id);
+    } catch (ReflectiveOperationException error) {
+      throw new IllegalStateException(error);
+    }
+    return note;
+  }
+
+  private List<String> search(String text) {
+    return searchIndex.search(text, null, null, null, null, null, List.of(), null);
+  }
+
+  @Test
+  void tokenize_ShouldLowercaseAndStripAccentsAndPunctuation() {
+    assertEquals(
+      List.of("calculus", "ii", "resume", "2024"),
+      NoteSearchIndex.tokenize("Calculus II: Résumé (2024)!")
+    );
+  }
+
+  @Test
+  void search_ShouldRankTitleMatchesAboveDescriptionMatches() {
+    searchIndex.index(note("1", "Lecture slides", "Covers derivatives", List.of(), null));
+    searchIndex.index(note("2", "Derivatives cheat sheet", "", List.of(), null));
+
+    assertEquals(List.of("2", "1"), search("derivatives"));
+  }
+
+  @Test
+  void search_ShouldMatchPrefixOfLastToken() {
+    searchIndex.index(note("1", "Organic chemistry", "", List.of(), null));
+    searchIndex.index(note("2", "Organic farming", "", List.of(), null));
+
+    assertEquals(List.of("1"), search("organic chem"));
+  }
+
+  @Test
+  void search_ShouldRequireEveryToken() {
+    searchIndex.index(note("1", "Linear algebra", "", List.of(), null));
+
+    assertEquals(List.of(), search("linear physics"));
+  }
+
+  @Test
+  void search_ShouldMatchTags() {
+    searchIndex.index(note("1", "Week 3", "", List.of("midterm"), null));
+
+    assertEquals(List.of("1"), search("midterm"));
+  }
+
+  @Test
+  void search_ShouldApplyFilters() {
+    searchIndex.index(note("1", "Exam review", "", List.of(), "course-a"));
+    searchIndex.index(note("2", "Exam review", "", List.of(), "course-b"));
+
+    assertEquals(
+      List.of("2"),
+      searchIndex.search("exam", null, "course-b", null, null, null, List.of(), null)
+    );
+  }
+
+  @Test
+  void search_ShouldForgetRemovedAndUpdatedNotes() {
+    searchIndex.index(note("1", "Thermodynamics", "", List.of(), null));
+    searchIndex.index(note("2", "Thermodynamics notes", "", List.of(), null));
+    searchIndex.remove("1");
+    searchIndex.index(note("2", "Statics", "", List.of(), null));
+
+    assertEquals(List.of(), search("thermo"));
+    assertEquals(List.of("2"), search("statics"));
+  }
+
+  @Test
+  void matchAll_ShouldReturnEveryMatch_UpToMaxMatches() {
+    for (int i = 0; i < NoteSearchIndex.MAX_MATCHES; i++) {
+      searchIndex.index(note(String.valueOf(i), "Exam", "", List.of(), null));
+    }
+
+    assertEquals(NoteSearchIndex.MAX_RESULTS, search("exam").size());
+    assertEquals(
+      NoteSearchIndex.MAX_MATCHES,
+      searchIndex
+        .matchAll("exam", null, null, null, null, null, List.of(), null)
+        .size()
+    );
+
+    // One more match is too many to list.
+    searchIndex.index(note("last", "Exam", "", List.of(), null));
+    assertNull(
+      searchIndex.matchAll("exam", null, null, null, null, null, List.of(), null)
+    );
+    assertEquals(NoteSearchIndex.MAX_RESULTS, search("exam").size());
+  }
+
+  @Test
+  void rank_ShouldFollowSearchOrder() {
+    assertEquals(
+      List.of("b", "a", "c"),
+      NoteSearchIndex.rank(List.of("a", "b", "c"), List.of("b", "a"), id -> id)
+    );
+  }
+}
@@ -0,0 +1,478 @@
+package Pucknotes.Server.Note;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Account.Account;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class NoteServiceTest {
+
+  @Mock
+  private NoteRepository repository;
+
+  @Mock
+  private MongoTemplate template;
+
+  @Mock
+  private NoteSearchIndex searchIndex;
+
+  @InjectMocks
+  private NoteService noteService;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private Note note(long likes) {
+    Note note = new Note();
+    note.setTotalLikes(likes);
+    return withId(note, new ObjectId().toString());
+  }
+
+  private Note withId(Note note, String id) {
+    try {
+      var field = Note.class.getDeclaredField("id");
+      field.setAccessible(true);
+      field.set(note, id);
+    } catch (ReflectiveOperationException error) {
+      throw new IllegalStateException(error);
+    }
+    return note;
+  }
+
+  @Test
+  void getNotePage_ShouldReturnCursor_WhenMoreResultsExist() {
+    List<Note> found = List.of(note(1), note(2), note(3));
+    when(template.find(any(Query.class), eq(Note.class))).thenReturn(found);
+
+    NotePage<Note> page = noteService.getNotePage(
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(),
+      null,
+      "likes",
+      "asc",
+      null,
+      null,
+      2
+    );
+
+    assertEquals(2, page.getItems().size());
+    assertNotNull(page.getNext());
+
+    NoteCursor cursor = NoteCursor.decode(page.getNext());
+    assertEquals("totalLikes", cursor.getField());
+    assertEquals(2L, ((Number) cursor.getValue()).longValue());
+    assertEquals(found.get(1).getId(), cursor.getId());
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(query.capture(), eq(Note.class));
+    assertEquals(3, query.getValue().getLimit());
+  }
+
+  @Test
+  void getNotePage_ShouldReturnNoCursor_OnLastPage() {
+    when(template.find(any(Query.class), eq(Note.class))).thenReturn(
+      List.of(note(1))
+    );
+
+    NotePage<Note> page = noteService.getNotePage(
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(),
+      null,
+      "likes",
+      "asc",
+      null,
+      null,
+      2
+    );
+
+    assertEquals(1, page.getItems().size());
+    assertNull(page.getNext());
+  }
+
+  @Test
+  void getNotePage_ShouldCapPageSize() {
+    when(template.find(any(Query.class), eq(Note.class))).thenReturn(List.of());
+
+    noteService.getNotePage(
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(),
+      null,
+      "likes",
+      "asc",
+      null,
+      null,
+      10_000
+    );
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(query.capture(), eq(Note.class));
+    assertEquals(NoteService.MAX_PAGE_SIZE + 1, query.getValue().getLimit());
+  }
+
+  @Test
+  void getNotePage_ShouldThrowException_WhenLimitIsNotPositive() {
+    assertThrows(IllegalArgumentException.class, () ->
+      noteService.getNotePage(
+        null,
+        null,
+        null,
+        null,
+        null,
+        List.of(),
+        null,
+        "likes",
+        "asc",
+        null,
+        null,
+        0
+      )
+    );
+  }
+
+  @Test
+  void getNotePage_ShouldThrowException_WhenCursorDoesNotMatchSort() {
+    String cursor = NoteCursor.after(note(4), "totalLikes").encode();
+
+    assertThrows(IllegalArgumentException.class, () ->
+      noteService.getNotePage(
+        null,
+        null,
+        null,
+        null,
+        null,
+        List.of(),
+        null,
+        "title",
+        "asc",
+        null,
+        cursor,
+        10
+      )
+    );
+  }
+
+  @Test
+  void streamNotes_ShouldReadFromCursor_WhenNotRankedBySearch() {
+    Note first = note(3);
+    Note second = note(1);
+    when(template.stream(any(Query.class), eq(Note.class))).thenReturn(
+      Stream.of(first, second)
+    );
+
+    try (
+      Stream<Note> result = noteService.streamNotes(
+        null,
+        null,
+        null,
+        null,
+        null,
+        List.of(),
+        null,
+        "likes",
+        "desc",
+        null
+      )
+    ) {
+      assertEquals(List.of(first, second), result.toList());
+    }
+    verify(template, never()).find(any(Query.class), eq(Note.class));
+  }
+
+  @Test
+  void noteCursor_ShouldRejectMalformedTokens() {
+    assertThrows(IllegalArgumentException.class, () ->
+      NoteCursor.decode("not-a-cursor")
+    );
+  }
+
+  @Test
+  void noteCursor_ShouldRejectValuesOfTheWrongType() {
+    String id = new ObjectId().toHexString();
+    for (Document value : List.of(
+      new Document("k", "title").append("v", new Document("$ne", null)),
+      new Document("k", "totalLikes").append("v", "7"),
+      new Document("k", "createdDate").append("v", 42)
+    )) {
+      String token = Base64.getUrlEncoder()
+        .encodeToString(value.append("id", id).toJson().getBytes());
+      assertThrows(IllegalArgumentException.class, () ->
+        NoteCursor.decode(token)
+      );
+    }
+  }
+
+  @Test
+  void noteCursor_ShouldKeepMissingValues_WhenDescending() {
+    Note last = note(0);
+    last.setTitle("Midterm review");
+    NoteCursor cursor = NoteCursor.decode(
+      NoteCursor.after(last, "title").encode()
+    );
+
+    String seek = cursor.seek(Sort.Direction.DESC).getCriteriaObject().toJson();
+
+    assertTrue(seek.contains("{\"title\": null}"));
+  }
+
+  @Test
+  void noteCursor_ShouldSeekPastTies_WhenDescending() {
+    Note last = note(7);
+    NoteCursor cursor = NoteCursor.decode(
+      NoteCursor.after(last, "totalLikes").encode()
+    );
+
+    String seek = cursor.seek(Sort.Direction.DESC).getCriteriaObject().toJson();
+
+    assertTrue(seek.contains("$lt"));
+    assertTrue(seek.contains(last.getId()));
+  }
+
+  @Test
+  void countNotes_ShouldCountEverySearchMatch() {
+    String match = new ObjectId().toHexString();
+    when(searchIndex.isReady()).thenReturn(true);
+    when(
+      searchIndex.matchAll(
+        eq("exam"),
+        any(),
+        any(),
+        any(),
+        any(),
+        any(),
+        any(),
+        any()
+      )
+    ).thenReturn(List.of(match));
+    when(template.count(any(Query.class), eq(Note.class))).thenReturn(1L);
+
+    assertEquals(
+      1L,
+      noteService.countNotes(null, null, null, null, null, List.of(), "exam", null)
+    );
+    verify(searchIndex, never()).search(
+      any(),
+      any(),
+      any(),
+      any(),
+      any(),
+      any(),
+      any(),
+      any()
+    );
+  }
+
+  @Test
+  void countNotes_ShouldScan_WhenSearchMatchesTooManyNotes() {
+    when(searchIndex.isReady()).thenReturn(true);
+    when(
+      searchIndex.matchAll(
+        eq("a"),
+        any(),
+        any(),
+        any(),
+        any(),
+        any(),
+        any(),
+        any()
+      )
+    ).thenReturn(null);
+
+    noteService.countNotes(null, null, null, null, null, List.of(), "a", null);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(template).count(query.capture(), eq(Note.class));
+    String filter = query.getValue().getQueryObject().toJson();
+    assertTrue(filter.contains("\"title\""));
+    assertFalse(filter.contains("$in"));
+  }
+
+  @Test
+  void getNotes_ShouldSearchOnce_WhenRankedByRelevance() {
+    Note first = note(1);
+    Note second = note(2);
+    when(searchIndex.isReady()).thenReturn(true);
+    when(
+      searchIndex.search(
+        eq("exam"),
+        any(),
+        any(),
+        any(),
+        any(),
+        any(),
+        any(),
+        any()
+      )
+    ).thenReturn(List.of(second.getId(), first.getId()));
+    when(template.find(any(Query.class), eq(Note.class))).thenReturn(
+      List.of(first, second)
+    );
+
+    List<Note> result = noteService.getNotes(
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(),
+      "exam",
+      "relevance",
+      "desc",
+      null
+    );
+
+    assertEquals(List.of(second, first), result);
+    verify(searchIndex, times(1)).search(
+      any(),
+      any(),
+      any(),
+      any(),
+      any(),
+      any(),
+      any(),
+      any()
+    );
+  }
+
+  @Test
+  void countNotes_ShouldEstimate_WhenUnfiltered() {
+    when(template.estimatedCount(Note.class)).thenReturn(42L);
+
+    long count = noteService.countNotes(
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(),
+      null,
+      null
+    );
+
+    assertEquals(42L, count);
+    verify(template, never()).count(any(Query.class), eq(Note.class));
+    verify(template, never()).find(any(Query.class), eq(Note.class));
+  }
+
+  @Test
+  void countNotes_ShouldCountOnServer_WhenFiltered() {
+    String courseID = new ObjectId().toString();
+    when(template.count(any(Query.class), eq(Note.class))).thenReturn(3L);
+
+    long count = noteService.countNotes(
+      null,
+      courseID,
+      null,
+      null,
+      null,
+      List.of(),
+      null,
+      null
+    );
+
+    assertEquals(3L, count);
+    verify(template, never()).find(any(Query.class), eq(Note.class));
+  }
+
+  @Test
+  void getNoteIds_ShouldProjectIdsOnly() {
+    ObjectId first = new ObjectId();
+    ObjectId second = new ObjectId();
+
+    when(template.getCollectionName(Note.class)).thenReturn("notes");
+    when(
+      template.stream(any(Query.class), eq(Document.class), eq("notes"))
+    ).thenReturn(
+      Stream.of(new Document("_id", first), new Document("_id", second))
+    );
+
+    List<String> ids = noteService.getNoteIds(
+      null,
+      null,
+      null,
+      null,
+      null,
+      List.of(),
+      null,
+      "likes",
+      "asc",
+      null
+    );
+
+    assertEquals(List.of(first.toHexString(), second.toHexString()), ids);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(template).stream(query.capture(), eq(Document.class), eq("notes"));
+    assertEquals(new Document("_id", 1), query.getValue().getFieldsObject());
+    verify(template, never()).find(any(Query.class), eq(Note.class));
+  }
+
+  @Test
+  void updateNote_ShouldWriteEditedFieldsOnly_KeepingLikes() {
+    Note note = note(5);
+    note.setOwner("owner");
+    note.setTitle("Midterm review");
+    Account owner = new Account("student@rpi.edu", "student", "hash");
+    ReflectionTestUtils.setField(owner, "id", "owner");
+
+    Note updated = note(7);
+    when(
+      template.findAndModify(
+        any(Query.class),
+        any(Update.class),
+        any(FindAndModifyOptions.class),
+        eq(Note.class)
+      )
+    ).thenReturn(updated);
+
+    noteService.updateNote(note, owner);
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).findAndModify(
+      any(Query.class),
+      update.capture(),
+      any(FindAndModifyOptions.class),
+      eq(Note.class)
+    );
+    Document changes = update.getValue().getUpdateObject();
+    assertEquals(
+      "Midterm review",
+      changes.get("$set", Document.class).get("title")
+    );
+    assertFalse(changes.get("$set", Document.class).containsKey("totalLikes"));
+    assertEquals(new Document("version", 1), changes.get("$inc"));
+    verify(repository, never()).save(any());
+    verify(searchIndex).index(updated);
+  }
+}
@@ -0,0 +1,45 @@
+package Pucknotes.Server.Response;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class StreamedListTest {
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void serialize_ShouldWriteArrayInsideResponse() throws Exception {
+    StreamedList<String> list = StreamedList.of(Stream.of("a", "b"));
+
+    assertEquals(
+      "{\"good\":true,\"data\":[\"a\",\"b\"],\"error\":null}",
+      new ObjectMapper().writeValueAsString(APIResponse.good(list))
+    );
+  }
+
+  @Test
+  void of_ShouldCloseStream_WhenRequestCompletes() {
+    ServletRequestAttributes request = new ServletRequestAttributes(
+      new MockHttpServletRequest()
+    );
+    RequestContextHolder.setRequestAttributes(request);
+
+    AtomicBoolean closed = new AtomicBoolean();
+    StreamedList.of(Stream.of("a").onClose(() -> closed.set(true)));
+    assertFalse(closed.get());
+
+    request.requestCompleted();
+    assertTrue(closed.get());
+  }
+}
@@ -0,0 +1,251 @@
+package Pucknotes.Server.Session;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.abort;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Benchmark.LocalMongo;
+import Pucknotes.Server.Session.MongoSessionRepository.MongoSession;
+import com.mongodb.client.MongoClient;
+import java.time.Duration;
+import java.time.Instant;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.session.FindByIndexNameSessionRepository;
+
+class MongoSessionRepositoryTest {
+
+  @Mock
+  private MongoTemplate template;
+
+  private MongoSessionRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    repository = new MongoSessionRepository(
+      template,
+      Duration.ofMinutes(30),
+      Duration.ofMinutes(1),
+      100
+    );
+  }
+
+  private MongoSession stored() {
+    MongoSession session = repository.createSession();
+    session.setAttribute("id", "accountId");
+    session.setAttribute("other.name", "value");
+    repository.save(session);
+    clearInvocations(template);
+    return repository.findById(session.getId());
+  }
+
+  @Test
+  void save_ShouldInsertWholeSession_WhenNew() {
+    MongoSession session = repository.createSession();
+    session.setAttribute("id", "accountId");
+    repository.save(session);
+
+    ArgumentCaptor<Document> document = ArgumentCaptor.forClass(Document.class);
+    verify(template).save(document.capture(), eq("sessions"));
+    assertEquals(session.getId(), document.getValue().get("_id"));
+    assertEquals("accountId", document.getValue().get("principal"));
+    assertNotNull(document.getValue().get("expireAt"));
+    assertTrue(
+      document.getValue().get("attrs", Document.class).containsKey("id")
+    );
+  }
+
+  @Test
+  void save_ShouldOnlyWriteChangedAttributes() {
+    MongoSession session = stored();
+    session.setAttribute("principal", "snapshot");
+    session.removeAttribute("other.name");
+    repository.save(session);
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(any(Query.class), update.capture(), eq("sessions"));
+    verify(template, never()).save(any(), anyString());
+
+    Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+    Document unset = update.getValue().getUpdateObject().get("$unset", Document.class);
+    assertTrue(set.containsKey("attrs.principal"));
+    assertFalse(set.containsKey("attrs.id"));
+    assertTrue(unset.containsKey("attrs.other%2Ename"));
+  }
+
+  @Test
+  void save_ShouldSkipWrite_WhenNothingChanged() {
+    MongoSession session = stored();
+    session.setLastAccessedTime(session.getLastAccessedTime().plusSeconds(5));
+    repository.save(session);
+
+    verifyNoInteractions(template);
+  }
+
+  @Test
+  void save_ShouldRefreshExpiry_WhenAccessIsDue() {
+    MongoSession session = stored();
+    session.setLastAccessedTime(
+      session
+        .getLastAccessedTime()
+        .plus(MongoSessionRepository.ACCESS_WRITE_INTERVAL)
+    );
+    repository.save(session);
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateFirst(any(Query.class), update.capture(), eq("sessions"));
+    Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+    assertTrue(set.containsKey("expireAt"));
+    assertFalse(set.keySet().stream().anyMatch(key -> key.startsWith("attrs.")));
+  }
+
+  @Test
+  void save_ShouldMoveSession_WhenIdChanged() {
+    MongoSession session = stored();
+    String oldId = session.getId();
+    session.changeSessionId();
+    repository.save(session);
+
+    verify(template).remove(any(Query.class), eq("sessions"));
+    verify(template).save(any(Document.class), eq("sessions"));
+    assertNotEquals(oldId, session.getId());
+  }
+
+  @Test
+  void findById_ShouldUseNearCache() {
+    MongoSession session = stored();
+
+    assertEquals("accountId", session.getAttribute("id"));
+    assertEquals("value", session.getAttribute("other.name"));
+    verify(template, never()).findById(any(), any(), anyString());
+  }
+
+  @Test
+  void findById_ShouldReadStoredSession_WhenNotCached() {
+    MongoSession session = repository.createSession();
+    session.setAttribute("other.name", "value");
+    repository.save(session);
+
+    ArgumentCaptor<Document> document = ArgumentCaptor.forClass(Document.class);
+    verify(template).save(document.capture(), eq("sessions"));
+
+    MongoSessionRepository other = new MongoSessionRepository(
+      template,
+      Duration.ofMinutes(30),
+      Duration.ofMinutes(1),
+      100
+    );
+    when(template.findById(session.getId(), Document.class, "sessions"))
+      .thenReturn(document.getValue());
+
+    MongoSession loaded = other.findById(session.getId());
+    assertEquals("value", loaded.getAttribute("other.name"));
+    assertEquals(
+      session.getCreationTime().toEpochMilli(),
+      loaded.getCreationTime().toEpochMilli()
+    );
+  }
+
+  @Test
+  void findById_ShouldDeleteExpiredSession() {
+    MongoSession session = repository.createSession();
+    session.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+    repository.save(session);
+
+    assertNull(repository.findById(session.getId()));
+    verify(template).remove(any(Query.class), eq("sessions"));
+  }
+
+  @Test
+  void encode_ShouldRoundTrip() {
+    String name = "org.springframework.$weird%name";
+    String field = MongoSessionRepository.encode(name);
+
+    assertFalse(field.contains("."));
+    assertFalse(field.contains("$"));
+    assertEquals(name, MongoSessionRepository.decode(field));
+  }
+
+  /**
+   * Runs against the MongoDB server of {@link LocalMongo}: an embedded one, or
+   * the one given by PUCKNOTES_BENCH_MONGO_URI. The tests are skipped when no
+   * server can be started, e.g. offline before the embedded one was downloaded.
+   */
+  @Nested
+  @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+  class AgainstServer {
+
+    private LocalMongo mongo;
+    private MongoClient client;
+    private MongoSessionRepository sessions;
+
+    @BeforeAll
+    void start() {
+      try {
+        mongo = LocalMongo.start();
+      } catch (RuntimeException error) {
+        abort("No MongoDB server could be started: " + error.getMessage());
+      }
+      client = mongo.connect();
+    }
+
+    @AfterAll
+    void stop() {
+      if (client != null) client.close();
+      if (mongo != null) mongo.close();
+    }
+
+    @BeforeEach
+    void connect() {
+      MongoTemplate server = new MongoTemplate(client, mongo.database());
+      server.dropCollection(MongoSessionRepository.COLLECTION);
+      sessions = new MongoSessionRepository(
+        server,
+        Duration.ofMinutes(30),
+        Duration.ZERO,
+        100
+      );
+      sessions.ensureIndexes();
+    }
+
+    @Test
+    void shouldStoreUpdateAndDeleteSessions() {
+      MongoSession session = sessions.createSession();
+      session.setAttribute("id", "accountId");
+      sessions.save(session);
+
+      MongoSession loaded = sessions.findById(session.getId());
+      loaded.setAttribute("other.name", "value");
+      sessions.save(loaded);
+
+      MongoSession reloaded = sessions.findById(session.getId());
+      assertEquals("accountId", reloaded.getAttribute("id"));
+      assertEquals("value", reloaded.getAttribute("other.name"));
+      assertEquals(
+        1,
+        sessions
+          .findByIndexNameAndIndexValue(
+            FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME,
+            "accountId"
+          )
+          .size()
+      );
+
+      sessions.deleteById(session.getId());
+      assertNull(sessions.findById(session.getId()));
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package Pucknotes.Server.Session;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import Pucknotes.Server.Account.Account;
+import Pucknotes.Server.Account.AccountService;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SessionServiceTest {
+
+  @Mock
+  private AccountService accountService;
+
+  @Mock
+  private BCryptPasswordEncoder passwordEncoder;
+
+  @Spy
+  private PrincipalCache principals = new PrincipalCache();
+
+  @InjectMocks
+  private SessionService sessionService;
+
+  private Account account;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+
+    // Everything happens within the same millisecond.
+    ReflectionTestUtils.setField(
+      principals,
+      "clock",
+      Clock.fixed(Instant.ofEpochMilli(1_000_000), ZoneOffset.UTC)
+    );
+
+    account = new Account("student@rpi.edu", "student", "hash");
+    account.setId("accountId");
+    account.setRole(2);
+
+    when(accountService.getByEmail("student@rpi.edu")).thenReturn(account);
+    when(accountService.getById("accountId")).thenReturn(account);
+    when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+  }
+
+  @Test
+  void getCurrentUser_ShouldNotLoadAccount_AfterLogin() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    sessionService.createSession(request, "student@rpi.edu", "password");
+
+    Account user = sessionService.getCurrentUser(request);
+
+    assertEquals("accountId", user.getId());
+    assertEquals(2, user.getRole());
+    assertEquals("student", user.getUsername());
+    verify(accountService, never()).getById(anyString());
+  }
+
+  @Test
+  void getCurrentUser_ShouldReload_WhenAccountChanged() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    sessionService.createSession(request, "student@rpi.edu", "password");
+
+    account.setRole(3);
+    principals.invalidate("accountId");
+
+    assertEquals(3, sessionService.getCurrentUser(request).getRole());
+    verify(accountService, times(1)).getById("accountId");
+
+    // The refreshed snapshot serves the following requests.
+    sessionService.getCurrentUser(request);
+    verify(accountService, times(1)).getById("accountId");
+  }
+
+  @Test
+  void getCurrentUser_ShouldLoadAccount_WhenSessionHasNoSnapshot() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.getSession().setAttribute("id", "accountId");
+
+    assertEquals("accountId", sessionService.getCurrentUser(request).getId());
+    assertNotNull(request.getSession().getAttribute(SessionService.PRINCIPAL));
+  }
+}
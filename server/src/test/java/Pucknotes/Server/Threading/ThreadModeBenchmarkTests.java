@@ -0,0 +1,134 @@
+package Pucknotes.Server.Threading;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import Pucknotes.Server.Benchmark.BenchmarkApplication;
+import Pucknotes.Server.Benchmark.LocalMongo;
+import Pucknotes.Server.Benchmark.SyntheticData;
+import Pucknotes.Server.Load.LoadDriver;
+import Pucknotes.Server.Load.LoadProfile;
+import Pucknotes.Server.Load.LoadProfile.Action;
+import Pucknotes.Server.Load.LoadReport;
+import java.net.URI;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the two execution modes on the real endpoints: the whole application
+ * is started against a seeded local database, once on Tomcat's platform thread
+ * pool and once with "spring.threads.virtual.enabled", and the same load is
+ * played against each with the {@link LoadDriver}.
+ *
+ * Run with "mvn test -Dtest=ThreadModeBenchmarkTest -Dbenchmark=true" on Java
+ * 21 or newer, tuned with the "load.*" properties described in
+ * {@link LoadProfile}. The platform pool has Tomcat's default of 200 threads,
+ * so the modes only differ once more requests are in flight than that, e.g.
+ * with "-Dload.users=500 -Dload.think-time=PT0.1S". The run prints the
+ * latencies of every endpoint in each mode, then their total throughput and
+ * worst p99 side by side.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadModeBenchmarkTest {
+
+  @Test
+  void compareExecutionModes() throws Exception {
+    assumeTrue(
+      Runtime.version().feature() >= 21,
+      "Virtual threads need Java 21 or newer."
+    );
+    LoadProfile profile = LoadProfile.fromSystemProperties();
+
+    try (LocalMongo mongo = LocalMongo.start()) {
+      LoadReport platform = run("platform threads", mongo, profile, false);
+      LoadReport virtual = run("virtual threads", mongo, profile, true);
+
+      System.out.printf(
+        Locale.ROOT,
+        "%-18s %9s %9s%n",
+        "mode",
+        "req/s",
+        "p99 ms"
+      );
+      print("platform threads", platform);
+      print("virtual threads", virtual);
+
+      assertTrue(
+        platform.errorRate() <= profile.getMaxErrorRate(),
+        "Error rate " + platform.errorRate() + " is above the limit."
+      );
+      assertTrue(
+        virtual.errorRate() <= profile.getMaxErrorRate(),
+        "Error rate " + virtual.errorRate() + " is above the limit."
+      );
+    }
+  }
+
+  /**
+   * Seeds the database again, starts the application in the given mode and
+   * plays the load against it.
+   *
+   * @return The latencies and errors measured per endpoint.
+   */
+  private static LoadReport run(
+    String name,
+    LocalMongo mongo,
+    LoadProfile profile,
+    boolean virtual
+  ) throws InterruptedException {
+    // Every mode starts from the same data, since the load likes and comments.
+    SyntheticData data = mongo.seed();
+
+    try (
+      ConfigurableApplicationContext context = BenchmarkApplication.run(
+        mongo,
+        "--spring.threads.virtual.enabled=" + virtual
+      )
+    ) {
+      int port = context
+        .getEnvironment()
+        .getRequiredProperty("local.server.port", Integer.class);
+
+      LoadReport report = new LoadDriver(
+        URI.create("http://localhost:" + port),
+        profile,
+        data
+      ).run();
+
+      System.out.printf(
+        "%s, %d users, %s think time, measured over %s:%n%s%n",
+        name,
+        profile.getUsers(),
+        profile.getThinkTime(),
+        profile.getDuration(),
+        report.format()
+      );
+      return report;
+    }
+  }
+
+  /**
+   * Prints the total throughput and the worst p99 latency of a run.
+   */
+  private static void print(String name, LoadReport report) {
+    double throughput = 0;
+    double p99 = 0;
+    for (Action action : Action.values()) {
+      LoadReport.Summary summary = report.summary(action.getEndpoint());
+      if (summary == null) continue;
+
+      throughput += summary.throughput();
+      p99 = Math.max(p99, summary.p99());
+    }
+
+    System.out.printf(
+      Locale.ROOT,
+      "%-18s %9.1f %9.1f%n",
+      name,
+      throughput,
+      p99
+    );
+  }
+}